@@ -0,0 +1,155 @@
+package com.example.Card_Service_V2.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.example.Card_Service_V2.utils.LogRedactor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request-thread cost of the per-verification trace, eight threads logging at once.
+ * "stdoutPrintln" is what the service did before: string concatenation and an autoflushing PrintStream,
+ * one write per line under the stream lock. The others go through the production appender chain
+ * (async appender, redacting JSON encoder) into a file of the same kind:
+ * <ul>
+ *   <li>"asyncDebug": every event enqueued, never blocking; a full queue discards events, as in production</li>
+ *   <li>"asyncDebugBlocking": same, but the caller waits for queue space, so this is the sustained rate</li>
+ *   <li>"sampledDebug": debug enabled with one in 100 events kept per logger</li>
+ *   <li>"disabledDebug": the default, debug off for the service loggers</li>
+ * </ul>
+ * The redact* benchmarks measure {@link LogRedactor} alone, which runs on the appender's worker thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    private static final String CONFIG = "<configuration>"
+        + "<turboFilter class=\"com.example.Card_Service_V2.config.SamplingTurboFilter\">"
+        + "<loggerPrefix>bench.sampled</loggerPrefix><sampleRate>100</sampleRate></turboFilter>"
+        + "<appender name=\"FILE\" class=\"ch.qos.logback.core.FileAppender\"><file>${LOG_FILE}</file>"
+        + "<encoder class=\"org.springframework.boot.logging.logback.StructuredLogEncoder\">"
+        + "<format>com.example.Card_Service_V2.config.RedactingJsonLogFormatter</format></encoder></appender>"
+        + "<appender name=\"ASYNC\" class=\"ch.qos.logback.classic.AsyncAppender\">"
+        + "<queueSize>8192</queueSize><neverBlock>true</neverBlock><appender-ref ref=\"FILE\"/></appender>"
+        + "<appender name=\"ASYNC_BLOCKING\" class=\"ch.qos.logback.classic.AsyncAppender\">"
+        + "<queueSize>8192</queueSize><discardingThreshold>0</discardingThreshold><appender-ref ref=\"FILE\"/></appender>"
+        + "<logger name=\"bench.async\" level=\"DEBUG\" additivity=\"false\"><appender-ref ref=\"ASYNC\"/></logger>"
+        + "<logger name=\"bench.blocking\" level=\"DEBUG\" additivity=\"false\"><appender-ref ref=\"ASYNC_BLOCKING\"/></logger>"
+        + "<logger name=\"bench.sampled\" level=\"DEBUG\" additivity=\"false\"><appender-ref ref=\"ASYNC\"/></logger>"
+        + "<root level=\"INFO\"><appender-ref ref=\"ASYNC\"/></root>"
+        + "</configuration>";
+
+    private static final String PLAIN_MESSAGE = "[InternalVerify] Verifying cardId: 48213, accountId: 90211, userId: 5512";
+    private static final String SENSITIVE_MESSAGE =
+        "Duplicate key (card_number)=(4111111111111111) for request {\"cardPin\":\"1234\",\"accountId\":90211}";
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private Path stdoutFile;
+    private Path logFile;
+    private PrintStream stdout;
+    private LoggerContext context;
+    private Logger asyncLogger;
+    private Logger blockingLogger;
+    private Logger sampledLogger;
+    private Logger disabledLogger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stdoutFile = Files.createTempFile("bench-stdout", ".log");
+        logFile = Files.createTempFile("bench-logback", ".log");
+        stdout = new PrintStream(new FileOutputStream(stdoutFile.toFile()), true);
+
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        context.putObject(Environment.class.getName(), new StandardEnvironment());
+        context.putProperty("LOG_FILE", logFile.toString());
+        JoranConfigurator configurator = new JoranConfigurator();
+        configurator.setContext(context);
+        configurator.doConfigure(new ByteArrayInputStream(CONFIG.getBytes(StandardCharsets.UTF_8)));
+
+        asyncLogger = context.getLogger("bench.async");
+        blockingLogger = context.getLogger("bench.blocking");
+        sampledLogger = context.getLogger("bench.sampled");
+        disabledLogger = context.getLogger("bench.disabled");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.stop();
+        stdout.close();
+        Files.deleteIfExists(stdoutFile);
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public void stdoutPrintln() {
+        int id = sequence.incrementAndGet();
+        stdout.println("[InternalVerify] Verifying cardId: " + id + ", accountId: " + (id + 1) + ", userId: " + (id + 2));
+    }
+
+    @Benchmark
+    public void asyncDebug() {
+        int id = sequence.incrementAndGet();
+        asyncLogger.debug("[InternalVerify] Verifying cardId: {}, accountId: {}, userId: {}", id, id + 1, id + 2);
+    }
+
+    @Benchmark
+    public void asyncDebugBlocking() {
+        int id = sequence.incrementAndGet();
+        blockingLogger.debug("[InternalVerify] Verifying cardId: {}, accountId: {}, userId: {}", id, id + 1, id + 2);
+    }
+
+    @Benchmark
+    public void sampledDebug() {
+        int id = sequence.incrementAndGet();
+        sampledLogger.debug("[InternalVerify] Verifying cardId: {}, accountId: {}, userId: {}", id, id + 1, id + 2);
+    }
+
+    @Benchmark
+    public void disabledDebug() {
+        int id = sequence.incrementAndGet();
+        disabledLogger.debug("[InternalVerify] Verifying cardId: {}, accountId: {}, userId: {}", id, id + 1, id + 2);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String redactPlainMessage() {
+        return LogRedactor.redact(PLAIN_MESSAGE);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String redactSensitiveMessage() {
+        return LogRedactor.redact(SENSITIVE_MESSAGE);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.models.CardModel;
+import com.example.Card_Service_V2.models.CardSensitiveData;
+import com.example.Card_Service_V2.services.dtos.CardListDTO;
+import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory card service helpers: masking, listing DTO assembly and the fallback token decode
+ * (card number allocation has its own PanAllocatorBenchmark). None of these touch the database, so no application context is started.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CardFormattingBenchmark {
+
+    private CardService cardService;
+    private FallbackAuthService fallbackAuthService;
+    private CardModel card;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cardService = new CardService();
+        fallbackAuthService = new FallbackAuthService();
+
+        CardSensitiveData sensitiveData = new CardSensitiveData();
+        sensitiveData.setCardNumber("4111111111111111");
+        sensitiveData.setCardExpiry("12/29");
+        card = new CardModel();
+        card.setId(1);
+        card.setUserid(7);
+        card.setAccountId(7);
+        card.setType("VIRTUAL");
+        card.setCardstatus("ACTIVE");
+        card.setSensitiveData(sensitiveData);
+
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(("{\"sub\":\"alice\",\"role\":\"USER\",\"id\":7,\"iat\":" + (exp - 3600)
+            + ",\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8));
+        token = header + "." + payload + "." + encoder.encodeToString(new byte[256]);
+    }
+
+    @Benchmark
+    public String maskCardNumber() {
+        return cardService.maskCardNumber(card.getSensitiveData().getCardNumber());
+    }
+
+    @Benchmark
+    public CardListDTO createCardListDTOMasked() {
+        return cardService.createCardListDTO(card, false, 8);
+    }
+
+    @Benchmark
+    public CardListDTO createCardListDTOOwner() {
+        return cardService.createCardListDTO(card, true, 7);
+    }
+
+    @Benchmark
+    public TokenValidationResponse fallbackDecode() {
+        return fallbackAuthService.decodeAuthServiceToken(token);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.models.CardModel;
+import com.example.Card_Service_V2.services.dtos.InternalCardVerificationRequestDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database-backed card service paths against {@link SeededCardDatabase}.
+ * Each invocation picks the next seeded card, so lookups walk the whole table rather than one cached row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CardServiceBenchmark {
+
+    private int next;
+
+    private int nextCard(SeededCardDatabase db) {
+        int i = next;
+        next = i + 1 == db.cardCount ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public boolean processInternalCardVerification(SeededCardDatabase db) {
+        int i = nextCard(db);
+        return db.cardService.processInternalCardVerification(
+            new InternalCardVerificationRequestDTO(db.cardNumber(i), SeededCardDatabase.CARD_PIN, db.accountId(i)));
+    }
+
+    /**
+     * Lookup by fingerprint index; its cost should not grow with the table. Recorded with
+     * {@code -f 1 -wi 25 -w 3 -i 5 -r 3} on one CPU (µs/op, 99.9% CI):
+     * <pre>
+     *       10k   81.7 ± 45.0
+     *      100k   66.8 ± 24.8
+     *        1M   92.3 ±  9.6
+     *       10M   90.7 ± 21.6
+     * </pre>
+     * From 1M cards the first warmup iterations still fault index pages in from disk (300+ µs/op), hence the
+     * longer warmup; with the class default the 1M and 10M scores include that and look like growth.
+     */
+    @Benchmark
+    @Warmup(iterations = 25, time = 3)
+    @Measurement(iterations = 5, time = 3)
+    public Optional<CardModel> findCardByNumber(SeededCardDatabase db) {
+        return db.cardService.findCardByNumber(db.cardNumber(nextCard(db)));
+    }
+
+    /** Daily limit check that passes and reserves the amount. */
+    @Benchmark
+    public boolean dailyLimitWithinLimit(SeededCardDatabase db) {
+        return db.dailySpendService.tryReserve(db.cardId(nextCard(db)), 1.0, Double.MAX_VALUE);
+    }
+
+    /** Daily limit check that is rejected, which also takes the insert-and-retry branch. */
+    @Benchmark
+    public boolean dailyLimitExceeded(SeededCardDatabase db) {
+        return db.dailySpendService.tryReserve(db.cardId(nextCard(db)), 1.0, 0.0);
+    }
+}
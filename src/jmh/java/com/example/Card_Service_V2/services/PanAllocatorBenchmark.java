@@ -0,0 +1,88 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card number allocations per second across 32 threads, fingerprint included:
+ * <ul>
+ *   <li>pooled: {@link PanAllocator} as configured, with its background refill; at this rate the pool runs dry
+ *       and most numbers come from the inline path, so this is the allocator's worst case;</li>
+ *   <li>inline: pre-generation off, every number generated on the calling thread;</li>
+ *   <li>legacy: the former CardService.generateCardNumber, digit by digit from one shared SecureRandom.</li>
+ * </ul>
+ * The duplicate check against the database is stubbed out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class PanAllocatorBenchmark {
+
+    private static final Map<String, List<String>> BINS = Map.of(
+        "VISA", List.of("441660", "453201"), "MASTERCARD", List.of("510510", "542418"), "OTHER", List.of("606060"));
+
+    private CardFingerprintUtil fingerprintUtil;
+    private PanAllocator pooled;
+    private PanAllocator inline;
+    private final SecureRandom sharedRandom = new SecureRandom();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fingerprintUtil = new CardFingerprintUtil("benchmarkSecret");
+        pooled = new PanAllocator(fingerprintUtil, fingerprints -> List.of(), BINS, 1024);
+        pooled.warmUp();
+        inline = new PanAllocator(fingerprintUtil, fingerprints -> List.of(), BINS, 0);
+        String sample = pooled.allocate("VISA").getNumber();
+        if (sample.length() != PanAllocator.PAN_LENGTH || !PanAllocator.isLuhnValid(sample)) {
+            throw new IllegalStateException("Allocator produced an invalid card number: " + sample);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pooled.shutdown();
+        inline.shutdown();
+    }
+
+    @Benchmark
+    public PanAllocator.Pan pooled() {
+        return pooled.allocate("VISA");
+    }
+
+    @Benchmark
+    public PanAllocator.Pan inline() {
+        return inline.allocate("VISA");
+    }
+
+    @Benchmark
+    public String legacy() {
+        // Fingerprinted too, as card creation did right after generating the number
+        StringBuilder cardNumber = new StringBuilder();
+        cardNumber.append("4");
+        for (int i = 0; i < 15; i++) {
+            cardNumber.append(sharedRandom.nextInt(10));
+        }
+        return fingerprintUtil.fingerprint(cardNumber.toString());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.CardServiceApplication;
+import com.example.Card_Service_V2.services.dtos.InternalCardVerificationRequestDTO;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.postgresql.PGConnection;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Boots the application (on a random port) against a throwaway embedded PostgreSQL and seeds {@code cardCount} active cards.
+ * The count is a JMH parameter; by default every benchmark runs at 10k, 100k, 1M and 10M cards so lookups can be
+ * compared across table sizes. Pick sizes per run with {@code -p cardCount=10000,100000}. Seeding 10M cards takes
+ * several minutes and about 5 GB of disk.
+ * Every seeded card has PIN {@link #CARD_PIN} and the Silver plan. Card numbers, ids and account ids are derived
+ * from the card's index, so nothing per card is kept in memory.
+ */
+@State(Scope.Benchmark)
+public class SeededCardDatabase {
+
+    static final String CARD_PIN = "1234";
+
+    private static final int SEED_BATCH_SIZE = 100_000;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int cardCount;
+
+    EmbeddedPostgres postgres;
+    ConfigurableApplicationContext context;
+    CardService cardService;
+    DailySpendService dailySpendService;
+
+    private int firstCardId;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        context = new SpringApplicationBuilder(CardServiceApplication.class)
+            .run("--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                // The status gauge refresh counts every card; at 10M cards that scan would land inside measurements
+                "--card.metrics.status-refresh-ms=3600000",
+                "--logging.level.root=WARN");
+        cardService = context.getBean(CardService.class);
+        dailySpendService = context.getBean(DailySpendService.class);
+        seed(context.getBean(JdbcTemplate.class), context.getBean(CardFingerprintUtil.class));
+        if (!cardService.processInternalCardVerification(
+                new InternalCardVerificationRequestDTO(cardNumber(cardCount - 1), CARD_PIN, accountId(cardCount - 1)))) {
+            throw new IllegalStateException("Seeded card does not pass verification; the benchmarks would measure the failure path");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    String cardNumber(int i) {
+        return "4" + (100_000_000_000_000L + i);
+    }
+
+    int cardId(int i) {
+        return firstCardId + i;
+    }
+
+    int accountId(int i) {
+        return 1 + i / 2;
+    }
+
+    /**
+     * Streams the cards in with COPY; batched INSERTs would take the better part of an hour at 10M cards.
+     * Ids are assigned here and the sequences moved past them afterwards.
+     */
+    private void seed(JdbcTemplate jdbc, CardFingerprintUtil fingerprintUtil) {
+        Integer planId = jdbc.queryForObject("SELECT id FROM card_plan WHERE name = 'Silver'", Integer.class);
+        int firstSensitiveId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM card_sensitive_data", Integer.class);
+        firstCardId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM card_model", Integer.class);
+        String createdAt = Timestamp.valueOf(LocalDateTime.now().minusDays(30)).toString();
+
+        for (int from = 0; from < cardCount; from += SEED_BATCH_SIZE) {
+            int size = Math.min(SEED_BATCH_SIZE, cardCount - from);
+            StringBuilder sensitiveRows = new StringBuilder(size * 128);
+            StringBuilder cardRows = new StringBuilder(size * 96);
+            for (int i = from; i < from + size; i++) {
+                String cardNumber = cardNumber(i);
+                int sensitiveId = firstSensitiveId + i;
+                sensitiveRows.append(sensitiveId).append('\t').append(cardNumber).append('\t')
+                    .append(fingerprintUtil.fingerprint(cardNumber)).append("\t123\t").append(CARD_PIN).append("\t12/29\n");
+                cardRows.append(cardId(i)).append('\t').append(accountId(i)).append('\t').append(accountId(i)).append('\t')
+                    .append(i % 2 == 0 ? "VISA\tVIRTUAL" : "MASTERCARD\tPHYSICAL").append('\t').append(createdAt)
+                    .append("\tACTIVE\tPKR\t").append(cardNumber, 12, 16).append("\t12/29\t").append(sensitiveId)
+                    .append('\t').append(planId).append('\n');
+            }
+            copy(jdbc, "COPY card_sensitive_data (id, card_number, card_number_fingerprint, card_cvv, card_pin, card_expiry) " +
+                "FROM STDIN", sensitiveRows);
+            copy(jdbc, "COPY card_model (id, userid, accountid, network, type, created_at, cardstatus, currency, " +
+                "card_last4, card_expiry, sensitive_data_id, plan_id) FROM STDIN", cardRows);
+        }
+        jdbc.queryForObject("SELECT setval('card_sensitive_data_seq', (SELECT MAX(id) FROM card_sensitive_data))", Long.class);
+        jdbc.queryForObject("SELECT setval('card_model_new_seq', (SELECT MAX(id) FROM card_model))", Long.class);
+        jdbc.execute("ANALYZE card_model");
+        jdbc.execute("ANALYZE card_sensitive_data");
+    }
+
+    private static void copy(JdbcTemplate jdbc, String sql, CharSequence rows) {
+        jdbc.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(rows.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to seed cards", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.Card_Service_V2.utils;
+
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link JwtClaimsDecoder}, which tokenizes and validates the whole payload in one pass, with the
+ * split/contains/indexOf parsing FallbackAuthService used before and with a Jackson tree read under the same
+ * strictness (duplicate keys and trailing data rejected).
+ * "minimal" is a token carrying only the four claims we read; "typical" adds the claims an auth server
+ * usually issues (issuer, audience, scopes, session data), giving a payload of roughly 600 bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtClaimsDecoderBenchmark {
+
+    @Param({"minimal", "typical"})
+    public String payloadShape;
+
+    private static final ObjectMapper JACKSON = JsonMapper.builder()
+        .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+        .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+        .build();
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        String payload = "minimal".equals(payloadShape)
+            ? "{\"sub\":\"alice\",\"role\":\"USER\",\"id\":42,\"exp\":" + exp + "}"
+            : "{\"iss\":\"https://auth.example.com\",\"aud\":[\"card-service\",\"account-service\"],"
+                + "\"sub\":\"alice@example.com\",\"role\":\"USER\",\"id\":42,\"iat\":" + (exp - 3600) + ","
+                + "\"nbf\":" + (exp - 3600) + ",\"exp\":" + exp + ",\"jti\":\"6f1c1f0e-8a51-4d3a-9a57-0c2f8d1f4b3e\","
+                + "\"scope\":\"cards:read cards:write accounts:read transactions:read profile email\","
+                + "\"session\":{\"id\":\"b7d4c2e1a9f84c0e\",\"device\":\"android-14\",\"ip\":\"203.0.113.24\"},"
+                + "\"permissions\":[\"CARD_CREATE\",\"CARD_LIST\",\"CARD_UPDATE\",\"CARD_FREEZE\",\"ACCOUNT_VIEW\"],"
+                + "\"locale\":\"en-PK\",\"tenant\":\"retail\"}";
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"2024-01\"}".getBytes(StandardCharsets.UTF_8));
+        String body = encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        // RS256 signatures are 256 bytes, 342 base64url characters
+        String signature = encoder.encodeToString(new byte[256]);
+        token = header + "." + body + "." + signature;
+    }
+
+    @Benchmark
+    public JwtClaimsDecoder.Claims claimsDecoder() {
+        return JwtClaimsDecoder.decode(token);
+    }
+
+    @Benchmark
+    public JsonNode jacksonStrictTree() throws IOException {
+        String payload = token.substring(token.indexOf('.') + 1, token.lastIndexOf('.'));
+        return JACKSON.readTree(Base64.getUrlDecoder().decode(payload));
+    }
+
+    @Benchmark
+    public Object[] legacyStringScan() {
+        return LegacyPayloadParser.decode(token);
+    }
+
+    /**
+     * The previous FallbackAuthService parsing, minus its System.out tracing.
+     */
+    static final class LegacyPayloadParser {
+
+        static Object[] decode(String token) {
+            String[] tokenParts = token.split("\\.");
+            if (tokenParts.length != 3) {
+                return null;
+            }
+            String payload = new String(Base64.getUrlDecoder().decode(tokenParts[1]));
+            if (payload.contains("\"role\":\"ADMIN\"") || payload.contains("\"role\":\"USER\"")) {
+                String role = extractFieldFromPayload(payload, "role");
+                String idStr = extractFieldFromPayload(payload, "id");
+                String sub = extractFieldFromPayload(payload, "sub");
+                String expStr = extractFieldFromPayload(payload, "exp");
+                Long exp = expStr != null ? Long.parseLong(expStr) : null;
+                Integer userId = idStr != null ? Integer.parseInt(idStr) : null;
+                return new Object[] { role, userId, sub, exp };
+            }
+            return null;
+        }
+
+        private static String extractFieldFromPayload(String payload, String fieldName) {
+            String pattern = "\"" + fieldName + "\":";
+            int startIndex = payload.indexOf(pattern);
+            if (startIndex == -1) return null;
+            startIndex += pattern.length();
+            while (startIndex < payload.length()
+                    && (payload.charAt(startIndex) == ' ' || payload.charAt(startIndex) == '"')) {
+                startIndex++;
+            }
+            int endIndex = startIndex;
+            while (endIndex < payload.length()
+                    && payload.charAt(endIndex) != ','
+                    && payload.charAt(endIndex) != '}'
+                    && payload.charAt(endIndex) != '"') {
+                endIndex++;
+            }
+            return payload.substring(startIndex, endIndex);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.Card_Service_V2.loadtest;
+
+import com.example.Card_Service_V2.loadtest.Workload.Endpoint;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are started on a fixed schedule at the target rate
+ * whether or not earlier ones have finished. Latency is measured from each request's scheduled start,
+ * so a stalled server shows up as queueing delay instead of silently lowering the offered load.
+ */
+class LoadGenerator {
+
+    /** Per-endpoint results of the measured phase. */
+    static class EndpointResult {
+        final Endpoint endpoint;
+        final Histogram latencyMicros;
+        final long errors;
+        final long dropped;
+
+        EndpointResult(Endpoint endpoint, Histogram latencyMicros, long errors, long dropped) {
+            this.endpoint = endpoint;
+            this.latencyMicros = latencyMicros;
+            this.errors = errors;
+            this.dropped = dropped;
+        }
+    }
+
+    private static class EndpointStats {
+        final Recorder latencyMicros = new Recorder(3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        void reset() {
+            latencyMicros.getIntervalHistogram();
+            errors.reset();
+            dropped.reset();
+        }
+    }
+
+    private final HttpClient client;
+    private final Workload workload;
+    private final int targetRps;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    LoadGenerator(HttpClient client, Workload workload, int targetRps, int maxInFlight) {
+        this.client = client;
+        this.workload = workload;
+        this.targetRps = targetRps;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    /**
+     * Runs the warm-up, discards what it recorded, then runs the measured phase.
+     * Returns once every request started in the measured phase has completed.
+     */
+    Map<Endpoint, EndpointResult> run(long warmupSeconds, long durationSeconds, long seed) throws InterruptedException {
+        Random random = new Random(seed);
+        if (warmupSeconds > 0) {
+            drive(random, warmupSeconds);
+            awaitInFlight();
+            stats.values().forEach(EndpointStats::reset);
+        }
+        drive(random, durationSeconds);
+        awaitInFlight();
+
+        Map<Endpoint, EndpointResult> results = new EnumMap<>(Endpoint.class);
+        for (Map.Entry<Endpoint, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats s = entry.getValue();
+            results.put(entry.getKey(), new EndpointResult(entry.getKey(), s.latencyMicros.getIntervalHistogram(),
+                s.errors.sum(), s.dropped.sum()));
+        }
+        return results;
+    }
+
+    private void drive(Random random, long seconds) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / targetRps;
+        long total = seconds * targetRps;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = workload.pick(random);
+            HttpRequest request = workload.request(endpoint, random);
+            EndpointStats s = stats.get(endpoint);
+            if (!inFlight.tryAcquire()) {
+                // The client-side cap is reached; count it rather than queue without bound
+                s.dropped.increment();
+                continue;
+            }
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+                    s.latencyMicros.recordValue(Math.max(micros, 1));
+                    if (failure != null || response.statusCode() >= 400) {
+                        s.errors.increment();
+                    }
+                    inFlight.release();
+                });
+        }
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+}
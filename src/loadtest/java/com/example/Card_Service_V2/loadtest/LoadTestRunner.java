@@ -0,0 +1,355 @@
+package com.example.Card_Service_V2.loadtest;
+
+import com.example.Card_Service_V2.CardServiceApplication;
+import com.example.Card_Service_V2.loadtest.LoadGenerator.EndpointResult;
+import com.example.Card_Service_V2.loadtest.Workload.Endpoint;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the full HTTP stack (interceptor, controller, service, JPA) under a mixed workload.
+ * Starts an embedded PostgreSQL, stub auth and accounts services and the application on a random port,
+ * seeds cards, drives the workload at the target rate and reports latency percentiles per endpoint.
+ * The application runs in this JVM unless {@code fork} is set, in which case it gets a JVM of its own on the
+ * same classpath and does not share threads, heap or JIT with the load generator and stubs.
+ *
+ * <p>Options (all {@code --name=value}):
+ * <ul>
+ *   <li>{@code rps} target requests per second (default 100)</li>
+ *   <li>{@code duration}, {@code warmup} measured and warm-up seconds (default 60, 15)</li>
+ *   <li>{@code cards}, {@code users} seeded cards and distinct user tokens (default 10000, 1000)</li>
+ *   <li>{@code mix} endpoint weights (default list=40,verify=30,internal-verify=25,create=5)</li>
+ *   <li>{@code auth-latency-ms}, {@code accounts-latency-ms}, {@code stub-jitter-ms} stub response delay (default 20, 30, 10)</li>
+ *   <li>{@code max-in-flight} client-side concurrency cap (default 2000)</li>
+ *   <li>{@code fork} run the application in a separate JVM (default false)</li>
+ *   <li>{@code report} CSV output file (default target/loadtest-report.csv)</li>
+ * </ul>
+ * Any other option is passed to the application, e.g. {@code --auth.token-cache.ttl-seconds=5}.
+ */
+public class LoadTestRunner {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final String FINGERPRINT_SECRET = "loadtest-fingerprint-secret";
+    private static final long STARTUP_TIMEOUT_SECONDS = 120;
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("rps", "100");
+        DEFAULTS.put("duration", "60");
+        DEFAULTS.put("warmup", "15");
+        DEFAULTS.put("cards", "10000");
+        DEFAULTS.put("users", "1000");
+        DEFAULTS.put("mix", "list=40,verify=30,internal-verify=25,create=5");
+        DEFAULTS.put("auth-latency-ms", "20");
+        DEFAULTS.put("accounts-latency-ms", "30");
+        DEFAULTS.put("stub-jitter-ms", "10");
+        DEFAULTS.put("max-in-flight", "2000");
+        DEFAULTS.put("fork", "false");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("report", "target/loadtest-report.csv");
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> appArgs = new ArrayList<>();
+        Map<String, String> options = parseOptions(args, DEFAULTS, appArgs);
+        PrintStream console = System.out;
+        Map<Endpoint, EndpointResult> results = run(options, List.of(), appArgs, console);
+        report(console, results, Long.parseLong(options.get("duration")), Path.of(options.get("report")));
+    }
+
+    /**
+     * Splits {@code --name=value} arguments into runner options (names present in {@code defaults})
+     * and application arguments, which are added to {@code appArgs}.
+     */
+    static Map<String, String> parseOptions(String[] args, Map<String, String> defaults, List<String> appArgs) {
+        Map<String, String> options = new LinkedHashMap<>(defaults);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (defaults.containsKey(name)) {
+                options.put(name, arg.substring(arg.indexOf('=') + 1));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+        return options;
+    }
+
+    static Map<String, String> defaults() {
+        return new LinkedHashMap<>(DEFAULTS);
+    }
+
+    /**
+     * Starts the database, stubs and application, seeds them and drives one measured run.
+     * {@code jvmArgs} are options for the application's JVM, so they need {@code fork}.
+     */
+    static Map<Endpoint, EndpointResult> run(Map<String, String> options, List<String> jvmArgs, List<String> appArgs,
+                                             PrintStream console) throws Exception {
+        int rps = Integer.parseInt(options.get("rps"));
+        int cards = Integer.parseInt(options.get("cards"));
+        int users = Integer.parseInt(options.get("users"));
+        long duration = Long.parseLong(options.get("duration"));
+        long warmup = Long.parseLong(options.get("warmup"));
+        Map<Endpoint, Integer> mix = Workload.parseMix(options.get("mix"));
+        boolean fork = Boolean.parseBoolean(options.get("fork"));
+        if (!fork && !jvmArgs.isEmpty()) {
+            throw new IllegalArgumentException("JVM arguments " + jvmArgs + " need --fork=true");
+        }
+
+        console.println("Load test options: " + options + (appArgs.isEmpty() ? "" : " application: " + appArgs)
+            + (jvmArgs.isEmpty() ? "" : " JVM: " + jvmArgs));
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             StubDownstreams stubs = new StubDownstreams(Long.parseLong(options.get("auth-latency-ms")),
+                 Long.parseLong(options.get("accounts-latency-ms")), Long.parseLong(options.get("stub-jitter-ms")))) {
+            stubs.start();
+
+            String jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            List<String> springArgs = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--auth.service.base.url=" + stubs.authBaseUrl(),
+                "--auth.service.url=" + stubs.authBaseUrl(),
+                "--accounts.service.url=" + stubs.accountsUrl(),
+                "--card.fingerprint.secret=" + FINGERPRINT_SECRET));
+            springArgs.addAll(appArgs);
+
+            try (Application application = fork
+                    ? Application.fork(jvmArgs, springArgs, jdbcUrl)
+                    : Application.inProcess(springArgs)) {
+                String baseUrl = application.baseUrl;
+
+                String[] cardNumbers = new String[cards];
+                int[] userIds = new int[cards];
+                int[] accountIds = new int[cards];
+                seed(application.jdbc, application.fingerprintUtil, users, cardNumbers, userIds, accountIds);
+                console.println("Seeded " + cards + " cards for " + users + " users; driving " + rps + " req/s at " + baseUrl);
+
+                HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(clientExecutor)
+                    .build();
+                Workload workload = new Workload(baseUrl, cardNumbers, userIds, accountIds, users, mix);
+                LoadGenerator generator = new LoadGenerator(client, workload, rps, Integer.parseInt(options.get("max-in-flight")));
+                return generator.run(warmup, duration, Long.parseLong(options.get("seed")));
+            }
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * The application under test, with what the runner needs to seed it.
+     */
+    private static final class Application implements AutoCloseable {
+        final String baseUrl;
+        final JdbcTemplate jdbc;
+        final CardFingerprintUtil fingerprintUtil;
+        private final ConfigurableApplicationContext context;
+        private final Process process;
+
+        private Application(String baseUrl, JdbcTemplate jdbc, CardFingerprintUtil fingerprintUtil,
+                            ConfigurableApplicationContext context, Process process) {
+            this.baseUrl = baseUrl;
+            this.jdbc = jdbc;
+            this.fingerprintUtil = fingerprintUtil;
+            this.context = context;
+            this.process = process;
+        }
+
+        static Application inProcess(List<String> springArgs) {
+            List<String> args = new ArrayList<>(springArgs);
+            args.add("--server.port=0");
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(CardServiceApplication.class)
+                .run(args.toArray(new String[0]));
+            return new Application("http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port"),
+                context.getBean(JdbcTemplate.class), context.getBean(CardFingerprintUtil.class), context, null);
+        }
+
+        /**
+         * Starts the application with this JVM's java binary and classpath and waits until it answers HTTP.
+         */
+        static Application fork(List<String> jvmArgs, List<String> springArgs, String jdbcUrl) throws Exception {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            List<String> command = new ArrayList<>();
+            command.add(ProcessHandle.current().info().command().orElse("java"));
+            command.addAll(jvmArgs);
+            command.add("-classpath");
+            command.add(System.getProperty("java.class.path"));
+            command.add(CardServiceApplication.class.getName());
+            command.addAll(springArgs);
+            command.add("--server.port=" + port);
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            Application application = new Application("http://127.0.0.1:" + port,
+                new JdbcTemplate(new DriverManagerDataSource(jdbcUrl, "postgres", "postgres")),
+                new CardFingerprintUtil(FINGERPRINT_SECRET), null, process);
+            try {
+                application.awaitStartup();
+            } catch (Exception e) {
+                application.close();
+                throw e;
+            }
+            return application;
+        }
+
+        private void awaitStartup() throws Exception {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpRequest probe = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/cards"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STARTUP_TIMEOUT_SECONDS);
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited during startup with status " + process.exitValue());
+                }
+                try {
+                    // Any answer will do; the port only opens once the context is up
+                    client.send(probe, HttpResponse.BodyHandlers.discarding());
+                    return;
+                } catch (IOException e) {
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException("Application did not start within " + STARTUP_TIMEOUT_SECONDS + " s", e);
+                    }
+                    Thread.sleep(200);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            if (context != null) {
+                context.close();
+            }
+            if (process != null) {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts active cards with PIN {@link Workload#CARD_PIN} on the Silver plan, spread round-robin over the users.
+     */
+    private static void seed(JdbcTemplate jdbc, CardFingerprintUtil fingerprintUtil, int users,
+                             String[] cardNumbers, int[] userIds, int[] accountIds) {
+        int cards = cardNumbers.length;
+        Integer planId = jdbc.queryForObject("SELECT id FROM card_plan WHERE name = 'Silver'", Integer.class);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusDays(30));
+
+        for (int from = 0; from < cards; from += SEED_BATCH_SIZE) {
+            int size = Math.min(SEED_BATCH_SIZE, cards - from);
+            List<Integer> sensitiveIds = jdbc.queryForList(
+                "SELECT nextval('card_sensitive_data_seq') FROM generate_series(1, ?)",
+                Integer.class, size);
+            List<Integer> ids = jdbc.queryForList(
+                "SELECT nextval('card_model_new_seq') FROM generate_series(1, ?)", Integer.class, size);
+
+            List<Object[]> sensitiveRows = new ArrayList<>(size);
+            List<Object[]> cardRows = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                int i = from + j;
+                String cardNumber = String.format("4%015d", 200_000_000_000_000L + i);
+                cardNumbers[i] = cardNumber;
+                userIds[i] = 1 + i % users;
+                accountIds[i] = 1 + i;
+                sensitiveRows.add(new Object[] {
+                    sensitiveIds.get(j), cardNumber, fingerprintUtil.fingerprint(cardNumber), "123", Workload.CARD_PIN, "12/29" });
+                cardRows.add(new Object[] {
+                    ids.get(j), userIds[i], accountIds[i], "VISA", i % 2 == 0 ? "VIRTUAL" : "PHYSICAL",
+                    createdAt, "ACTIVE", "PKR", cardNumber.substring(12), "12/29", sensitiveIds.get(j), planId });
+            }
+            jdbc.batchUpdate("INSERT INTO card_sensitive_data (id, card_number, card_number_fingerprint, card_cvv, card_pin, card_expiry) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", sensitiveRows);
+            jdbc.batchUpdate("INSERT INTO card_model (id, userid, accountid, network, type, created_at, cardstatus, currency, " +
+                "card_last4, card_expiry, sensitive_data_id, plan_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", cardRows);
+        }
+        jdbc.execute("ANALYZE card_model");
+        jdbc.execute("ANALYZE card_sensitive_data");
+    }
+
+    static void report(PrintStream console, Map<Endpoint, EndpointResult> results, long durationSeconds,
+                               Path csvFile) throws IOException {
+        List<String> csv = new ArrayList<>();
+        csv.add("endpoint,requests,errors,dropped,throughput_rps,p50_ms,p99_ms,p999_ms,max_ms");
+        console.println();
+        console.println(String.format("%-16s %9s %7s %7s %9s %9s %9s %9s %9s",
+            "endpoint", "requests", "errors", "dropped", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        long totalDropped = 0;
+        for (EndpointResult result : results.values()) {
+            total.add(result.latencyMicros);
+            totalErrors += result.errors;
+            totalDropped += result.dropped;
+            if (result.latencyMicros.getTotalCount() > 0 || result.dropped > 0) {
+                row(console, csv, result.endpoint.label, result.latencyMicros, result.errors, result.dropped, durationSeconds);
+            }
+        }
+        row(console, csv, "total", total, totalErrors, totalDropped, durationSeconds);
+
+        if (csvFile.getParent() != null) {
+            Files.createDirectories(csvFile.getParent());
+        }
+        Files.write(csvFile, csv);
+        console.println();
+        console.println("Report written to " + csvFile.toAbsolutePath());
+    }
+
+    private static void row(PrintStream console, List<String> csv, String label, Histogram latency,
+                            long errors, long dropped, long durationSeconds) {
+        long count = latency.getTotalCount();
+        double throughput = (double) count / durationSeconds;
+        double p50 = millis(latency, 50.0);
+        double p99 = millis(latency, 99.0);
+        double p999 = millis(latency, 99.9);
+        double max = latency.getMaxValue() / 1000.0;
+        console.println(String.format("%-16s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f",
+            label, count, errors, dropped, throughput, p50, p99, p999, max));
+        csv.add(String.format(Locale.ROOT, "%s,%d,%d,%d,%.2f,%.3f,%.3f,%.3f,%.3f", label, count, errors, dropped, throughput, p50, p99, p999, max));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.Card_Service_V2.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-ins for the auth and accounts services, each with a configurable response delay.
+ * Tokens are "admin" for the admin (user 1) and "user-N" for user N; anything else is rejected.
+ * Every accounts lookup returns a fresh account id; the service caches lookups per token (accounts.cache.ttl-seconds),
+ * so repeated creations by one user within that time share an account.
+ */
+class StubDownstreams implements AutoCloseable {
+
+    static final String ADMIN_TOKEN = "admin";
+    static final String USER_TOKEN_PREFIX = "user-";
+
+    // Accounts handed out by the stub; seeded cards use ids below this
+    static final int FIRST_STUB_ACCOUNT_ID = 10_000_000;
+
+    private final long authLatencyMs;
+    private final long accountsLatencyMs;
+    private final long jitterMs;
+    private final AtomicInteger nextAccountId = new AtomicInteger(FIRST_STUB_ACCOUNT_ID);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private HttpServer authServer;
+    private HttpServer accountsServer;
+
+    StubDownstreams(long authLatencyMs, long accountsLatencyMs, long jitterMs) {
+        this.authLatencyMs = authLatencyMs;
+        this.accountsLatencyMs = accountsLatencyMs;
+        this.jitterMs = jitterMs;
+    }
+
+    void start() throws IOException {
+        authServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        authServer.createContext("/api/v1/auth/validate-simple", this::validate);
+        authServer.setExecutor(executor);
+        authServer.start();
+
+        accountsServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        accountsServer.createContext("/api/v1/accounts/by-token", this::accountByToken);
+        accountsServer.setExecutor(executor);
+        accountsServer.start();
+    }
+
+    String authBaseUrl() {
+        return "http://127.0.0.1:" + authServer.getAddress().getPort() + "/api/v1/auth";
+    }
+
+    String accountsUrl() {
+        return "http://127.0.0.1:" + accountsServer.getAddress().getPort();
+    }
+
+    static String userToken(int userId) {
+        return USER_TOKEN_PREFIX + userId;
+    }
+
+    private void validate(HttpExchange exchange) throws IOException {
+        String body = readBody(exchange);
+        delay(authLatencyMs);
+        String token = extractToken(body);
+        if (ADMIN_TOKEN.equals(token)) {
+            respond(exchange, 200, "{\"valid\":true,\"role\":\"ADMIN\",\"userId\":1,\"username\":\"admin\",\"hasPermission\":true}");
+            return;
+        }
+        Integer userId = parseUserId(token);
+        if (userId != null) {
+            respond(exchange, 200, "{\"valid\":true,\"role\":\"USER\",\"userId\":" + userId
+                + ",\"username\":\"user" + userId + "\",\"hasPermission\":true}");
+            return;
+        }
+        respond(exchange, 200, "{\"valid\":false,\"message\":\"Invalid token\",\"hasPermission\":false}");
+    }
+
+    private void accountByToken(HttpExchange exchange) throws IOException {
+        readBody(exchange);
+        delay(accountsLatencyMs);
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        String token = header != null && header.startsWith("Bearer ") ? header.substring(7) : null;
+        Integer userId = ADMIN_TOKEN.equals(token) ? Integer.valueOf(1) : parseUserId(token);
+        if (userId == null) {
+            respond(exchange, 401, "{\"error\":\"Invalid token\"}");
+            return;
+        }
+        respond(exchange, 200, "{\"accountId\":" + nextAccountId.getAndIncrement() + ",\"userId\":" + userId
+            + ",\"status\":\"ACTIVE\",\"currency\":\"PKR\"}");
+    }
+
+    private void delay(long baseMs) {
+        long ms = baseMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String extractToken(String json) {
+        int key = json.indexOf("\"token\"");
+        if (key < 0) {
+            return null;
+        }
+        int start = json.indexOf('"', json.indexOf(':', key) + 1);
+        int end = start < 0 ? -1 : json.indexOf('"', start + 1);
+        return end < 0 ? null : json.substring(start + 1, end);
+    }
+
+    private static Integer parseUserId(String token) {
+        if (token == null || !token.startsWith(USER_TOKEN_PREFIX)) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(token.substring(USER_TOKEN_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (authServer != null) {
+            authServer.stop(0);
+        }
+        if (accountsServer != null) {
+            accountsServer.stop(0);
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.Card_Service_V2.loadtest;
+
+import com.example.Card_Service_V2.loadtest.LoadGenerator.EndpointResult;
+import com.example.Card_Service_V2.loadtest.Workload.Endpoint;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the same workload against the platform-thread and the virtual-thread mode and compares them at saturation.
+ * The auth stub answers after 200 ms and the token cache is off, so every authenticated request holds its
+ * thread for at least 200 ms; with Tomcat's 200 platform threads that caps throughput near 1000 req/s,
+ * and the default offered load is above that. The auth connection pool is raised so it is not the limit instead.
+ *
+ * <p>The application runs in its own JVM ({@code fork} defaults to true here), so the load generator and stubs
+ * do not compete with it inside one process; a generator sharing the JVM starved the virtual-thread scheduler.
+ * They still share the machine's cores, so on a small machine keep the offered load well below what saturates the CPU.
+ *
+ * <p>Takes the same options as {@link LoadTestRunner}, with different defaults, plus {@code platform-threads}
+ * (Tomcat's maximum worker threads, default 200; on a machine with few cores lower it together with {@code rps}
+ * so the thread limit is reached before the CPU is) and {@code carrier-threads} (the application JVM's virtual-thread
+ * scheduler parallelism, default 0 for the JVM's default of one per core). Needs a Java 21+ runtime,
+ * e.g. {@code JAVA_HOME=/path/to/jdk-21 mvn -Ploadtest test-compile exec:exec -Dloadtest.main=...ThreadModeComparison}.
+ * Each mode's per-endpoint report goes to target/loadtest-platform.csv and target/loadtest-virtual.csv.
+ */
+public class ThreadModeComparison {
+
+    private static final Map<String, String> COMPARISON_DEFAULTS = Map.of(
+        "platform-threads", "200",
+        "carrier-threads", "0",
+        "rps", "1500",
+        "duration", "30",
+        "warmup", "10",
+        "users", "5000",
+        "mix", "list=50,verify=50",
+        "auth-latency-ms", "200",
+        "max-in-flight", "10000",
+        "fork", "true");
+
+    private static final List<String> COMPARISON_APP_ARGS = List.of(
+        "--auth.token-cache.ttl-seconds=0",
+        "--auth.token-cache.negative-ttl-seconds=0",
+        "--auth.service.max-connections=5000",
+        "--auth.service.read-timeout=10000",
+        "--auth.circuit-breaker.slow-call-threshold-ms=10000");
+
+    public static void main(String[] args) throws Exception {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need a Java 21+ runtime, this is " + Runtime.version());
+        }
+        Map<String, String> defaults = LoadTestRunner.defaults();
+        defaults.putAll(COMPARISON_DEFAULTS);
+        List<String> userAppArgs = new ArrayList<>();
+        Map<String, String> options = LoadTestRunner.parseOptions(args, defaults, userAppArgs);
+        long duration = Long.parseLong(options.get("duration"));
+        int carrierThreads = Integer.parseInt(options.get("carrier-threads"));
+        List<String> jvmArgs = carrierThreads > 0
+            ? List.of("-Djdk.virtualThreadScheduler.parallelism=" + carrierThreads)
+            : List.of();
+        PrintStream console = System.out;
+
+        Map<String, Histogram> totals = new LinkedHashMap<>();
+        Map<String, long[]> failures = new LinkedHashMap<>();
+        for (String mode : List.of("platform", "virtual")) {
+            List<String> appArgs = new ArrayList<>(COMPARISON_APP_ARGS);
+            appArgs.add("--spring.threads.virtual.enabled=" + "virtual".equals(mode));
+            appArgs.add("--server.tomcat.threads.max=" + options.get("platform-threads"));
+            appArgs.addAll(userAppArgs);
+            console.println();
+            console.println("=== " + mode + " threads ===");
+            Map<Endpoint, EndpointResult> results = LoadTestRunner.run(options, jvmArgs, appArgs, console);
+            LoadTestRunner.report(console, results, duration, Path.of("target", "loadtest-" + mode + ".csv"));
+
+            Histogram total = new Histogram(3);
+            long errors = 0;
+            long dropped = 0;
+            for (EndpointResult result : results.values()) {
+                total.add(result.latencyMicros);
+                errors += result.errors;
+                dropped += result.dropped;
+            }
+            totals.put(mode, total);
+            failures.put(mode, new long[] {errors, dropped});
+        }
+
+        console.println();
+        console.println("Offered load " + options.get("rps") + " req/s, auth latency " + options.get("auth-latency-ms") + " ms, "
+            + (carrierThreads > 0 ? carrierThreads : "default") + " carrier threads");
+        console.println(String.format("%-10s %12s %12s %9s %9s %9s %9s",
+            "mode", "ok req/s", "errors", "dropped", "p50 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, Histogram> entry : totals.entrySet()) {
+            Histogram total = entry.getValue();
+            long[] failed = failures.get(entry.getKey());
+            double okThroughput = (double) (total.getTotalCount() - failed[0]) / duration;
+            console.println(String.format("%-10s %12.1f %12d %9d %9.2f %9.2f %9.2f", entry.getKey(), okThroughput,
+                failed[0], failed[1], total.getValueAtPercentile(50.0) / 1000.0,
+                total.getValueAtPercentile(99.0) / 1000.0, total.getMaxValue() / 1000.0));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.Card_Service_V2.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds the requests of the mixed workload against the seeded cards.
+ * Endpoints are picked at random in proportion to their weight in the mix.
+ */
+class Workload {
+
+    enum Endpoint {
+        LIST("list"),
+        VERIFY("verify"),
+        INTERNAL_VERIFY("internal-verify"),
+        CREATE("create");
+
+        final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+
+        static Endpoint fromLabel(String label) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.label.equals(label)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint in mix: " + label);
+        }
+    }
+
+    static final String CARD_PIN = "1234";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final String[] cardNumbers;
+    private final int[] userIds;
+    private final int[] accountIds;
+    private final int users;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+
+    Workload(String baseUrl, String[] cardNumbers, int[] userIds, int[] accountIds, int users, Map<Endpoint, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.cardNumbers = cardNumbers;
+        this.userIds = userIds;
+        this.accountIds = accountIds;
+        this.users = users;
+        this.endpoints = mix.keySet().toArray(new Endpoint[0]);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Workload mix needs at least one positive weight");
+        }
+    }
+
+    /**
+     * Parses a mix such as "list=40,verify=30,internal-verify=25,create=5".
+     */
+    static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + part);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                mix.put(Endpoint.fromLabel(kv[0].trim()), weight);
+            }
+        }
+        return mix;
+    }
+
+    Endpoint pick(Random random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    HttpRequest request(Endpoint endpoint, Random random) {
+        int card = random.nextInt(cardNumbers.length);
+        switch (endpoint) {
+            case LIST:
+                return get("/api/v1/cards?limit=50", StubDownstreams.userToken(1 + random.nextInt(users)));
+            case VERIFY:
+                return get("/api/v1/cards/" + userIds[card] + "/verify/" + cardNumbers[card],
+                    StubDownstreams.userToken(userIds[card]));
+            case INTERNAL_VERIFY:
+                return post("/api/v1/cards/internal/verify", null,
+                    "{\"cardNumber\":\"" + cardNumbers[card] + "\",\"cardPin\":\"" + CARD_PIN
+                        + "\",\"accountId\":" + accountIds[card] + ",\"amount\":1.0}");
+            case CREATE:
+                return post("/api/v1/cards", StubDownstreams.userToken(1 + random.nextInt(users)),
+                    "{\"type\":\"Virtual\",\"network\":\"Visa\",\"cardPin\":\"" + CARD_PIN
+                        + "\",\"title\":\"Load Test\",\"currency\":\"PKR\"}");
+            default:
+                throw new IllegalStateException("Unhandled endpoint " + endpoint);
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Authorization", "Bearer " + token)
+            .GET()
+            .build();
+    }
+
+    private HttpRequest post(String path, String token, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+}
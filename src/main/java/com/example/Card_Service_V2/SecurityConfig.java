@@ -1,5 +1,7 @@
 package com.example.Card_Service_V2;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,9 +15,11 @@ import java.util.Arrays;
 @Configuration
 public class SecurityConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        System.out.println("🔧 SecurityConfig: Configuring security filter chain (interceptor-based auth)");
+        logger.info("Configuring security filter chain (interceptor-based auth)");
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
@@ -29,7 +33,7 @@ public class SecurityConfig {
                         .anyRequest().permitAll() // Let interceptors handle authentication
                 );
                 // Using EnhancedAuthInterceptor for authentication instead of filters
-        System.out.println("✅ SecurityConfig: Security configured - interceptor will handle auth for /api/v1/cards/**");
+        logger.info("Security configured - interceptor will handle auth for /api/v1/cards/**");
         return http.build();
     }
 
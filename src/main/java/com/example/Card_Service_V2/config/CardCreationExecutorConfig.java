@@ -0,0 +1,88 @@
+package com.example.Card_Service_V2.config;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor for the concurrent lookups of card creation (see CardCreationPipeline).
+ * A bounded pool on platform threads: when it is busy and its queue is full, a lookup runs on the request thread,
+ * so creation falls back to running its stages one after another instead of failing.
+ * With virtual threads on, each lookup gets its own virtual thread; JDBC work is still bounded by the pool
+ * (and the limiter in virtual-thread mode). With {@code card.creation.parallel.enabled=false} every stage
+ * runs on the request thread, in order.
+ */
+@Configuration
+public class CardCreationExecutorConfig {
+
+    @Bean
+    public TaskExecutor cardCreationExecutor(@Value("${card.creation.parallel.enabled:true}") boolean parallel,
+                                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                             @Value("${card.creation.executor.threads:32}") int threads,
+                                             @Value("${card.creation.executor.queue-capacity:64}") int queueCapacity) {
+        if (!parallel) {
+            return new SyncTaskExecutor();
+        }
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("card-create-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(new RequestContextTaskDecorator());
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("card-create-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new RequestContextTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs a task with the submitting thread's request attributes and MDC, so request-scoped bookkeeping
+     * (such as the count of auth calls per request) and log context carry over. The task's thread gets its
+     * own context back afterwards, which matters when the task runs on the request thread itself.
+     */
+    static class RequestContextTaskDecorator implements TaskDecorator {
+
+        @Override
+        public Runnable decorate(Runnable task) {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            return () -> {
+                RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+                Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+                RequestContextHolder.setRequestAttributes(attributes);
+                setMdc(mdc);
+                try {
+                    task.run();
+                } finally {
+                    RequestContextHolder.setRequestAttributes(previousAttributes);
+                    setMdc(previousMdc);
+                }
+            };
+        }
+
+        private static void setMdc(Map<String, String> context) {
+            if (context != null) {
+                MDC.setContextMap(context);
+            } else {
+                MDC.clear();
+            }
+        }
+    }
+}
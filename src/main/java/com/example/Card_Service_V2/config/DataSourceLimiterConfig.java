@@ -0,0 +1,55 @@
+package com.example.Card_Service_V2.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a {@link ConcurrencyLimitedDataSource} when
+ * {@code card.datasource.limiter.enabled} is set, which by default follows {@code spring.threads.virtual.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "card.datasource.limiter.enabled", havingValue = "true")
+public class DataSourceLimiterConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceLimiterPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    int maxConcurrent = environment.getProperty("card.datasource.limiter.max-concurrent", Integer.class, 10);
+                    long acquireTimeoutMs = environment.getProperty("card.datasource.limiter.acquire-timeout-ms", Long.class, 2000L);
+                    return new ConcurrencyLimitedDataSource((DataSource) bean, maxConcurrent, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder dataSourceLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof ConcurrencyLimitedDataSource)) {
+                return;
+            }
+            ConcurrencyLimitedDataSource limiter = (ConcurrencyLimitedDataSource) dataSource;
+            Gauge.builder("datasource.limiter.active", limiter, ConcurrencyLimitedDataSource::getActive)
+                .description("Connections currently handed out through the limiter")
+                .register(registry);
+            Gauge.builder("datasource.limiter.waiting", limiter, ConcurrencyLimitedDataSource::getWaiting)
+                .description("Callers waiting for a connection permit")
+                .register(registry);
+            FunctionCounter.builder("datasource.limiter.rejected", limiter, ConcurrencyLimitedDataSource::getRejected)
+                .description("Connection requests that timed out waiting for a permit")
+                .register(registry);
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.Card_Service_V2.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every call to one downstream service as a histogram,
+ * tagged with the downstream name and the outcome.
+ */
+public class DownstreamTimingInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String METRIC_NAME = "downstream.client.requests";
+
+    private final String downstream;
+    private final MeterRegistry meterRegistry;
+
+    public DownstreamTimingInterceptor(String downstream, MeterRegistry meterRegistry) {
+        this.downstream = downstream;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        long start = System.nanoTime();
+        String outcome = "IO_ERROR";
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            outcome = outcome(response.getStatusCode().value());
+            return response;
+        } finally {
+            Timer.builder(METRIC_NAME)
+                .description("Latency of calls to downstream services")
+                .tag("downstream", downstream)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        return "SUCCESS";
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Card_Service_V2.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@code @Timed} and caps tag cardinality, so a scan of random URLs cannot create unbounded series.
+ * Once a metric reaches its limit of distinct uri values, further values are dropped (and logged once).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterFilter serverUriCardinalityLimit(@Value("${card.metrics.max-uri-tags:100}") int maxUriTags) {
+        return MeterFilter.maximumAllowableTags("http.server.requests", "uri", maxUriTags, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter clientUriCardinalityLimit(@Value("${card.metrics.max-uri-tags:100}") int maxUriTags) {
+        return MeterFilter.maximumAllowableTags("http.client.requests", "uri", maxUriTags, MeterFilter.deny());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.Card_Service_V2.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import com.example.Card_Service_V2.utils.LogRedactor;
+import org.springframework.boot.logging.structured.StructuredLogFormatter;
+
+import java.util.Map;
+
+/**
+ * One JSON object per log event, with the message and stack trace passed through {@link LogRedactor}.
+ * Used by the console encoder in logback-spring.xml; formatting runs on the async appender's worker thread,
+ * so it is written by hand rather than through a general-purpose JSON writer to keep that thread ahead of the queue.
+ */
+public class RedactingJsonLogFormatter implements StructuredLogFormatter<ILoggingEvent> {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Override
+    public String format(ILoggingEvent event) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"@timestamp\":\"").append(event.getInstant()).append('"');
+        json.append(",\"level\":\"").append(event.getLevel()).append('"');
+        field(json, "thread", event.getThreadName());
+        field(json, "logger", event.getLoggerName());
+        field(json, "message", LogRedactor.redact(event.getFormattedMessage()));
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null && !mdc.isEmpty()) {
+            json.append(",\"mdc\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                string(json, entry.getKey());
+                json.append(':');
+                string(json, LogRedactor.redact(entry.getValue()));
+            }
+            json.append('}');
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            field(json, "error", LogRedactor.redact(ThrowableProxyUtil.asString(throwable)));
+        }
+        return json.append("}\n").toString();
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        json.append(",\"").append(name).append("\":");
+        string(json, value);
+    }
+
+    private static void string(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c == '\n') {
+                json.append("\\n");
+            } else if (c == '\r') {
+                json.append("\\r");
+            } else if (c == '\t') {
+                json.append("\\t");
+            } else if (c < 0x20) {
+                json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.Card_Service_V2.config;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.example.Card_Service_V2.utils.LogRedactor;
+
+/**
+ * {@code %redactedMsg}: the formatted message with card data and credentials masked.
+ */
+public class RedactingMessageConverter extends ClassicConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return LogRedactor.redact(event.getFormattedMessage());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.Card_Service_V2.config;
+
+import ch.qos.logback.classic.pattern.ExtendedThrowableProxyConverter;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import com.example.Card_Service_V2.utils.LogRedactor;
+
+/**
+ * {@code %redactedEx}: stack traces with card data and credentials masked,
+ * since exception messages (constraint violations, parse errors) can echo request values.
+ */
+public class RedactingThrowableConverter extends ExtendedThrowableProxyConverter {
+
+    @Override
+    protected String throwableProxyToString(IThrowableProxy throwableProxy) {
+        return LogRedactor.redact(super.throwableProxyToString(throwableProxy));
+    }
+}
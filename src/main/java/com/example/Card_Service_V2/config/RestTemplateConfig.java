@@ -1,14 +1,69 @@
 package com.example.Card_Service_V2.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * One pooled HTTP client per downstream service, so a slow service can only exhaust its own connections.
+ */
 @Configuration
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate authRestTemplate(MeterRegistry meterRegistry,
+                                         @Value("${auth.service.max-connections:50}") int maxConnections,
+                                         @Value("${auth.service.keep-alive-seconds:30}") long keepAliveSeconds,
+                                         @Value("${auth.service.connection-timeout:5000}") int connectTimeoutMs,
+                                         @Value("${auth.service.read-timeout:5000}") int readTimeoutMs) {
+        return pooledRestTemplate("auth", meterRegistry, maxConnections, keepAliveSeconds, connectTimeoutMs, readTimeoutMs);
+    }
+
+    @Bean
+    public RestTemplate accountsRestTemplate(MeterRegistry meterRegistry,
+                                             @Value("${accounts.service.max-connections:50}") int maxConnections,
+                                             @Value("${accounts.service.keep-alive-seconds:30}") long keepAliveSeconds,
+                                             @Value("${accounts.service.connection-timeout:5000}") int connectTimeoutMs,
+                                             @Value("${accounts.service.read-timeout:5000}") int readTimeoutMs) {
+        return pooledRestTemplate("accounts", meterRegistry, maxConnections, keepAliveSeconds, connectTimeoutMs, readTimeoutMs);
+    }
+
+    private RestTemplate pooledRestTemplate(String downstream, MeterRegistry meterRegistry, int maxConnections,
+                                            long keepAliveSeconds, int connectTimeoutMs, int readTimeoutMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnections)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy((response, context) -> TimeValue.ofSeconds(keepAliveSeconds))
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofSeconds(keepAliveSeconds))
+            .setDefaultRequestConfig(RequestConfig.custom()
+                // Waiting for a free pooled connection counts against the connect timeout
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .build();
+
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        restTemplate.getInterceptors().add(new DownstreamTimingInterceptor(downstream, meterRegistry));
+        return restTemplate;
     }
 }
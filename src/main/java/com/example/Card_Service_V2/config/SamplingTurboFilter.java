@@ -0,0 +1,65 @@
+package com.example.Card_Service_V2.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one in {@code sampleRate} DEBUG and TRACE events per logger under the configured prefixes,
+ * so enabling debug logging on a hot path does not flood the async queue. Each logger is sampled
+ * independently; INFO and above, and loggers where debug is off, are never affected.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<String> loggerPrefixes = new ArrayList<>();
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private int sampleRate = 1;
+
+    public void addLoggerPrefix(String loggerPrefix) {
+        loggerPrefixes.add(loggerPrefix.trim());
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void start() {
+        if (sampleRate < 1) {
+            addError("sampleRate must be at least 1, was " + sampleRate);
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isXxxEnabled() checks, and disabled events are dropped anyway; neither consumes a sample
+        if (!isStarted() || sampleRate == 1 || format == null || level.toInt() > Level.DEBUG_INT
+                || logger.getEffectiveLevel().toInt() > level.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        if (!matches(name)) {
+            return FilterReply.NEUTRAL;
+        }
+        long seen = counters.computeIfAbsent(name, key -> new AtomicLong()).getAndIncrement();
+        return seen % sampleRate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean matches(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
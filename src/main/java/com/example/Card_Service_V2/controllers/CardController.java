@@ -2,19 +2,33 @@ package com.example.Card_Service_V2.controllers;
 
 import com.example.Card_Service_V2.models.CardModel;
 import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.services.CardCreationPipeline;
 import com.example.Card_Service_V2.services.CardService;
+import com.example.Card_Service_V2.services.dtos.BulkCardIssuanceRequestDTO;
+import com.example.Card_Service_V2.services.dtos.BulkCardIssuanceResultDTO;
+import com.example.Card_Service_V2.services.dtos.CardFilterDTO;
 import com.example.Card_Service_V2.services.dtos.CardListDTO;
+import com.example.Card_Service_V2.services.dtos.CardPageDTO;
 import com.example.Card_Service_V2.services.dtos.CardVerificationResponseDTO;
 import com.example.Card_Service_V2.services.dtos.CreateCardDTO;
 import com.example.Card_Service_V2.services.dtos.CreateCardRequestDTO;
 import com.example.Card_Service_V2.services.dtos.UpdateCardRequestDTO;
 import com.example.Card_Service_V2.services.dtos.InternalCardVerificationRequestDTO;
+import com.example.Card_Service_V2.services.dtos.InternalCardVerificationResponseDTO;
 import com.example.Card_Service_V2.utils.AuthUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -22,9 +36,20 @@ import java.util.Map;
 @RequestMapping("/api/v1/cards")
 public class CardController {
 
+    private static final Logger logger = LoggerFactory.getLogger(CardController.class);
+
+    /** Set on an unpaged admin listing that stopped at the page size; pass it as after to continue. */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private CardService cardService;
 
+    @Autowired
+    private CardCreationPipeline cardCreationPipeline;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     public ResponseEntity<?> cards(
             @RequestParam(required = false) String status,
@@ -32,6 +57,8 @@ public class CardController {
             @RequestParam(required = false) Integer userId,
             @RequestParam(required = false) Integer accountId,//dto
             @RequestParam(required = false) String network,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer after,
             HttpServletRequest request) {
 
         if (!AuthUtils.isAdmin(request) && !AuthUtils.isUser(request)) {
@@ -41,12 +68,57 @@ public class CardController {
         boolean isAdmin = AuthUtils.isAdmin(request);
         Integer tokenUserId = AuthUtils.getUserIdAsInt(request);
 
+        if (limit != null || after != null) {
+            CardPageDTO page = cardService.processCardListingPage(
+                    status, type, userId, accountId, network, isAdmin, tokenUserId, after, limit);
+            return ResponseEntity.ok(page);
+        }
+
+        if (isAdmin) {
+            // Unpaged, admins get the first max-page-size cards; X-Next-Cursor is the after value for the rest
+            CardPageDTO page = cardService.processAdminCardListing(status, type, userId, accountId, network);
+            if (page.getNextCursor() != null) {
+                return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor())).body(page.getCards());
+            }
+            return ResponseEntity.ok(page.getCards());
+        }
+
         List<CardListDTO> cards = cardService.processCardListing(
-                status, type, userId, accountId, network, isAdmin, tokenUserId);
+                status, type, userId, accountId, network, false, tokenUserId);
 
         return ResponseEntity.ok(cards);
     }
 
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamCards(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) Integer accountId,
+            @RequestParam(required = false) String network,
+            HttpServletRequest request) {
+
+        if (!AuthUtils.isAdmin(request)) {
+            byte[] error = "{\"error\":\"Access denied. Only ADMIN can stream all cards\"}".getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(403).contentType(MediaType.APPLICATION_JSON).body(out -> out.write(error));
+        }
+
+        CardFilterDTO filters = new CardFilterDTO(status, type, userId, accountId, network);
+        StreamingResponseBody body = out -> {
+            byte[] newline = "\n".getBytes(StandardCharsets.UTF_8);
+            cardService.streamCardsForAdmin(filters, dto -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(dto));
+                    out.write(newline);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     @GetMapping("{userId}/verify/{cardNumber}")
     public ResponseEntity<?> verifyCard(@PathVariable int userId, @PathVariable String cardNumber,
             HttpServletRequest request) {
@@ -66,36 +138,26 @@ public class CardController {
 
    @PostMapping
 public ResponseEntity<?> createCard(@RequestBody CreateCardRequestDTO request, HttpServletRequest httpRequest) {
-    System.out.println("[CardController] Received createCard request: " + request);
+    logger.debug("[CardController] Received createCard request: {}", request);
     String token = httpRequest.getHeader("Authorization");
     if (token != null && token.startsWith("Bearer ")) {
         token = token.substring(7);
     }
     try {
-        System.out.println("[CardController] Fetching account info from token: " + token);
-        CardService.AccountInfo accountInfo = cardService.fetchAccountInfoFromToken(token, request.getCurrency());
-        System.out.println("[CardController] AccountInfo: userId=" + accountInfo.userId + ", accountId=" + accountInfo.id);
-        request.setUserId(accountInfo.userId);
-        request.setAccountId(accountInfo.id);
-        String accountCurrency = null;
-        if (accountInfo instanceof CardService.AccountInfoWithCurrency) {
-            accountCurrency = ((CardService.AccountInfoWithCurrency) accountInfo).currency;
-        }
-        if (request.getCurrency() == null && accountCurrency != null) {
-            request.setCurrency(accountCurrency);
-        }
-        System.out.println("[CardController] Calling processCardCreationWithCurrency with request: " + request);
-        CreateCardDTO createdCard = cardService.processCardCreationWithCurrency(request, token, accountCurrency);
-        System.out.println("[CardController] Card created successfully: " + createdCard);
+        CreateCardDTO createdCard = cardCreationPipeline.createCard(request, token);
+        logger.debug("[CardController] Card {} created for user {}", createdCard.getCardId(), request.getUserId());
         return ResponseEntity.ok(createdCard);
+    } catch (CardCreationPipeline.UnauthorizedException e) {
+        logger.debug("[CardController] Card creation unauthorized: {}", e.getMessage());
+        return ResponseEntity.status(401).body(Map.of("error", String.valueOf(e.getMessage())));
     } catch (CardService.ValidationException e) {
-        System.out.println("[CardController] ValidationException: " + e.getMessage());
+        logger.debug("[CardController] Card creation rejected: {}", e.getMessage());
         return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
     } catch (IllegalArgumentException e) {
-        System.out.println("[CardController] IllegalArgumentException: " + e.getMessage());
+        logger.debug("[CardController] Card creation rejected: {}", e.getMessage());
         return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
     } catch (Exception e) {
-        System.out.println("[CardController] Exception: " + e.getMessage());
+        logger.error("[CardController] Card creation failed: {}", e.getMessage());
         return ResponseEntity.status(500).body(Map.of("error", "Internal server error during card creation"));
     }
 }
@@ -152,13 +214,42 @@ public ResponseEntity<?> createCard(@RequestBody CreateCardRequestDTO request, H
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createCardsInBulk(@RequestBody BulkCardIssuanceRequestDTO request, HttpServletRequest httpRequest) {
+        if (!AuthUtils.isAdmin(httpRequest)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Access denied. Only ADMIN can issue cards in bulk"));
+        }
+        String token = httpRequest.getHeader("Authorization");
+        if (token != null && token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        try {
+            Map<Integer, CardService.AccountInfo> accounts = cardService.fetchAccountsForBulkIssuance(request.getCards(), token);
+            BulkCardIssuanceResultDTO result = cardService.processBulkCardCreation(
+                    request.getCards(), accounts, request.isAllowPartial());
+            return result.getCreated() == 0 && result.getFailed() > 0
+                ? ResponseEntity.badRequest().body(result)
+                : ResponseEntity.ok(result);
+        } catch (CardService.ValidationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("[CardController] Bulk card issuance failed: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Internal server error during bulk card issuance"));
+        }
+    }
+
     @PostMapping("/internal/verify")
     
     public ResponseEntity<?> internalVerifyCard(@RequestBody InternalCardVerificationRequestDTO request) {
-System.out.println("🔍 CardController.internalVerifyCard: Processing internal card verification for accountId " + request.getAccountId());
         boolean response = cardService.processInternalCardVerification(request);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/internal/verify/batch")
+    public ResponseEntity<?> internalVerifyCardBatch(@RequestBody List<InternalCardVerificationRequestDTO> requests) {
+        List<InternalCardVerificationResponseDTO> results = cardService.processInternalCardVerificationBatch(requests);
+        return ResponseEntity.ok(results);
+    }
     @PutMapping("/deliver/{cardId}")
     public ResponseEntity<?> deliverCard(@PathVariable int cardId, @RequestBody Map<String, String> body, HttpServletRequest request) {
         boolean isAdmin = AuthUtils.isAdmin(request);
@@ -2,6 +2,8 @@ package com.example.Card_Service_V2.controllers;
 
 import com.example.Card_Service_V2.models.CardPlan;
 import com.example.Card_Service_V2.services.CardPlanService;
+import com.example.Card_Service_V2.services.CardService;
+import com.example.Card_Service_V2.services.dtos.PlanAssignmentResultDTO;
 import com.example.Card_Service_V2.utils.AuthUtils;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,16 +55,45 @@ public class CardPlanController {
         if (!AuthUtils.isAdmin(request)) {
             return ResponseEntity.status(403).body(Map.of("error", "Access denied. Only ADMIN can unblock cards"));
         }
-        if (!body.containsKey("userId") || !body.containsKey("planId")) {
+        if (!(body.get("userId") instanceof Integer) || !(body.get("planId") instanceof Integer)) {
             return ResponseEntity.badRequest().body(Map.of("error", "userId and planId are required"));
         }
         Integer userId = (Integer) body.get("userId");
         Integer planId = (Integer) body.get("planId");
         try {
-            cardPlanService.assignPlanToUser(userId, planId);
-            return ResponseEntity.ok(Map.of("message", "Plan assigned to user successfully"));
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+            PlanAssignmentResultDTO result = cardPlanService.assignPlanToUser(userId, planId);
+            return ResponseEntity.ok(Map.of("message", "Plan assigned to user successfully",
+                "cardsUpdated", result.getCardsUpdated()));
+        } catch (CardService.ValidationException e) {
+            // The plan has no seat left or the holder already used it
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/assign/batch")
+    public ResponseEntity<?> assignPlanToAccounts(@RequestBody Map<String, Object> body, HttpServletRequest request) {
+        if (!AuthUtils.isAdmin(request)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Access denied. Only ADMIN can assign plans"));
+        }
+        if (!(body.get("accountIds") instanceof List) || !(body.get("planId") instanceof Integer)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "accountIds (list) and planId are required"));
+        }
+        List<Integer> accountIds = new ArrayList<>();
+        for (Object accountId : (List<?>) body.get("accountIds")) {
+            if (!(accountId instanceof Integer)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "accountIds must be integers"));
+            }
+            accountIds.add((Integer) accountId);
+        }
+        Integer planId = (Integer) body.get("planId");
+        try {
+            return ResponseEntity.ok(cardPlanService.assignPlanToAccounts(accountIds, planId));
+        } catch (CardService.ValidationException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 }
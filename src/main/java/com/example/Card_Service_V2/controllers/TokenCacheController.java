@@ -0,0 +1,43 @@
+package com.example.Card_Service_V2.controllers;
+
+import com.example.Card_Service_V2.services.AuthServiceClient;
+import com.example.Card_Service_V2.services.TokenValidationCache;
+import com.example.Card_Service_V2.utils.AuthUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/cards/admin/token-cache")
+public class TokenCacheController {
+
+    @Autowired
+    private TokenValidationCache tokenValidationCache;
+
+    @Autowired
+    private AuthServiceClient authServiceClient;
+
+    @GetMapping
+    public ResponseEntity<?> stats(HttpServletRequest request) {
+        if (!AuthUtils.isAdmin(request)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Access denied. Only ADMIN can view the token cache"));
+        }
+        return ResponseEntity.ok(tokenValidationCache.getStats());
+    }
+
+    @PostMapping("/invalidate")
+    public ResponseEntity<?> invalidate(@RequestBody Map<String, String> body, HttpServletRequest request) {
+        if (!AuthUtils.isAdmin(request)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Access denied. Only ADMIN can invalidate tokens"));
+        }
+        String token = body.get("token");
+        if (token == null || token.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "token is required"));
+        }
+        boolean removed = authServiceClient.invalidateToken(token.trim());
+        return ResponseEntity.ok(Map.of("message", removed ? "Token invalidated" : "Token was not cached"));
+    }
+}
@@ -2,8 +2,11 @@ package com.example.Card_Service_V2.interceptors;
 
 import com.example.Card_Service_V2.services.AuthServiceClient;
 import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import com.example.Card_Service_V2.utils.AuthUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
@@ -11,6 +14,10 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 @Component
 public class EnhancedAuthInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnhancedAuthInterceptor.class);
+
+    private static final String CARD_CREATION_PATH = "/api/v1/cards";
     
     @Autowired
     private AuthServiceClient authServiceClient;
@@ -32,11 +39,18 @@ public class EnhancedAuthInterceptor implements HandlerInterceptor {
             return false;
         }
         
+        // Card creation validates the token itself, alongside the field checks and before any lookup (CardCreationPipeline)
+        if ("POST".equals(request.getMethod()) && uri.equals(request.getContextPath() + CARD_CREATION_PATH)) {
+            return true;
+        }
+
         String token = authHeader.substring(7);
 
         TokenValidationResponse validationResponse = authServiceClient.validateTokenOnly(token);
+        AuthUtils.setPrincipal(request, validationResponse);
 
         if (!validationResponse.isValid()) {
+            logger.debug("Rejected {} {}: {}", request.getMethod(), uri, validationResponse.getMessage());
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.getWriter().write("{\"error\":\"" + validationResponse.getMessage() + "\"}");
             return false;
@@ -50,4 +64,13 @@ public class EnhancedAuthInterceptor implements HandlerInterceptor {
         
         return true;
     }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int calls = AuthUtils.getValidationCallCount(request);
+        if (calls > 1) {
+            logger.warn("{} {} made {} token validation calls, expected at most 1",
+                    request.getMethod(), request.getRequestURI(), calls);
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package com.example.Card_Service_V2.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Running total of authorised amounts per card and calendar day.
+ * Updated atomically so concurrent authorisations cannot overshoot the daily limit.
+ */
+@Entity
+@Table(name = "card_daily_spend", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_card_daily_spend_card_day", columnNames = {"card_id", "spend_date"})
+})
+public class CardDailySpend {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "card_id", nullable = false)
+    private Integer cardId;
+
+    @Column(name = "spend_date", nullable = false)
+    private LocalDate spendDate;
+
+    @Column(nullable = false)
+    private Double spent;
+
+    public CardDailySpend() {}
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public Integer getCardId() { return cardId; }
+    public void setCardId(Integer cardId) { this.cardId = cardId; }
+    public LocalDate getSpendDate() { return spendDate; }
+    public void setSpendDate(LocalDate spendDate) { this.spendDate = spendDate; }
+    public Double getSpent() { return spent; }
+    public void setSpent(Double spent) { this.spent = spent; }
+}
@@ -5,16 +5,24 @@ import java.time.LocalDateTime;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+// Fetch plan for listings, verification and single-card reads, which all need the sensitive row for number/expiry/PIN;
+// plans are not fetched, they come from CardPlanCatalog by id
+@NamedEntityGraph(name = CardModel.GRAPH_WITH_SENSITIVE_DATA, attributeNodes = @NamedAttributeNode("sensitiveData"))
 public class CardModel {
+    public static final String GRAPH_WITH_SENSITIVE_DATA = "CardModel.withSensitiveData";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_model_generator")
-    @SequenceGenerator(name = "card_model_generator", sequenceName = "card_model_new_seq", initialValue = 1, allocationSize = 1)
+    // Ids are taken 50 at a time (pooled optimizer); schema.sql sets the sequence increment to match
+    @SequenceGenerator(name = "card_model_generator", sequenceName = "card_model_new_seq", initialValue = 1, allocationSize = 50)
     int id;
 
     int userid;
@@ -28,12 +36,23 @@ public class CardModel {
     String currency;
     String title;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    // Listing read model, copied from the sensitive row so listings never have to read it
+    @Column(name = "card_last4", length = 4)
+    String cardLast4;
+
+    @Column(name = "card_expiry")
+    String cardExpiry;
+
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "sensitive_data_id", referencedColumnName = "id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private CardSensitiveData sensitiveData;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "plan_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private CardPlan plan;
 
 
@@ -13,6 +13,10 @@ public class CardPlan {
     private String description;
     private double dailyLimit;
 
+    // Most distinct users that may hold the plan, each with at most one card on it; null means no limit
+    @Column(name = "max_holders")
+    private Integer maxHolders;
+
     public CardPlan() {}
     public CardPlan(String name, double limitAmount, boolean internationalEnabled, String description, double dailyLimit) {
         this.name = name;
@@ -31,4 +35,6 @@ public class CardPlan {
     public void setDescription(String description) { this.description = description; }
     public double getDailyLimit() { return dailyLimit; }
     public void setDailyLimit(double dailyLimit) { this.dailyLimit = dailyLimit; }
+    public Integer getMaxHolders() { return maxHolders; }
+    public void setMaxHolders(Integer maxHolders) { this.maxHolders = maxHolders; }
 }
@@ -8,15 +8,24 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "card_sensitive_data")
+@Table(name = "card_sensitive_data", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_card_sensitive_data_fingerprint", columnNames = "card_number_fingerprint")
+})
 public class CardSensitiveData {
+    // A sequence rather than IDENTITY so inserts can be batched, taken 50 ids at a time like card_model_new_seq;
+    // schema.sql moves it past the ids the former identity column handed out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_sensitive_data_generator")
+    @SequenceGenerator(name = "card_sensitive_data_generator", sequenceName = "card_sensitive_data_seq", allocationSize = 50)
     private int id;
 
     @Column(nullable = false)
     private String cardNumber;
 
+    // Keyed HMAC of the card number, used for indexed lookups without scanning PANs
+    @Column(name = "card_number_fingerprint", length = 64)
+    private String cardNumberFingerprint;
+
     @Column(nullable = false)
     private String cardCvv;
 
@@ -33,6 +42,8 @@ public class CardSensitiveData {
     public void setId(int id) { this.id = id; }
     public String getCardNumber() { return cardNumber; }
     public void setCardNumber(String cardNumber) { this.cardNumber = cardNumber; }
+    public String getCardNumberFingerprint() { return cardNumberFingerprint; }
+    public void setCardNumberFingerprint(String cardNumberFingerprint) { this.cardNumberFingerprint = cardNumberFingerprint; }
     public String getCardCvv() { return cardCvv; }
     public void setCardCvv(String cardCvv) { this.cardCvv = cardCvv; }
     public String getCardPin() { return cardPin; }
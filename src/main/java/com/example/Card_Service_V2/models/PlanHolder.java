@@ -0,0 +1,31 @@
+package com.example.Card_Service_V2.models;
+
+import jakarta.persistence.*;
+
+/**
+ * A user holding at least one card on a plan. The unique key makes taking a seat a single conditional insert.
+ */
+@Entity
+@Table(name = "plan_holder", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_plan_holder_plan_user", columnNames = {"plan_id", "user_id"})
+})
+public class PlanHolder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "plan_id", nullable = false)
+    private Integer planId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    public PlanHolder() {}
+
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public Integer getPlanId() { return planId; }
+    public void setPlanId(Integer planId) { this.planId = planId; }
+    public Integer getUserId() { return userId; }
+    public void setUserId(Integer userId) { this.userId = userId; }
+}
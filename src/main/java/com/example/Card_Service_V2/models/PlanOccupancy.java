@@ -0,0 +1,25 @@
+package com.example.Card_Service_V2.models;
+
+import jakarta.persistence.*;
+
+/**
+ * Number of distinct users holding a plan, one row per plan.
+ * Changed only by atomic updates (see PlanOccupancyService), so concurrent creations cannot exceed the plan's cap.
+ */
+@Entity
+@Table(name = "plan_occupancy")
+public class PlanOccupancy {
+    @Id
+    @Column(name = "plan_id")
+    private Integer planId;
+
+    @Column(nullable = false)
+    private int holders;
+
+    public PlanOccupancy() {}
+
+    public Integer getPlanId() { return planId; }
+    public void setPlanId(Integer planId) { this.planId = planId; }
+    public int getHolders() { return holders; }
+    public void setHolders(int holders) { this.holders = holders; }
+}
@@ -0,0 +1,32 @@
+package com.example.Card_Service_V2.models;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Time-bound ownership of a scheduled job, shared by every replica through the database.
+ * Only the node named in {@code owner} runs the job until {@code leaseUntil} passes.
+ */
+@Entity
+@Table(name = "scheduler_lease")
+public class SchedulerLease {
+    @Id
+    @Column(name = "lease_name", length = 100)
+    private String leaseName;
+
+    @Column(nullable = false)
+    private String owner;
+
+    // timestamptz: an instant, whatever the session time zone of the node that reads it
+    @Column(name = "lease_until", nullable = false)
+    private Instant leaseUntil;
+
+    public SchedulerLease() {}
+
+    public String getLeaseName() { return leaseName; }
+    public void setLeaseName(String leaseName) { this.leaseName = leaseName; }
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public Instant getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(Instant leaseUntil) { this.leaseUntil = leaseUntil; }
+}
@@ -0,0 +1,47 @@
+package com.example.Card_Service_V2.repositories;
+
+import com.example.Card_Service_V2.models.CardDailySpend;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface CardDailySpendRepository extends JpaRepository<CardDailySpend, Integer> {
+
+    @Modifying
+    @Query(value = "UPDATE card_daily_spend SET spent = spent + :amount " +
+                   "WHERE card_id = :cardId AND spend_date = :day AND spent + :amount <= :limit", nativeQuery = true)
+    int addIfWithinLimit(@Param("cardId") Integer cardId, @Param("day") LocalDate day,
+                         @Param("amount") double amount, @Param("limit") double limit);
+
+    @Modifying
+    @Query(value = "UPDATE card_daily_spend SET spent = GREATEST(spent - :amount, 0) " +
+                   "WHERE card_id = :cardId AND spend_date = :day", nativeQuery = true)
+    int subtract(@Param("cardId") Integer cardId, @Param("day") LocalDate day, @Param("amount") double amount);
+
+    @Modifying
+    @Query(value = "INSERT INTO card_daily_spend (card_id, spend_date, spent) VALUES (:cardId, :day, 0) " +
+                   "ON CONFLICT (card_id, spend_date) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("cardId") Integer cardId, @Param("day") LocalDate day);
+
+    /**
+     * Raises each card's total for the day to at least its ledger sum. Never lowers a total: amounts reserved by
+     * other replicas whose transactions are not written yet are only in the counter.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO card_daily_spend (card_id, spend_date, spent) " +
+                   "SELECT t.card_id, :day, SUM(t.amount) FROM card_transaction t " +
+                   "WHERE t.card_id IS NOT NULL AND t.amount IS NOT NULL AND t.timestamp >= :start AND t.timestamp < :end " +
+                   "GROUP BY t.card_id " +
+                   "ON CONFLICT (card_id, spend_date) DO UPDATE SET spent = EXCLUDED.spent " +
+                   "WHERE card_daily_spend.spent < EXCLUDED.spent", nativeQuery = true)
+    int rebuildFromTransactions(@Param("day") LocalDate day,
+                                @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -0,0 +1,121 @@
+package com.example.Card_Service_V2.repositories;
+
+import com.example.Card_Service_V2.models.CardTransaction;
+import com.example.Card_Service_V2.services.dtos.CardFilterDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC operations on the card tables for paths where JPA would issue one statement per row.
+ */
+@Repository
+public class CardJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts all transactions with a single JDBC batch.
+     */
+    public void batchInsertTransactions(List<CardTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(transactions.size());
+        for (CardTransaction t : transactions) {
+            rows.add(new Object[] { t.getCardId(), t.getAccountId(), t.getAmount(), Timestamp.valueOf(t.getTimestamp()) });
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO card_transaction (card_id, account_id, amount, timestamp) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    /**
+     * Moves up to {@code limit} PENDING cards created at or before the cutoff to ACTIVE in one statement
+     * and returns their ids. Only cards with {@code id % shardCount == shard} are considered.
+     * Rows locked by a concurrent run are skipped rather than waited on.
+     */
+    public List<Integer> activatePendingCreatedBefore(LocalDateTime cutoff, int limit, int shardCount, int shard) {
+        return jdbcTemplate.queryForList(
+            "UPDATE card_model SET cardstatus = 'ACTIVE' WHERE id IN (" +
+            "SELECT id FROM card_model WHERE cardstatus = 'PENDING' AND created_at <= ? AND id % ? = ? " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING id",
+            Integer.class, Timestamp.valueOf(cutoff), shardCount, shard, limit);
+    }
+
+    /**
+     * Number of cards per cardstatus value, as stored.
+     */
+    public Map<String, Long> countCardsByStatus() {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT cardstatus, COUNT(*) AS cards FROM card_model GROUP BY cardstatus",
+            (RowCallbackHandler) rs -> counts.put(rs.getString("cardstatus"), rs.getLong("cards")));
+        return counts;
+    }
+
+    /**
+     * One page of card listing rows in id order, starting after the given id.
+     * Only reads the listing columns of card_model; the sensitive table is never touched.
+     */
+    public <T> List<T> findCardListRows(CardFilterDTO filters, int afterId, int limit, RowMapper<T> mapper) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = cardListQuery(filters, params);
+        sql.append(" AND c.id > ? ORDER BY c.id LIMIT ?");
+        params.add(afterId);
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(), mapper, params.toArray());
+    }
+
+    /**
+     * Streams card listing rows in id order through a forward-only cursor.
+     * Rows arrive in chunks of {@code fetchSize}; the caller must run inside a transaction,
+     * otherwise the PostgreSQL driver ignores the fetch size and buffers the whole result.
+     */
+    public void streamCardListRows(CardFilterDTO filters, int fetchSize, RowCallbackHandler handler) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = cardListQuery(filters, params);
+        sql.append(" ORDER BY c.id");
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Columns: id, userid, accountid, type, cardstatus, card_expiry, card_last4.
+     */
+    private StringBuilder cardListQuery(CardFilterDTO filters, List<Object> params) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT c.id, c.userid, c.accountid, c.type, c.cardstatus, c.card_expiry, c.card_last4 " +
+            "FROM card_model c WHERE 1 = 1");
+        appendFilter(sql, params, "c.cardstatus", filters.getStatus());
+        appendFilter(sql, params, "c.type", filters.getType());
+        appendFilter(sql, params, "c.userid", filters.getUserId());
+        appendFilter(sql, params, "c.accountid", filters.getAccountId());
+        appendFilter(sql, params, "c.network", filters.getNetwork());
+        return sql;
+    }
+
+    private void appendFilter(StringBuilder sql, List<Object> params, String column, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(column).append(" = ?");
+            params.add(value);
+        }
+    }
+}
@@ -2,8 +2,18 @@ package com.example.Card_Service_V2.repositories;
 
 import com.example.Card_Service_V2.models.CardPlan;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CardPlanRepository extends JpaRepository<CardPlan, Integer> {
+
+    // Single-row version stamp of the plan catalog (see CardPlanCatalog), created by schema.sql
+    @Query(value = "SELECT version FROM card_plan_version WHERE id = 1", nativeQuery = true)
+    Long findCatalogVersion();
+
+    @Modifying
+    @Query(value = "UPDATE card_plan_version SET version = version + 1 WHERE id = 1", nativeQuery = true)
+    int incrementCatalogVersion();
 }
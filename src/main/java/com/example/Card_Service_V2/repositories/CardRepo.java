@@ -1,17 +1,28 @@
 package com.example.Card_Service_V2.repositories;
 
 import com.example.Card_Service_V2.models.CardModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CardRepo extends JpaRepository<CardModel, Integer> {
 
+    @Override
+    @EntityGraph(CardModel.GRAPH_WITH_SENSITIVE_DATA)
+    List<CardModel> findAll();
+
+    @EntityGraph(CardModel.GRAPH_WITH_SENSITIVE_DATA)
+    Optional<CardModel> findWithSensitiveDataById(int id);
+
     @Query("SELECT c FROM CardModel c WHERE c.accountId = ?1")
 
     List<CardModel> findAllByAccountId(int accountId);
@@ -22,6 +33,7 @@ public interface CardRepo extends JpaRepository<CardModel, Integer> {
 
     List<CardModel> findByUserid(int userId);
 
+   @EntityGraph(CardModel.GRAPH_WITH_SENSITIVE_DATA)
    @Query("SELECT c FROM CardModel c WHERE " +
        "(:status IS NULL OR c.cardstatus = :status) AND " +
        "(:type IS NULL OR c.type = :type) AND " +
@@ -34,6 +46,23 @@ List<CardModel> findWithFilters(
     @Param("userId") Integer userId,
     @Param("accountId") Integer accountId,
     @Param("network") String network);
+
+   @EntityGraph(CardModel.GRAPH_WITH_SENSITIVE_DATA)
+   @Query("SELECT c FROM CardModel c WHERE " +
+       "(:status IS NULL OR c.cardstatus = :status) AND " +
+       "(:type IS NULL OR c.type = :type) AND " +
+       "(:userId IS NULL OR c.userid = :userId) AND " +
+       "(:accountId IS NULL OR c.accountId = :accountId) AND " +
+       "(:network IS NULL OR c.network = :network) AND " +
+       "c.id > :after ORDER BY c.id")
+List<CardModel> findWithFilters(
+    @Param("status") String status,
+    @Param("type") String type,
+    @Param("userId") Integer userId,
+    @Param("accountId") Integer accountId,
+    @Param("network") String network,
+    @Param("after") int after,
+    Pageable pageable);
     List<CardModel> findByCardstatusAndType(String status, String type);
     
     List<CardModel> findByUseridAndCardstatus(int userId, String status);
@@ -42,6 +71,39 @@ List<CardModel> findWithFilters(
 
     List<CardModel> findByUseridAndAccountIdAndTypeAndNetwork(int userid, int accountid, String type, String network);
 
+    boolean existsByUseridAndAccountIdAndTypeAndNetwork(int userid, int accountid, String type, String network);
+
+    @Query("SELECT c FROM CardModel c JOIN FETCH c.sensitiveData s " +
+           "WHERE s.cardNumberFingerprint = :fingerprint AND (:accountId IS NULL OR c.accountId = :accountId)")
+    Optional<CardModel> findByCardNumberFingerprintAndAccountId(@Param("fingerprint") String fingerprint,
+                                                                @Param("accountId") Integer accountId);
+
+    @Query("SELECT c FROM CardModel c JOIN FETCH c.sensitiveData s " +
+           "WHERE s.cardNumberFingerprint IN :fingerprints")
+    List<CardModel> findAllByCardNumberFingerprintIn(@Param("fingerprints") Collection<String> fingerprints);
+
+    // Used only until the fingerprint backfill has completed for legacy rows
+    @Query("SELECT c FROM CardModel c JOIN FETCH c.sensitiveData s " +
+           "WHERE s.cardNumber = :cardNumber AND s.cardNumberFingerprint IS NULL")
+    List<CardModel> findUnfingerprintedByCardNumber(@Param("cardNumber") String cardNumber);
+
+    /**
+     * Moves every card of the accounts onto the plan in one statement.
+     * @return the number of cards updated
+     */
+    @Modifying
+    @Query(value = "UPDATE card_model SET plan_id = :planId WHERE accountid IN (:accountIds)", nativeQuery = true)
+    int assignPlanToAccounts(@Param("planId") Integer planId, @Param("accountIds") Collection<Integer> accountIds);
+
+    /**
+     * userid, accountId, type and network of every card on the accounts: what the duplicate check compares.
+     */
+    @Query("SELECT c.userid, c.accountId, c.type, c.network FROM CardModel c WHERE c.accountId IN :accountIds")
+    List<Object[]> findDuplicateKeysByAccountIdIn(@Param("accountIds") Collection<Integer> accountIds);
+
+    @Query("SELECT DISTINCT c.accountId FROM CardModel c WHERE c.accountId IN :accountIds")
+    List<Integer> findAccountIdsWithCards(@Param("accountIds") Collection<Integer> accountIds);
+
     List<CardModel> findByPlan_Id(Integer planId);
     List<CardModel> findByPlan_IdAndUserid(Integer planId, Integer userId);
 }
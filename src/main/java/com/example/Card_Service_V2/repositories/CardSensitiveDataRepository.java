@@ -2,8 +2,16 @@ package com.example.Card_Service_V2.repositories;
 
 import com.example.Card_Service_V2.models.CardSensitiveData;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface CardSensitiveDataRepository extends JpaRepository<CardSensitiveData, Integer> {
+
+    @Query("SELECT s.cardNumberFingerprint FROM CardSensitiveData s WHERE s.cardNumberFingerprint IN :fingerprints")
+    List<String> findExistingFingerprints(@Param("fingerprints") Collection<String> fingerprints);
 }
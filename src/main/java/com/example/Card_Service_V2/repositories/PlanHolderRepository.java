@@ -0,0 +1,68 @@
+package com.example.Card_Service_V2.repositories;
+
+import com.example.Card_Service_V2.models.PlanHolder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlanHolderRepository extends JpaRepository<PlanHolder, Integer> {
+
+    boolean existsByPlanIdAndUserId(Integer planId, Integer userId);
+
+    @Query("SELECT h.userId FROM PlanHolder h WHERE h.planId = :planId AND h.userId IN :userIds")
+    List<Integer> findHolders(@Param("planId") Integer planId, @Param("userIds") Collection<Integer> userIds);
+
+    /**
+     * @return 1 if the user became a holder, 0 if they already were one
+     */
+    @Modifying
+    @Query(value = "INSERT INTO plan_holder (plan_id, user_id) VALUES (:planId, :userId) " +
+                   "ON CONFLICT (plan_id, user_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("planId") Integer planId, @Param("userId") Integer userId);
+
+    /**
+     * @return the number of users who became holders
+     */
+    @Modifying
+    @Query(value = "INSERT INTO plan_holder (plan_id, user_id) " +
+                   "SELECT :planId, u.user_id FROM unnest(CAST(:userIds AS integer[])) AS u(user_id) " +
+                   "ON CONFLICT (plan_id, user_id) DO NOTHING", nativeQuery = true)
+    int insertAllIfAbsent(@Param("planId") Integer planId, @Param("userIds") Integer[] userIds);
+
+    /**
+     * Makes every user with a card on the accounts a holder of the plan.
+     * @return the number of users who became holders
+     */
+    @Modifying
+    @Query(value = "INSERT INTO plan_holder (plan_id, user_id) " +
+                   "SELECT DISTINCT :planId, c.userid FROM card_model c WHERE c.accountid IN (:accountIds) " +
+                   "ON CONFLICT (plan_id, user_id) DO NOTHING", nativeQuery = true)
+    int insertForAccounts(@Param("planId") Integer planId, @Param("accountIds") Collection<Integer> accountIds);
+
+    /**
+     * Removes the holder once the user has no card left on the plan.
+     * @return 1 if the holder was removed
+     */
+    @Modifying
+    @Query(value = "DELETE FROM plan_holder h WHERE h.plan_id = :planId AND h.user_id = :userId " +
+                   "AND NOT EXISTS (SELECT 1 FROM card_model c WHERE c.plan_id = :planId AND c.userid = :userId)",
+           nativeQuery = true)
+    int deleteIfNoCards(@Param("planId") Integer planId, @Param("userId") Integer userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO plan_holder (plan_id, user_id) " +
+                   "SELECT DISTINCT c.plan_id, c.userid FROM card_model c WHERE c.plan_id IS NOT NULL " +
+                   "ON CONFLICT (plan_id, user_id) DO NOTHING", nativeQuery = true)
+    int insertMissingFromCards();
+
+    @Modifying
+    @Query(value = "DELETE FROM plan_holder h WHERE NOT EXISTS " +
+                   "(SELECT 1 FROM card_model c WHERE c.plan_id = h.plan_id AND c.userid = h.user_id)", nativeQuery = true)
+    int deleteWithoutCards();
+}
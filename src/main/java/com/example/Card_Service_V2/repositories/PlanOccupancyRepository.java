@@ -0,0 +1,71 @@
+package com.example.Card_Service_V2.repositories;
+
+import com.example.Card_Service_V2.models.PlanOccupancy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlanOccupancyRepository extends JpaRepository<PlanOccupancy, Integer> {
+
+    /**
+     * Reads the plan's holder count and locks the row until the transaction ends.
+     */
+    @Query(value = "SELECT holders FROM plan_occupancy WHERE plan_id = :planId FOR UPDATE", nativeQuery = true)
+    Integer lockHolders(@Param("planId") Integer planId);
+
+    @Modifying
+    @Query(value = "UPDATE plan_occupancy SET holders = holders + :count " +
+                   "WHERE plan_id = :planId AND holders + :count <= :maxHolders", nativeQuery = true)
+    int incrementByIfFits(@Param("planId") Integer planId, @Param("count") int count, @Param("maxHolders") int maxHolders);
+
+    @Modifying
+    @Query(value = "UPDATE plan_occupancy SET holders = holders + :count WHERE plan_id = :planId", nativeQuery = true)
+    int incrementBy(@Param("planId") Integer planId, @Param("count") int count);
+
+    @Modifying
+    @Query(value = "UPDATE plan_occupancy SET holders = GREATEST(holders - 1, 0) WHERE plan_id = :planId", nativeQuery = true)
+    int decrement(@Param("planId") Integer planId);
+
+    /**
+     * Drops the holders of plans other than the given one who have no card left on them, among the users with
+     * cards on the accounts, and lowers those plans' counts to match, in one statement.
+     * @return the number of plans whose count went down
+     */
+    @Modifying
+    @Query(value = "WITH released AS (" +
+                   "  DELETE FROM plan_holder h WHERE h.plan_id <> :planId " +
+                   "  AND h.user_id IN (SELECT c.userid FROM card_model c WHERE c.accountid IN (:accountIds)) " +
+                   "  AND NOT EXISTS (SELECT 1 FROM card_model c WHERE c.plan_id = h.plan_id AND c.userid = h.user_id) " +
+                   "  RETURNING h.plan_id) " +
+                   "UPDATE plan_occupancy o SET holders = GREATEST(o.holders - r.released, 0) " +
+                   "FROM (SELECT plan_id, COUNT(*) AS released FROM released GROUP BY plan_id) r " +
+                   "WHERE o.plan_id = r.plan_id", nativeQuery = true)
+    int releaseUnusedForAccounts(@Param("planId") Integer planId, @Param("accountIds") Collection<Integer> accountIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO plan_occupancy (plan_id, holders) VALUES (:planId, 0) " +
+                   "ON CONFLICT (plan_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("planId") Integer planId);
+
+    @Modifying
+    @Query(value = "INSERT INTO plan_occupancy (plan_id, holders) SELECT p.id, 0 FROM card_plan p " +
+                   "ON CONFLICT (plan_id) DO NOTHING", nativeQuery = true)
+    int insertMissing();
+
+    /**
+     * Locks every plan's holder count until the transaction ends, in plan order.
+     */
+    @Query(value = "SELECT plan_id FROM plan_occupancy ORDER BY plan_id FOR UPDATE", nativeQuery = true)
+    List<Integer> lockAll();
+
+    @Modifying
+    @Query(value = "UPDATE plan_occupancy o SET holders = (SELECT COUNT(*) FROM plan_holder h WHERE h.plan_id = o.plan_id)",
+           nativeQuery = true)
+    int recountFromHolders();
+}
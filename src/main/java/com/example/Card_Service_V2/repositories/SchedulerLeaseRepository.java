@@ -0,0 +1,36 @@
+package com.example.Card_Service_V2.repositories;
+
+import com.example.Card_Service_V2.models.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Takes the lease if it is free, expired or already ours, and extends it. Returns 1 when this owner now holds the lease.
+     * Expiry is an absolute instant (timestamptz) taken from the database's now(), so neither the replicas' clocks nor
+     * their session time zones, which pgJDBC sets from each JVM's user.timezone, change which lease has expired.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_lease (lease_name, owner, lease_until) " +
+                   "VALUES (:name, :owner, now() + make_interval(secs => :seconds)) " +
+                   "ON CONFLICT (lease_name) DO UPDATE SET owner = EXCLUDED.owner, lease_until = EXCLUDED.lease_until " +
+                   "WHERE scheduler_lease.lease_until < now() OR scheduler_lease.owner = EXCLUDED.owner", nativeQuery = true)
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("seconds") double seconds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM scheduler_lease WHERE lease_name = :name AND owner = :owner", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM scheduler_lease WHERE owner = :owner", nativeQuery = true)
+    int releaseAll(@Param("owner") String owner);
+}
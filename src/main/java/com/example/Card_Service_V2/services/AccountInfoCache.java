@@ -0,0 +1,121 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.services.CardService.AccountInfo;
+import com.example.Card_Service_V2.utils.ExpiringCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Caches accounts service lookups per authenticated user and requested currency for a short TTL, so several
+ * cards created for the same account cost one remote call. Entries are keyed by the user id of the validated
+ * token, not the token itself: a revoked or expired token fails validation before the cache is consulted, and
+ * a user's tokens share one entry. Concurrent misses for the same key share one call; failures are not cached.
+ * A TTL of 0 turns the cache off.
+ *
+ * <p>Metrics: accounts.cache.requests{result=hit|miss}, accounts.cache.hit.ratio, accounts.cache.coalesced,
+ * accounts.cache.evictions and accounts.cache.size.
+ */
+@Component
+public class AccountInfoCache implements MeterBinder {
+
+    private final ExpiringCache<Key, AccountInfo> cache;
+    private final long ttlMillis;
+
+    public AccountInfoCache(@Value("${accounts.cache.max-size:10000}") int maxSize,
+                            @Value("${accounts.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Returns the cached account for the user and currency, or runs the lookup once for all concurrent callers.
+     * The user id must come from a validated token.
+     */
+    public AccountInfo get(int userId, String currency, Supplier<AccountInfo> lookup) {
+        return cache.get(new Key(userId, currency), key -> ExpiringCache.Loaded.until(lookup.get(), expiresAt()));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxSize", cache.getMaxSize());
+        stats.put("hits", cache.getHits());
+        stats.put("misses", cache.getMisses());
+        stats.put("hitRatio", hitRatio());
+        stats.put("coalesced", cache.getCoalesced());
+        stats.put("evictions", cache.getEvictions());
+        stats.put("expirations", cache.getExpirations());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("accounts.cache.requests", cache, ExpiringCache::getHits)
+            .description("Account lookups answered from the cache or sent to the accounts service")
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("accounts.cache.requests", cache, ExpiringCache::getMisses)
+            .description("Account lookups answered from the cache or sent to the accounts service")
+            .tag("result", "miss")
+            .register(registry);
+        FunctionCounter.builder("accounts.cache.coalesced", cache, ExpiringCache::getCoalesced)
+            .description("Misses that waited for an identical lookup already in flight")
+            .register(registry);
+        FunctionCounter.builder("accounts.cache.evictions", cache, ExpiringCache::getEvictions)
+            .description("Entries evicted because the cache was full")
+            .register(registry);
+        Gauge.builder("accounts.cache.size", cache, ExpiringCache::size)
+            .description("Cached account lookups")
+            .register(registry);
+        Gauge.builder("accounts.cache.hit.ratio", this, AccountInfoCache::hitRatio)
+            .description("Share of account lookups answered from the cache since startup")
+            .register(registry);
+    }
+
+    private double hitRatio() {
+        long hits = cache.getHits();
+        long total = hits + cache.getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private long expiresAt() {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    private static final class Key {
+        final int userId;
+        final String currency;
+
+        Key(int userId, String currency) {
+            this.userId = userId;
+            // Passed to the accounts service as given, so only "no currency" forms are merged
+            this.currency = currency == null ? "" : currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return userId == other.userId && currency.equals(other.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, currency);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.Card_Service_V2.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Count-based circuit breaker around the remote auth service.
+ * The last {@code windowSize} calls are kept; once enough of them failed or were slow the circuit opens,
+ * and after {@code openDurationMs} a few probe calls decide whether to close it again.
+ */
+@Component
+public class AuthCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte OUTCOME_FAILED = 1;
+    private static final byte OUTCOME_SLOW = 2;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallThresholdNanos;
+    private final double slowCallRateThreshold;
+    private final long openDurationMillis;
+    private final int halfOpenProbes;
+
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int failedCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesFinished;
+    private int probesFailed;
+
+    public AuthCircuitBreaker(@Value("${auth.circuit-breaker.window-size:20}") int windowSize,
+                              @Value("${auth.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                              @Value("${auth.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+                              @Value("${auth.circuit-breaker.slow-call-threshold-ms:2000}") long slowCallThresholdMs,
+                              @Value("${auth.circuit-breaker.slow-call-rate-threshold:80}") double slowCallRateThreshold,
+                              @Value("${auth.circuit-breaker.open-duration-ms:30000}") long openDurationMillis,
+                              @Value("${auth.circuit-breaker.half-open-probes:3}") int halfOpenProbes) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdNanos = slowCallThresholdMs * 1_000_000;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenProbes = halfOpenProbes;
+        this.window = new byte[windowSize];
+    }
+
+    /**
+     * Whether a remote call may be made now. While open this returns false until the open period ends,
+     * then lets through a limited number of probe calls.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (probesStarted < halfOpenProbes) {
+            probesStarted++;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void onSuccess(long durationNanos) {
+        record(durationNanos > slowCallThresholdNanos ? OUTCOME_SLOW : 0);
+    }
+
+    public synchronized void onFailure(long durationNanos) {
+        record((byte) (OUTCOME_FAILED | (durationNanos > slowCallThresholdNanos ? OUTCOME_SLOW : 0)));
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private void record(byte outcome) {
+        boolean failed = (outcome & OUTCOME_FAILED) != 0;
+        if (state == State.HALF_OPEN) {
+            probesFinished++;
+            if (failed) {
+                probesFailed++;
+            }
+            if (probesFinished >= halfOpenProbes) {
+                boolean tooManyFailures = probesFailed * 100.0 / probesFinished >= failureRateThreshold;
+                transitionTo(tooManyFailures ? State.OPEN : State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call that started before the circuit opened; it no longer changes anything
+            return;
+        }
+
+        if (windowCount == windowSize) {
+            byte evicted = window[windowIndex];
+            failedCount -= (evicted & OUTCOME_FAILED) != 0 ? 1 : 0;
+            slowCount -= (evicted & OUTCOME_SLOW) != 0 ? 1 : 0;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % windowSize;
+        failedCount += failed ? 1 : 0;
+        slowCount += (outcome & OUTCOME_SLOW) != 0 ? 1 : 0;
+
+        if (windowCount >= minimumCalls
+                && (failedCount * 100.0 / windowCount >= failureRateThreshold
+                    || slowCount * 100.0 / windowCount >= slowCallRateThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        logger.warn("Auth service circuit breaker {} -> {} (failed {}, slow {} of last {} calls)",
+            state, next, failedCount, slowCount, windowCount);
+        state = next;
+        if (next == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        }
+        if (next == State.HALF_OPEN) {
+            probesStarted = 0;
+            probesFinished = 0;
+            probesFailed = 0;
+        }
+        if (next == State.CLOSED) {
+            windowIndex = 0;
+            windowCount = 0;
+            failedCount = 0;
+            slowCount = 0;
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.Card_Service_V2.services;
 
 import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import com.example.Card_Service_V2.utils.AuthUtils;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
@@ -11,37 +19,124 @@ import java.util.Map;
 
 @Service
 public class AuthServiceClient {
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthServiceClient.class);
+
     @Autowired
+    @Qualifier("authRestTemplate")
     private RestTemplate restTemplate;
+
+    @Autowired
+    private TokenValidationCache tokenValidationCache;
+
+    @Autowired
+    private AuthCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private FallbackAuthService fallbackAuthService;
     
     @Value("${auth.service.base.url:http://localhost:8080/api/v1/auth}")
     private String authServiceBaseUrl;
     
     
-     
+    /**
+     * Validates a token through the cache, the auth service or the local fallback.
+     * Timed end to end; the remote call alone is downstream.client.requests{downstream=auth}.
+     */
+    @Timed(value = "auth.token.validation", histogram = true)
     public TokenValidationResponse validateTokenOnly(String token) {
+        String rawToken = token.startsWith("Bearer ") ? token.substring(7) : token;
+        try {
+            return tokenValidationCache.get(rawToken, this::validateRemotelyOrLocally);
+        } catch (Exception e) {
+            return createInvalidResponse("Auth service unavailable: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops any cached validation result for the token, e.g. after it has been revoked.
+     */
+    public boolean invalidateToken(String token) {
+        return tokenValidationCache.invalidate(token.startsWith("Bearer ") ? token.substring(7) : token);
+    }
+
+    /**
+     * Asks the auth service unless the circuit breaker is open, in which case (or when the call fails)
+     * the token is verified locally if a verification key is configured.
+     */
+    private TokenValidationResponse validateRemotelyOrLocally(String rawToken) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return validateLocally(rawToken, new IllegalStateException("circuit breaker open"));
+        }
+        long start = System.nanoTime();
+        try {
+            TokenValidationResponse response = callAuthService(rawToken);
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return response;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(System.nanoTime() - start);
+            return validateLocally(rawToken, e);
+        }
+    }
+
+    private TokenValidationResponse validateLocally(String rawToken, RuntimeException remoteFailure) {
+        if (!fallbackAuthService.isConfigured()) {
+            throw remoteFailure;
+        }
+        return fallbackAuthService.validateTokenLocally(rawToken);
+    }
+
+    /**
+     * Mode currently used to validate tokens, derived from the circuit breaker state.
+     */
+    public String getValidationMode() {
+        switch (circuitBreaker.getState()) {
+            case OPEN:
+                return fallbackAuthService.isConfigured() ? "LOCAL" : "UNAVAILABLE";
+            case HALF_OPEN:
+                return "PROBING";
+            default:
+                return "REMOTE";
+        }
+    }
+
+    /**
+     * Single remote validation. A 4xx answer is a definitive rejection and is returned
+     * (so it can be negatively cached); transport and 5xx failures are thrown.
+     */
+    private TokenValidationResponse callAuthService(String rawToken) {
+        Map<String, String> request = new HashMap<>();
+        request.put("token", rawToken);
+        logger.debug("Validating token with auth service");
+        recordValidationCall();
+
         try {
-            Map<String, String> request = new HashMap<>();
-            request.put("token", token.startsWith("Bearer ") ? token.substring(7) : token);
-            System.out.println("Validating token: " + request.get("token"));
-            
             TokenValidationResponse response = restTemplate.postForObject(
-                authServiceBaseUrl + "/validate-simple", 
-                request, 
+                authServiceBaseUrl + "/validate-simple",
+                request,
                 TokenValidationResponse.class
             );
-            
-          
-            
-            return response != null ? response : createInvalidResponse("No response from auth service");
-            
-        } catch (Exception e) {
-            return createInvalidResponse("Auth service unavailable: " + e.getMessage());
+            if (response == null) {
+                throw new IllegalStateException("No response from auth service");
+            }
+            return response;
+        } catch (HttpClientErrorException e) {
+            return createInvalidResponse("Token rejected by auth service: " + e.getStatusCode());
+        }
+    }
+
+    /**
+     * Counts outbound validations against the current HTTP request, if there is one.
+     */
+    private void recordValidationCall() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
         }
+        Object count = attributes.getAttribute(AuthUtils.VALIDATION_CALLS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        int next = count instanceof Integer ? (Integer) count + 1 : 1;
+        attributes.setAttribute(AuthUtils.VALIDATION_CALLS_ATTRIBUTE, next, RequestAttributes.SCOPE_REQUEST);
     }
-     
-  
     
     private TokenValidationResponse createInvalidResponse(String message) {
         return TokenValidationResponse.builder()
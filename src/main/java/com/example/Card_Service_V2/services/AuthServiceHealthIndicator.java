@@ -0,0 +1,59 @@
+package com.example.Card_Service_V2.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports how tokens are being validated: REMOTE, PROBING, LOCAL (auth service down, signed tokens
+ * verified locally) or UNAVAILABLE (auth service down and no local key). Also published as the
+ * auth.validation.mode gauge: 0 remote, 1 probing, 2 local, 3 unavailable.
+ *
+ * <p>The status is always UP and the mode is a detail: an auth service outage is a dependency problem, and
+ * marking this service DOWN would make liveness and readiness probes restart or de-route every replica.
+ * Alert on the gauge instead.
+ */
+@Component
+public class AuthServiceHealthIndicator implements HealthIndicator, MeterBinder {
+
+    private final AuthServiceClient authServiceClient;
+    private final AuthCircuitBreaker circuitBreaker;
+
+    @Autowired
+    public AuthServiceHealthIndicator(AuthServiceClient authServiceClient, AuthCircuitBreaker circuitBreaker) {
+        this.authServiceClient = authServiceClient;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Health health() {
+        return Health.up()
+            .withDetail("mode", authServiceClient.getValidationMode())
+            .withDetail("circuitBreaker", circuitBreaker.getState().name())
+            .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.validation.mode", authServiceClient, client -> modeCode(client.getValidationMode()))
+            .description("Token validation mode: 0 remote, 1 probing, 2 local, 3 unavailable")
+            .register(registry);
+    }
+
+    private static double modeCode(String mode) {
+        switch (mode) {
+            case "PROBING":
+                return 1;
+            case "LOCAL":
+                return 2;
+            case "UNAVAILABLE":
+                return 3;
+            default:
+                return 0;
+        }
+    }
+}
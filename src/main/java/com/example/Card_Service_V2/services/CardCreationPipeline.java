@@ -0,0 +1,187 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.services.CardService.AccountInfo;
+import com.example.Card_Service_V2.services.CardService.AccountInfoWithCurrency;
+import com.example.Card_Service_V2.services.CardService.ValidationException;
+import com.example.Card_Service_V2.services.dtos.CreateCardDTO;
+import com.example.Card_Service_V2.services.dtos.CreateCardRequestDTO;
+import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Card creation as stages of concurrent lookups, so each stage takes about as long as its slowest dependency
+ * rather than the sum of them:
+ * <ol>
+ *   <li>token validation, while the request fields are checked on the calling thread;</li>
+ *   <li>once the caller is authenticated: the account lookup, and the plan lookup with its free-seat check;</li>
+ *   <li>once the account is known: the duplicate check and the once-per-user plan check.</li>
+ * </ol>
+ * Neither the accounts service nor the database is called for a request that is not authenticated, so an invalid
+ * token is never forwarded downstream. The card is saved, and its seat on the plan taken, only after every check
+ * has passed. The first failure cancels the other lookups of its stage: lookups that have not started are skipped
+ * and the ones in flight are not waited for (blocking HTTP and JDBC calls are not interruptible, so they finish and
+ * their results are dropped).
+ */
+@Service
+public class CardCreationPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardCreationPipeline.class);
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private AuthServiceClient authServiceClient;
+
+    @Autowired
+    @Qualifier("cardCreationExecutor")
+    private TaskExecutor executor;
+
+    @Value("${card.creation.timeout-ms:10000}")
+    private long timeoutMs;
+
+    public static class UnauthorizedException extends RuntimeException {
+        public UnauthorizedException(String message) {
+            super(message);
+        }
+    }
+
+    public CreateCardDTO createCard(CreateCardRequestDTO request, String token) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Integer planId = request.getPlanId();
+
+        CompletableFuture<TokenValidationResponse> auth = stage(() -> authenticate(token));
+        RuntimeException invalidFields = null;
+        try {
+            cardService.validateCreateCardFields(request);
+        } catch (RuntimeException e) {
+            invalidFields = e;
+        }
+        // An invalid token is reported as such whatever else is wrong with the request
+        TokenValidationResponse principal = await(auth, deadline);
+        if (invalidFields != null) {
+            throw invalidFields;
+        }
+        logger.debug("[CardCreation] Token validated for user {}", principal.getUserId());
+
+        CompletableFuture<AccountInfo> account = stage(() -> cardService.fetchAccountInfoFromToken(token, principal.getUserId(), request.getCurrency()));
+        CompletableFuture<Optional<CardPlan>> plan = stage(() -> {
+            Optional<CardPlan> found = cardService.findPlanForCreation(planId);
+            found.ifPresent(cardService::checkPlanCapacity);
+            return found;
+        });
+        List<CompletableFuture<?>> lookups = List.of(account, plan);
+        try {
+            awaitAll(lookups, deadline);
+        } catch (RuntimeException e) {
+            cancel(lookups);
+            throw e;
+        }
+
+        AccountInfo accountInfo = account.join();
+        String accountCurrency = accountInfo instanceof AccountInfoWithCurrency
+            ? ((AccountInfoWithCurrency) accountInfo).currency : null;
+        request.setUserId(accountInfo.userId);
+        request.setAccountId(accountInfo.id);
+        if (request.getCurrency() == null && accountCurrency != null) {
+            request.setCurrency(accountCurrency);
+        }
+        cardService.applyCreationDefaults(request, accountCurrency);
+
+        CompletableFuture<Boolean> duplicate = stage(() -> cardService.isDuplicateCard(request));
+        CardPlan cardPlan = plan.join().orElse(null);
+        CompletableFuture<Void> planNotHeld = stage(() -> {
+            if (cardPlan != null) {
+                cardService.checkPlanNotHeld(cardPlan, accountInfo.userId);
+            }
+            return null;
+        });
+        List<CompletableFuture<?>> checks = List.of(planNotHeld, duplicate);
+        try {
+            awaitAll(checks, deadline);
+        } catch (RuntimeException e) {
+            cancel(checks);
+            throw e;
+        }
+        if (duplicate.join()) {
+            logger.debug("[CardCreation] Duplicate card detected for user {}", request.getUserId());
+            throw new ValidationException("Duplicate card: A card with this user, account, type, and network already exists.");
+        }
+
+        return cardService.saveNewCard(request, cardPlan);
+    }
+
+    private TokenValidationResponse authenticate(String token) {
+        TokenValidationResponse response = authServiceClient.validateTokenOnly(token);
+        if (!response.isValid()) {
+            throw new UnauthorizedException(response.getMessage());
+        }
+        return response;
+    }
+
+    private <T> CompletableFuture<T> stage(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(lookup, executor);
+    }
+
+    /**
+     * Waits until every stage has completed or one of them has failed, whichever comes first,
+     * and rethrows the first failure.
+     */
+    private void awaitAll(List<CompletableFuture<?>> stages, long deadline) {
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        for (CompletableFuture<?> stage : stages) {
+            stage.whenComplete((result, error) -> {
+                if (error != null) {
+                    firstFailure.completeExceptionally(error);
+                }
+            });
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(stages.toArray(new CompletableFuture<?>[0]));
+        await(CompletableFuture.anyOf(all, firstFailure), deadline);
+    }
+
+    private static <T> T await(CompletableFuture<T> stage, long deadline) {
+        try {
+            return stage.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Card creation failed", cause);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Card creation timed out", e);
+        } catch (CancellationException e) {
+            throw new RuntimeException("Card creation cancelled", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Card creation interrupted", e);
+        }
+    }
+
+    private static void cancel(List<CompletableFuture<?>> stages) {
+        for (CompletableFuture<?> stage : stages) {
+            stage.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills in lookup columns for card rows created before those columns existed.
+ * Runs once the application is ready and walks the table in id order, one page at a time.
+ */
+@Service
+public class CardLookupBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardLookupBackfillService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardFingerprintUtil fingerprintUtil;
+
+    @Value("${card.backfill.page-size:500}")
+    private int pageSize;
+
+    private volatile boolean fingerprintsComplete;
+    private volatile List<Integer> duplicateCardNumberIds = List.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            int updated = backfillFingerprints();
+            logger.info("Card fingerprint backfill finished, {} rows updated", updated);
+        } catch (Exception e) {
+            logger.error("Card fingerprint backfill failed: {}", e.getMessage());
+        }
+        try {
+            int updated = backfillListingColumns();
+            logger.info("Card listing column backfill finished, {} rows updated", updated);
+        } catch (Exception e) {
+            logger.error("Card listing column backfill failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Copies last four digits and expiry onto card_model for rows that predate those columns.
+     * The copy happens inside the database, so card numbers are never read into the application.
+     */
+    public int backfillListingColumns() {
+        String sql =
+            "UPDATE card_model c SET card_last4 = RIGHT(s.card_number, 4), card_expiry = s.card_expiry " +
+            "FROM card_sensitive_data s WHERE s.id = c.sensitive_data_id AND c.id IN (" +
+            "SELECT c2.id FROM card_model c2 JOIN card_sensitive_data s2 ON s2.id = c2.sensitive_data_id " +
+            "WHERE c2.card_last4 IS NULL AND s2.card_number IS NOT NULL ORDER BY c2.id LIMIT ?)";
+        int updated = 0;
+        int page;
+        do {
+            page = jdbcTemplate.update(sql, pageSize);
+            updated += page;
+        } while (page > 0);
+        return updated;
+    }
+
+    /**
+     * Computes the fingerprint for every row that does not have one yet. Rows whose card number
+     * collides with an existing fingerprint are left without one and reported together at the end;
+     * they do not hold back completion, since every other row is then reachable by fingerprint.
+     */
+    public int backfillFingerprints() {
+        int updated = 0;
+        int lastId = 0;
+        List<Integer> duplicates = new ArrayList<>();
+        while (true) {
+            List<Object[]> page = jdbcTemplate.query(
+                "SELECT id, card_number FROM card_sensitive_data " +
+                "WHERE card_number_fingerprint IS NULL AND id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new Object[] { rs.getInt("id"), rs.getString("card_number") },
+                lastId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            List<Object[]> batch = new ArrayList<>(page.size());
+            for (Object[] row : page) {
+                batch.add(new Object[] { fingerprintUtil.fingerprint((String) row[1]), row[0] });
+            }
+            updated += writeFingerprints(batch, duplicates);
+            lastId = (Integer) page.get(page.size() - 1)[0];
+        }
+        if (!duplicates.isEmpty()) {
+            logger.error("{} card_sensitive_data rows repeat another row's card number and were left without a " +
+                "fingerprint; lookups by that number resolve to the other row. Ids: {}", duplicates.size(), duplicates);
+        }
+        duplicateCardNumberIds = List.copyOf(duplicates);
+        fingerprintsComplete = true;
+        return updated;
+    }
+
+    private int writeFingerprints(List<Object[]> batch, List<Integer> duplicates) {
+        String sql = "UPDATE card_sensitive_data SET card_number_fingerprint = ? WHERE id = ?";
+        try {
+            jdbcTemplate.batchUpdate(sql, batch);
+            return batch.size();
+        } catch (DataIntegrityViolationException e) {
+            // A duplicate PAN somewhere in the page; retry row by row so the rest still get indexed
+            int written = 0;
+            for (Object[] args : batch) {
+                try {
+                    written += jdbcTemplate.update(sql, args);
+                } catch (DataIntegrityViolationException duplicate) {
+                    duplicates.add((Integer) args[1]);
+                }
+            }
+            return written;
+        }
+    }
+
+    /**
+     * True once the backfill has visited every card row, so lookups no longer need the legacy fallback.
+     */
+    public boolean isFingerprintBackfillComplete() {
+        return fingerprintsComplete;
+    }
+
+    /**
+     * Rows the last backfill left without a fingerprint because their card number belongs to another row.
+     */
+    public List<Integer> getDuplicateCardNumberIds() {
+        return duplicateCardNumberIds;
+    }
+}
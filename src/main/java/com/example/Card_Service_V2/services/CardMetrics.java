@@ -0,0 +1,94 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.repositories.CardJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Card-level business metrics.
+ * Verification outcomes are counted per path and reason; cards by status are gauges over counts that are
+ * refreshed on a schedule, so a scrape never queries the database. All tag values come from fixed lists.
+ */
+@Component
+public class CardMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardMetrics.class);
+
+    public enum VerificationPath { EXTERNAL, INTERNAL, BATCH }
+
+    public enum VerificationOutcome {
+        VERIFIED, NOT_FOUND, NOT_OWNER, INVALID_REQUEST, PIN_MISMATCH, CVV_MISMATCH, NO_PLAN, LIMIT_EXCEEDED, INACTIVE, ERROR
+    }
+
+    // Statuses the service sets; anything else found in the table is reported as OTHER
+    private static final List<String> KNOWN_STATUSES =
+        List.of("PENDING", "DELIVERED", "ACTIVE", "BLOCKED", "FREEZE", "EXPIRED", "SUSPENDED");
+    private static final String OTHER_STATUS = "OTHER";
+
+    @Autowired
+    private CardJdbcRepository cardJdbcRepository;
+
+    private final Map<VerificationPath, Map<VerificationOutcome, Counter>> verificationCounters = new EnumMap<>(VerificationPath.class);
+    private final Map<String, AtomicLong> cardsByStatus = new HashMap<>();
+
+    @Autowired
+    public CardMetrics(MeterRegistry meterRegistry) {
+        for (VerificationPath path : VerificationPath.values()) {
+            Map<VerificationOutcome, Counter> counters = new EnumMap<>(VerificationOutcome.class);
+            for (VerificationOutcome outcome : VerificationOutcome.values()) {
+                counters.put(outcome, Counter.builder("card.verifications")
+                    .description("Card verification results by path and outcome")
+                    .tag("path", path.name().toLowerCase(Locale.ROOT))
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+            }
+            verificationCounters.put(path, counters);
+        }
+        for (String status : KNOWN_STATUSES) {
+            registerStatusGauge(meterRegistry, status);
+        }
+        registerStatusGauge(meterRegistry, OTHER_STATUS);
+    }
+
+    private void registerStatusGauge(MeterRegistry meterRegistry, String status) {
+        AtomicLong count = new AtomicLong();
+        cardsByStatus.put(status, count);
+        Gauge.builder("cards.by.status", count, AtomicLong::get)
+            .description("Number of cards per status, refreshed periodically")
+            .tag("status", status)
+            .register(meterRegistry);
+    }
+
+    public void recordVerification(VerificationPath path, VerificationOutcome outcome) {
+        verificationCounters.get(path).get(outcome).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${card.metrics.status-refresh-ms:60000}")
+    public void refreshCardsByStatus() {
+        try {
+            Map<String, Long> totals = new HashMap<>();
+            for (Map.Entry<String, Long> entry : cardJdbcRepository.countCardsByStatus().entrySet()) {
+                String status = entry.getKey() != null ? entry.getKey().toUpperCase(Locale.ROOT) : OTHER_STATUS;
+                totals.merge(KNOWN_STATUSES.contains(status) ? status : OTHER_STATUS, entry.getValue(), Long::sum);
+            }
+            for (Map.Entry<String, AtomicLong> gauge : cardsByStatus.entrySet()) {
+                gauge.getValue().set(totals.getOrDefault(gauge.getKey(), 0L));
+            }
+        } catch (Exception e) {
+            logger.warn("Could not refresh card status counts: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.repositories.CardPlanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * All card plans in memory, so creation, verification and limit checks never query card_plan.
+ * The catalog is an immutable snapshot that is replaced as a whole (copy-on-write); readers never lock.
+ * It is loaded on first use and reloaded when:
+ * <ul>
+ *   <li>this instance changes a plan (after the change commits),</li>
+ *   <li>card_plan_version, bumped with every change, differs from the loaded version (polled, so other
+ *       replicas pick the change up within {@code card.plans.catalog.refresh-ms}),</li>
+ *   <li>a plan id is asked for that the snapshot does not have but the database does.</li>
+ * </ul>
+ * The plans handed out are detached copies shared by all callers and must not be modified.
+ */
+@Component
+public class CardPlanCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CardPlanCatalog.class);
+
+    @Autowired
+    private CardPlanRepository cardPlanRepository;
+
+    private volatile Snapshot snapshot;
+
+    public Optional<CardPlan> find(Integer planId) {
+        if (planId == null) {
+            return Optional.empty();
+        }
+        CardPlan plan = current().plans.get(planId);
+        if (plan == null && cardPlanRepository.existsById(planId)) {
+            // Created elsewhere since the last poll
+            plan = reload().plans.get(planId);
+        }
+        return Optional.ofNullable(plan);
+    }
+
+    public List<CardPlan> getAll() {
+        return current().ordered;
+    }
+
+    /**
+     * Bumps the catalog version in the current transaction and reloads this instance once it commits.
+     * Called by every operation that changes card_plan.
+     */
+    public void markChanged() {
+        cardPlanRepository.incrementCatalogVersion();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${card.plans.catalog.refresh-ms:5000}")
+    public void refreshIfChanged() {
+        Snapshot loaded = snapshot;
+        if (loaded == null) {
+            return;
+        }
+        try {
+            Long version = cardPlanRepository.findCatalogVersion();
+            if (version != null && version != loaded.version) {
+                reload();
+            }
+        } catch (Exception e) {
+            logger.warn("Could not check the card plan catalog version: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot loaded = snapshot;
+        return loaded != null ? loaded : reload();
+    }
+
+    private synchronized Snapshot reload() {
+        // Version first: a change committed in between leaves the snapshot marked older than its data,
+        // which only costs one extra reload
+        Long version = cardPlanRepository.findCatalogVersion();
+        List<CardPlan> plans = new ArrayList<>();
+        for (CardPlan plan : cardPlanRepository.findAll()) {
+            plans.add(copyOf(plan));
+        }
+        plans.sort(Comparator.comparing(CardPlan::getId));
+        Map<Integer, CardPlan> byId = new LinkedHashMap<>();
+        for (CardPlan plan : plans) {
+            byId.put(plan.getId(), plan);
+        }
+        Snapshot loaded = new Snapshot(version != null ? version : 0L,
+            Collections.unmodifiableMap(byId), Collections.unmodifiableList(plans));
+        snapshot = loaded;
+        logger.info("Card plan catalog loaded: {} plans, version {}", plans.size(), loaded.version);
+        return loaded;
+    }
+
+    private static CardPlan copyOf(CardPlan plan) {
+        CardPlan copy = new CardPlan();
+        copy.setId(plan.getId());
+        copy.setName(plan.getName());
+        copy.setLimitAmount(plan.getLimitAmount());
+        copy.setDescription(plan.getDescription());
+        copy.setDailyLimit(plan.getDailyLimit());
+        copy.setMaxHolders(plan.getMaxHolders());
+        return copy;
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final Map<Integer, CardPlan> plans;
+        final List<CardPlan> ordered;
+
+        Snapshot(long version, Map<Integer, CardPlan> plans, List<CardPlan> ordered) {
+            this.version = version;
+            this.plans = plans;
+            this.ordered = ordered;
+        }
+    }
+}
@@ -2,67 +2,122 @@ package com.example.Card_Service_V2.services;
 
 import com.example.Card_Service_V2.models.CardPlan;
 import com.example.Card_Service_V2.repositories.CardPlanRepository;
+import com.example.Card_Service_V2.services.dtos.PlanAssignmentResultDTO;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CardPlanService {
+    private static final Logger logger = LoggerFactory.getLogger(CardPlanService.class);
+
     @Autowired
     private CardPlanRepository cardPlanRepository;
 
     @Autowired
     private com.example.Card_Service_V2.repositories.CardRepo cardRepo;
 
+    @Autowired
+    private PlanOccupancyService planOccupancyService;
+
+    @Autowired
+    private CardPlanCatalog cardPlanCatalog;
+
+    @Value("${card.plans.assign.batch.max-size:1000}")
+    private int maxAssignmentBatchSize;
+
     @PostConstruct
     public void initDefaultPlans() {
         if (cardPlanRepository.count() == 0) {
             cardPlanRepository.save(new CardPlan(
                 "Silver", 50000, false, "Silver plan: 50,000 limit, no international transactions", 10000
             ));
-            cardPlanRepository.save(new CardPlan(
+            CardPlan gold = new CardPlan(
                 "Gold", 200000, true, "Gold plan: 200,000 limit, international transactions enabled", 50000
-            ));
-            cardPlanRepository.save(new CardPlan(
+            );
+            gold.setMaxHolders(5);
+            cardPlanRepository.save(gold);
+            CardPlan platinum = new CardPlan(
                 "Platinum", 1000000, true, "Platinum plan: 1,000,000 limit, international transactions enabled", 200000
-            ));
+            );
+            platinum.setMaxHolders(7);
+            cardPlanRepository.save(platinum);
         }
     }
 
     public List<CardPlan> getAllPlans() {
-        return cardPlanRepository.findAll();
+        return cardPlanCatalog.getAll();
     }
 
     public Optional<CardPlan> getPlanById(int id) {
-        return cardPlanRepository.findById(id);
+        return cardPlanCatalog.find(id);
     }
 
+    @Transactional
     public CardPlan createPlan(CardPlan plan) {
-        return cardPlanRepository.save(plan);
+        CardPlan saved = cardPlanRepository.save(plan);
+        cardPlanCatalog.markChanged();
+        return saved;
     }
 
+    @Transactional
     public void deletePlan(int id) {
         cardPlanRepository.deleteById(id);
+        cardPlanCatalog.markChanged();
     }
 
     /**
      * Assigns a plan to all cards for the given accountId.
-     * Throws exception if plan or cards not found.
+     * Throws exception if plan or cards not found, or if the plan is full.
      */
-    public void assignPlanToUser(Integer accountId, Integer planId) {
-        Optional<CardPlan> planOpt = cardPlanRepository.findById(planId);
-        if (planOpt.isEmpty()) {
-            throw new IllegalArgumentException("Plan not found");
-        }
-        List<com.example.Card_Service_V2.models.CardModel> cards = cardRepo.findAllByAccountId(accountId);
-        if (cards == null || cards.isEmpty()) {
+    @Transactional
+    public PlanAssignmentResultDTO assignPlanToUser(Integer accountId, Integer planId) {
+        PlanAssignmentResultDTO result = assignPlanToAccounts(List.of(accountId), planId);
+        if (result.getCardsUpdated() == 0) {
             throw new IllegalArgumentException("No cards found for this accountId");
         }
-        for (com.example.Card_Service_V2.models.CardModel card : cards) {
-            card.setPlan(planOpt.get());
+        return result;
+    }
+
+    /**
+     * Assigns a plan to all cards of the given accounts with one UPDATE, whatever the number of cards.
+     * The card holders take their seats on the new plan and give up the ones on plans they no longer have a card on,
+     * all in one transaction: if the plan cannot seat every holder, nothing is assigned.
+     * Accounts without cards are reported and skipped.
+     */
+    @Transactional
+    public PlanAssignmentResultDTO assignPlanToAccounts(List<Integer> accountIds, Integer planId) {
+        CardPlan plan = cardPlanCatalog.find(planId)
+            .orElseThrow(() -> new IllegalArgumentException("Plan not found"));
+        if (accountIds == null || accountIds.isEmpty()) {
+            throw new IllegalArgumentException("accountIds must not be empty");
+        }
+        if (accountIds.size() > maxAssignmentBatchSize) {
+            throw new IllegalArgumentException("Batch size exceeds maximum of " + maxAssignmentBatchSize);
         }
-        cardRepo.saveAll(cards);
+        Set<Integer> requested = new LinkedHashSet<>(accountIds);
+        requested.remove(null);
+        List<Integer> withCards = requested.isEmpty() ? List.of() : cardRepo.findAccountIdsWithCards(requested);
+        List<Integer> withoutCards = new ArrayList<>(requested);
+        withoutCards.removeAll(withCards);
+        if (withCards.isEmpty()) {
+            return new PlanAssignmentResultDTO(planId, 0, 0, 0, withoutCards);
+        }
+
+        int holdersAdded = planOccupancyService.reserveSeatsForAccounts(plan, withCards);
+        int cardsUpdated = cardRepo.assignPlanToAccounts(planId, withCards);
+        planOccupancyService.releaseUnusedSeatsForAccounts(planId, withCards);
+        logger.info("Plan {} assigned to {} cards on {} accounts, {} new holders",
+            planId, cardsUpdated, withCards.size(), holdersAdded);
+        return new PlanAssignmentResultDTO(planId, withCards.size(), cardsUpdated, holdersAdded, withoutCards);
     }
 }
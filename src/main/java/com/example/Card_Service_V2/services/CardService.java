@@ -4,38 +4,59 @@ import com.example.Card_Service_V2.models.CardModel;
 import com.example.Card_Service_V2.models.CardSensitiveData;
 import org.springframework.http.MediaType;
 import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.repositories.CardJdbcRepository;
 import com.example.Card_Service_V2.repositories.CardRepo;
-import com.example.Card_Service_V2.repositories.CardPlanRepository;
 import com.example.Card_Service_V2.repositories.CardTransactionRepository;
 import com.example.Card_Service_V2.models.CardTransaction;
+import com.example.Card_Service_V2.services.CardMetrics.VerificationOutcome;
+import com.example.Card_Service_V2.services.CardMetrics.VerificationPath;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.web.client.RestTemplate;
+import com.example.Card_Service_V2.services.dtos.BulkCardIssuanceItemDTO;
+import com.example.Card_Service_V2.services.dtos.BulkCardIssuanceResultDTO;
 import com.example.Card_Service_V2.services.dtos.CreateCardDTO;
 import com.example.Card_Service_V2.services.dtos.CreateCardRequestDTO;
 import com.example.Card_Service_V2.services.dtos.InternalCardVerificationRequestDTO;
+import com.example.Card_Service_V2.services.dtos.InternalCardVerificationResponseDTO;
 import com.example.Card_Service_V2.services.dtos.UpdateCardRequestDTO;
 import com.example.Card_Service_V2.services.dtos.CardFilterDTO;
 import com.example.Card_Service_V2.services.dtos.CardListDTO;
+import com.example.Card_Service_V2.services.dtos.CardPageDTO;
 import com.example.Card_Service_V2.services.dtos.CardVerificationResponseDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.SecureRandom;
-import java.time.LocalDate;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.Year;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
+// Every public method is timed as card.service{class, method}; internal calls are not counted twice
+@Timed(value = "card.service", description = "Card service operations")
 @Service
 public class CardService {
     
@@ -45,11 +66,57 @@ public class CardService {
     private CardRepo repo;
 
     @Autowired
-    private CardPlanRepository cardPlanRepository;
+    private CardPlanCatalog cardPlanCatalog;
+
+    @Autowired
+    private PanAllocator panAllocator;
 
     @Autowired
     private CardTransactionRepository cardTransactionRepository;
 
+    @Autowired
+    private CardJdbcRepository cardJdbcRepository;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+
+    @Autowired
+    private PlanOccupancyService planOccupancyService;
+
+    @Value("${card.verify.batch.max-size:500}")
+    private int maxVerificationBatchSize;
+
+    @Value("${card.bulk.max-size:1000}")
+    private int maxBulkIssuanceSize;
+
+    @Value("${card.listing.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${card.listing.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${card.listing.stream-fetch-size:500}")
+    private int streamFetchSize;
+
+    @Autowired
+    private CardFingerprintUtil fingerprintUtil;
+
+    @Autowired
+    private CardLookupBackfillService lookupBackfillService;
+
+    @Autowired
+    private CardMetrics cardMetrics;
+
+    @Autowired
+    private AccountInfoCache accountInfoCache;
+
+    @Autowired
+    @Qualifier("accountsRestTemplate")
+    private RestTemplate accountsRestTemplate;
+
+    @Value("${accounts.service.url:http://localhost:8082}")
+    private String accountsServiceUrl;
+
     private SecureRandom secureRandom = new SecureRandom();
 
     // Card Status Constants
@@ -68,29 +135,77 @@ public class CardService {
     private static final String NETWORK_OTHER = "OTHER";
 
 
-    public AccountInfo fetchAccountInfoFromToken(String token, String currency) {
-    RestTemplate restTemplate = new RestTemplate();
-    System.out.println("Fetching account info for token: " + token);
+    /**
+     * Account for the token, from the account cache when a lookup for the same user and currency
+     * was made within its TTL. {@code userId} is the id the token was validated for; without one
+     * the accounts service is always asked.
+     */
+    public AccountInfo fetchAccountInfoFromToken(String token, Integer userId, String currency) {
+        if (userId == null) {
+            return requestAccountInfo(token, currency);
+        }
+        return accountInfoCache.get(userId, currency, () -> requestAccountInfo(token, currency));
+    }
+
+    private AccountInfo requestAccountInfo(String token, String currency) {
+    logger.debug("Fetching account info from accounts service");
     HttpHeaders headers = new HttpHeaders();
     headers.set("Authorization", "Bearer " + token);
     headers.setContentType(MediaType.APPLICATION_JSON);
     HttpEntity<String> entity = new HttpEntity<>("{}", headers);
 
-    String url = "http://localhost:8082/api/v1/accounts/by-token";
-    if (currency != null && !currency.isEmpty()) {
-        url += "?currency=" + currency;
+    String url = accountsServiceUrl + "/api/v1/accounts/by-token";
+    boolean hasCurrency = currency != null && !currency.isEmpty();
+    if (hasCurrency) {
+        url += "?currency={currency}";
     }
 
-    ResponseEntity<JsonNode> response = restTemplate.exchange(
-        url,
-        HttpMethod.GET,
-        entity,
-        JsonNode.class
-    );
-    JsonNode body = response.getBody();
+    ResponseEntity<JsonNode> response = hasCurrency
+        ? accountsRestTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class, currency)
+        : accountsRestTemplate.exchange(url, HttpMethod.GET, entity, JsonNode.class);
+    return toAccountInfo(response.getBody());
+}
+
+    /**
+     * Looks up every account of a bulk issuance with one accounts service call, made with the caller's token.
+     * Runs before {@link #processBulkCardCreation}, outside its transaction.
+     * @return the accounts found, by id; accounts the accounts service does not know are missing
+     */
+    public Map<Integer, AccountInfo> fetchAccountsForBulkIssuance(List<CreateCardRequestDTO> requests, String token) {
+        checkBulkSize(requests);
+        Set<Integer> accountIds = new TreeSet<>();
+        for (CreateCardRequestDTO request : requests) {
+            if (request != null && request.getAccountId() != null) {
+                accountIds.add(request.getAccountId());
+            }
+        }
+        if (accountIds.isEmpty()) {
+            return Map.of();
+        }
+        logger.debug("Fetching {} accounts from accounts service", accountIds.size());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + token);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(Map.of("accountIds", accountIds), headers);
+
+        ResponseEntity<JsonNode> response = accountsRestTemplate.exchange(
+            accountsServiceUrl + "/api/v1/accounts/batch", HttpMethod.POST, entity, JsonNode.class);
+        JsonNode body = response.getBody();
+        if (body == null || !body.isArray()) {
+            throw new RuntimeException("Invalid response from accounts API");
+        }
+        Map<Integer, AccountInfo> accounts = new HashMap<>();
+        for (JsonNode node : body) {
+            AccountInfo account = toAccountInfo(node);
+            accounts.put(account.id, account);
+        }
+        return accounts;
+    }
+
+private static AccountInfo toAccountInfo(JsonNode body) {
     if (body == null || !body.has("accountId") || !body.has("userId")) {
         throw new RuntimeException("Invalid response from accounts API");
-    } 
+    }
     String status = body.has("status") ? body.get("status").asText() : null;
     int id = body.get("accountId").asInt();
     int userId = body.get("userId").asInt();
@@ -108,8 +223,6 @@ public static class AccountInfo {
         this.id = id;
         this.userId = userId;
         this.status = status;
-        System.out.println("the status is: " + status);
-
     }
 }
 public static class AccountInfoWithCurrency extends AccountInfo {
@@ -120,88 +233,200 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         }
     }
 
-    public CreateCardDTO processCardCreationWithCurrency(CreateCardRequestDTO request, String token, String accountCurrency) {
-        try {
-            System.out.println("[CardCreation] Starting processCardCreationWithCurrency");
-            validateCreateCardRequest(request);
-            validatePlanAssignmentLimits(request);
-            if ("Blocked".equalsIgnoreCase(request.getStatus())) {
-                request.setStatus(STATUS_BLOCKED);
-            } else if (request.getStatus() == null || request.getStatus().trim().isEmpty()) {
-                request.setStatus(STATUS_ACTIVE);
+    /*
+     * Card creation stages, run by CardCreationPipeline. Each is a single lookup or a check without I/O.
+     */
+
+    /**
+     * Status and currency defaults, and the check that the card currency matches the account's.
+     */
+    public void applyCreationDefaults(CreateCardRequestDTO request, String accountCurrency) {
+        if ("Blocked".equalsIgnoreCase(request.getStatus())) {
+            request.setStatus(STATUS_BLOCKED);
+        } else if (request.getStatus() == null || request.getStatus().trim().isEmpty()) {
+            request.setStatus(STATUS_ACTIVE);
+        }
+        if (request.getCurrency() == null || request.getCurrency().trim().isEmpty()) {
+            request.setCurrency("PKR");
+        }
+        if (request.getCurrency() != null && accountCurrency != null && !request.getCurrency().equalsIgnoreCase(accountCurrency)) {
+            throw new ValidationException("Currency mismatch: Card currency does not match account currency");
+        }
+    }
+
+    /**
+     * The plan a new card gets: the requested one, or plan 1 when none is requested.
+     */
+    public Optional<CardPlan> findPlanForCreation(Integer planId) {
+        return cardPlanCatalog.find(planId != null ? planId : 1);
+    }
+
+    /**
+     * Generates the card number, CVV and expiry and saves the card with the given plan,
+     * taking the user's seat on the plan in the same transaction.
+     */
+    @Transactional
+    public CreateCardDTO saveNewCard(CreateCardRequestDTO request, CardPlan plan) {
+        if (plan != null) {
+            planOccupancyService.reserveSeatForNewCard(plan, request.getUserId());
+        }
+        CardSensitiveData sensitiveData = createSensitiveData(request);
+        CardModel card = createCardModel(request, sensitiveData);
+        card.setPlan(plan);
+        return createCard(request.getUserId(), request.getAccountId(), card);
+    }
+
+
+    /**
+     * Issues cards for several users and accounts at once (corporate onboarding). userId and accountId come with each
+     * card and are checked against the accounts from {@link #fetchAccountsForBulkIssuance}, as is the currency.
+     * The whole batch is validated first, duplicates are found with one query per batch, seats are taken per plan,
+     * and the cards are inserted in JDBC batches with ids allocated in blocks.
+     * Without allowPartial a single failure rejects the batch and nothing is created; with it the valid cards are created.
+     */
+    @Transactional
+    public BulkCardIssuanceResultDTO processBulkCardCreation(List<CreateCardRequestDTO> requests,
+                                                             Map<Integer, AccountInfo> accounts, boolean allowPartial) {
+        checkBulkSize(requests);
+
+        int count = requests.size();
+        List<BulkCardIssuanceItemDTO> results = new ArrayList<>(count);
+        CardPlan[] plans = new CardPlan[count];
+        Set<Integer> accountIds = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            CreateCardRequestDTO request = requests.get(i);
+            BulkCardIssuanceItemDTO result = new BulkCardIssuanceItemDTO();
+            result.setIndex(i);
+            results.add(result);
+            if (request != null) {
+                result.setUserId(request.getUserId());
+                result.setAccountId(request.getAccountId());
             }
-            if (request.getCurrency() == null || request.getCurrency().trim().isEmpty()) {
-                request.setCurrency("PKR");
+            try {
+                validateCreateCardRequest(request);
+                AccountInfo account = accounts.get(request.getAccountId());
+                if (account == null) {
+                    throw new ValidationException("Account not found");
+                }
+                if (account.userId != request.getUserId()) {
+                    throw new ValidationException("Account does not belong to the user");
+                }
+                String accountCurrency = account instanceof AccountInfoWithCurrency
+                    ? ((AccountInfoWithCurrency) account).currency : null;
+                if (request.getCurrency() == null && accountCurrency != null) {
+                    request.setCurrency(accountCurrency);
+                }
+                applyCreationDefaults(request, accountCurrency);
+                plans[i] = findPlanForCreation(request.getPlanId()).orElse(null);
+                accountIds.add(request.getAccountId());
+            } catch (ValidationException e) {
+                fail(result, e.getMessage());
             }
-            if (request.getStatus() == null || request.getStatus().trim().isEmpty()) {
-                request.setStatus("ACTIVE");
+        }
+
+        // Same rule as isDuplicateCard, against existing cards and earlier cards of the batch
+        Set<List<Object>> cardKeys = new HashSet<>();
+        if (!accountIds.isEmpty()) {
+            for (Object[] row : repo.findDuplicateKeysByAccountIdIn(accountIds)) {
+                cardKeys.add(List.of(row[0], row[1], String.valueOf(row[2]), String.valueOf(row[3])));
             }
-            if (request.getCurrency() != null && accountCurrency != null && !request.getCurrency().equalsIgnoreCase(accountCurrency)) {
-                throw new ValidationException("Currency mismatch: Card currency does not match account currency");
+        }
+        Map<Integer, Map<Integer, List<Integer>>> itemsByPlanAndUser = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (results.get(i).getStatus() != null) {
+                continue;
+            }
+            CreateCardRequestDTO request = requests.get(i);
+            if (!cardKeys.add(List.of(request.getUserId(), request.getAccountId(),
+                    normalizeCode(request.getType()), normalizeCode(request.getNetwork())))) {
+                fail(results.get(i), "Duplicate card: A card with this user, account, type, and network already exists.");
+            } else if (plans[i] != null) {
+                List<Integer> userItems = itemsByPlanAndUser
+                    .computeIfAbsent(plans[i].getId(), plan -> new LinkedHashMap<>())
+                    .computeIfAbsent(request.getUserId(), user -> new ArrayList<>());
+                if (plans[i].getMaxHolders() != null && !userItems.isEmpty()) {
+                    fail(results.get(i), PlanOccupancyService.onceOnlyMessage(plans[i]));
+                } else {
+                    userItems.add(i);
+                }
             }
+        }
+        if (!allowPartial && hasFailures(results)) {
+            return rejectBatch(results);
+        }
+
+        for (Map.Entry<Integer, Map<Integer, List<Integer>>> planItems : itemsByPlanAndUser.entrySet()) {
+            CardPlan plan = cardPlanCatalog.find(planItems.getKey()).orElseThrow();
+            Map<Integer, List<Integer>> itemsByUser = planItems.getValue();
+            Map<Integer, String> refused = planOccupancyService.reserveSeatsForNewCards(plan, itemsByUser.keySet());
+            refused.forEach((userId, reason) -> itemsByUser.get(userId).forEach(i -> fail(results.get(i), reason)));
+        }
+        if (!allowPartial && hasFailures(results)) {
+            // Gives the seats taken above back
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return rejectBatch(results);
+        }
 
-            if (isDuplicateCard(request)) {
-                System.out.println("[CardCreation] Duplicate card detected");
-                throw new ValidationException("Duplicate card: A card with this user, account, type, and network already exists.");
+        List<CardModel> cards = new ArrayList<>();
+        List<BulkCardIssuanceItemDTO> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (results.get(i).getStatus() != null) {
+                continue;
             }
+            CreateCardRequestDTO request = requests.get(i);
+            CardModel card = createCardModel(request, createSensitiveData(request));
+            card.setPlan(plans[i]);
+            setInitialStatus(card);
+            cards.add(card);
+            created.add(results.get(i));
+        }
+        repo.saveAll(cards);
+        for (int i = 0; i < cards.size(); i++) {
+            BulkCardIssuanceItemDTO result = created.get(i);
+            result.setStatus(BulkCardIssuanceItemDTO.CREATED);
+            result.setCardId(cards.get(i).getId());
+            result.setMaskedCardNumber(maskCardNumber(cards.get(i).getSensitiveData().getCardNumber()));
+        }
+        logger.info("[BulkIssuance] {} cards requested, {} created", count, cards.size());
+        return new BulkCardIssuanceResultDTO(count, cards.size(), count - cards.size(), results);
+    }
 
-            CardSensitiveData sensitiveData = createSensitiveData(request);
-            System.out.println("[CardCreation] Created CardSensitiveData: " + sensitiveData);
-            CardModel card = createCardModel(request, sensitiveData);
-            System.out.println("[CardCreation] Created CardModel: " + card);
-
-            CreateCardDTO dto = createCard(request.getUserId(), request.getAccountId(), card);
-            System.out.println("[CardCreation] Returning CreateCardDTO: " + dto);
-            return dto;
-        } catch (ValidationException e) {
-            System.out.println("[CardCreation] Validation error: " + e.getMessage());
-            logger.error("Validation error during card creation: {}", e.getMessage());
-            throw e;
-        } catch (Exception e) {
-            System.out.println("[CardCreation] Unexpected error: " + e.getMessage());
-            logger.error("Unexpected error during card creation", e);
-            throw new RuntimeException("Card creation failed", e);
+    private void checkBulkSize(List<CreateCardRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ValidationException("cards must not be empty");
+        }
+        if (requests.size() > maxBulkIssuanceSize) {
+            throw new ValidationException("Batch size exceeds maximum of " + maxBulkIssuanceSize);
         }
     }
 
+    private static void fail(BulkCardIssuanceItemDTO result, String error) {
+        result.setStatus(BulkCardIssuanceItemDTO.FAILED);
+        result.setError(error);
+    }
 
-    /**
-     * Process card creation with proper validation and error handling
-     */
-    public CreateCardDTO processCardCreation(CreateCardRequestDTO request) {
-        try {
-            System.out.println("[CardCreation] Starting processCardCreation");
-            validateCreateCardRequest(request);
-            validatePlanAssignmentLimits(request);
+    private static boolean hasFailures(List<BulkCardIssuanceItemDTO> results) {
+        return results.stream().anyMatch(result -> result.getStatus() != null);
+    }
 
-            if (isDuplicateCard(request)) {
-                System.out.println("[CardCreation] Duplicate card detected");
-                throw new ValidationException("Duplicate card: A card with this user, account, type, and network already exists.");
+    private BulkCardIssuanceResultDTO rejectBatch(List<BulkCardIssuanceItemDTO> results) {
+        int failed = 0;
+        for (BulkCardIssuanceItemDTO result : results) {
+            if (result.getStatus() == null) {
+                result.setStatus(BulkCardIssuanceItemDTO.NOT_CREATED);
+            } else {
+                failed++;
             }
-
-            CardSensitiveData sensitiveData = createSensitiveData(request);
-            System.out.println("[CardCreation] Created CardSensitiveData: " + sensitiveData);
-            CardModel card = createCardModel(request, sensitiveData);
-            System.out.println("[CardCreation] Created CardModel: " + card);
-
-            CreateCardDTO dto = createCard(request.getUserId(), request.getAccountId(), card);
-            System.out.println("[CardCreation] Returning CreateCardDTO: " + dto);
-            return dto;
-        } catch (ValidationException e) {
-            System.out.println("[CardCreation] Validation error: " + e.getMessage());
-            logger.error("Validation error during card creation: {}", e.getMessage());
-            throw e;
-        } catch (Exception e) {
-            System.out.println("[CardCreation] Unexpected error: " + e.getMessage());
-            logger.error("Unexpected error during card creation", e);
-            throw new RuntimeException("Card creation failed", e);
         }
+        logger.info("[BulkIssuance] Batch of {} cards rejected, {} invalid", results.size(), failed);
+        return new BulkCardIssuanceResultDTO(results.size(), 0, failed, results);
     }
 
-
     private CardSensitiveData createSensitiveData(CreateCardRequestDTO request) {
         CardSensitiveData sensitiveData = new CardSensitiveData();
-        sensitiveData.setCardNumber(generateCardNumber());
+        PanAllocator.Pan pan = panAllocator.allocate(request.getNetwork());
+        sensitiveData.setCardNumber(pan.getNumber());
+        sensitiveData.setCardNumberFingerprint(pan.getFingerprint());
         sensitiveData.setCardCvv(generateCVV());
         sensitiveData.setCardPin(request.getCardPin());
         sensitiveData.setCardExpiry(generateExpiry());
@@ -213,41 +438,37 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         CardModel card = new CardModel();
         card.setUserid(request.getUserId());
         card.setAccountId(request.getAccountId());
-        card.setType(request.getType());
+        card.setType(normalizeCode(request.getType()));
         card.setCurrency(request.getCurrency());
-        card.setNetwork(request.getNetwork());
+        card.setNetwork(normalizeCode(request.getNetwork()));
         card.setSensitiveData(sensitiveData);
+        card.setCardLast4(lastFour(sensitiveData.getCardNumber()));
+        card.setCardExpiry(sensitiveData.getCardExpiry());
         card.setTitle(request.getTitle()); 
-        if (request.getPlanId() == null) {
-            cardPlanRepository.findById(1).ifPresent(card::setPlan);
-        }
-        if (request.getPlanId() != null) {
-            cardPlanRepository.findById(request.getPlanId()).ifPresent(card::setPlan);
-        }
         return card;
     }
 
     private CreateCardDTO createCard(Integer userId, Integer accountId, CardModel card) {
-        System.out.println("[CardCreation] In createCard. CardModel before status: " + card);
-        if (TYPE_PHYSICAL.equalsIgnoreCase(card.getType())) {
-            card.setCardstatus(STATUS_PENDING);
-        } else if (TYPE_VIRTUAL.equalsIgnoreCase(card.getType())) {
-            card.setCardstatus(STATUS_ACTIVE);
-        }
-
-        card.setCreatedAt(LocalDateTime.now());
+        setInitialStatus(card);
         card.setUserid(userId);
         card.setAccountId(accountId);
 
-        System.out.println("[CardCreation] Saving CardModel: " + card);
         CardModel saved = repo.save(card);
-        System.out.println("[CardCreation] Card saved with ID: " + saved.getId());
+        logger.debug("[CardCreation] Card {} saved with status {}", saved.getId(), saved.getCardstatus());
 
         CreateCardDTO response = buildCreateCardResponse(saved);
-        System.out.println("[CardCreation] buildCreateCardResponse: " + response);
         return response;
     }
 
+    private void setInitialStatus(CardModel card) {
+        if (TYPE_PHYSICAL.equalsIgnoreCase(card.getType())) {
+            card.setCardstatus(STATUS_PENDING);
+        } else if (TYPE_VIRTUAL.equalsIgnoreCase(card.getType())) {
+            card.setCardstatus(STATUS_ACTIVE);
+        }
+        card.setCreatedAt(LocalDateTime.now());
+    }
+
     private CreateCardDTO buildCreateCardResponse(CardModel saved) {
         CreateCardDTO response = new CreateCardDTO();
         response.setCardId(saved.getId());
@@ -270,6 +491,16 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         if (request.getAccountId() == null) {
             throw new ValidationException("accountId is required");
         }
+        validateCreateCardFields(request);
+    }
+
+    /**
+     * Checks the fields the client supplies; userId and accountId come from the account lookup and are not checked here.
+     */
+    public void validateCreateCardFields(CreateCardRequestDTO request) {
+        if (request == null) {
+            throw new ValidationException("Request cannot be null");
+        }
         if (request.getCardPin() == null || request.getCardPin().trim().isEmpty()) {
             throw new ValidationException("cardPin is required");
         }
@@ -302,7 +533,7 @@ public static class AccountInfoWithCurrency extends AccountInfo {
     
     public CardModel blockCard(int cardId) {
         try {
-            CardModel card = repo.findById(cardId)
+            CardModel card = repo.findWithSensitiveDataById(cardId)
                     .orElseThrow(() -> new RuntimeException("Card not found with ID: " + cardId));
             
             card.setCardstatus(STATUS_BLOCKED);
@@ -318,7 +549,7 @@ public static class AccountInfoWithCurrency extends AccountInfo {
     
     public CardModel unblockCard(int cardId) {
         try {
-            CardModel card = repo.findById(cardId)
+            CardModel card = repo.findWithSensitiveDataById(cardId)
                     .orElseThrow(() -> new RuntimeException("Card not found with ID: " + cardId));
             
             card.setCardstatus(STATUS_ACTIVE);
@@ -365,7 +596,7 @@ public static class AccountInfoWithCurrency extends AccountInfo {
     }
 
     private void changePin(int cardId, String pin) {
-        CardModel card = repo.findById(cardId)
+        CardModel card = repo.findWithSensitiveDataById(cardId)
                 .orElseThrow(() -> new RuntimeException("Card not found with ID: " + cardId));
         
         if (card.getSensitiveData() != null) {
@@ -378,21 +609,25 @@ public static class AccountInfoWithCurrency extends AccountInfo {
     }
 
     public CardModel getCardById(int cardId) {
-        return repo.findById(cardId).orElseThrow(() -> new RuntimeException("Card not found with ID: " + cardId));
+        return repo.findWithSensitiveDataById(cardId).orElseThrow(() -> new RuntimeException("Card not found with ID: " + cardId));
     }
 
     public Optional<CardModel> findCardByNumber(String cardNumber) {
-        return repo.findAll().stream()
-                .filter(card -> card.getSensitiveData() != null && 
-                               cardNumber.equals(card.getSensitiveData().getCardNumber()))
-                .findFirst();
+        return findCardByNumberAndAccountId(cardNumber, null);
     }
 
     public Optional<CardModel> findCardByNumberAndAccountId(String cardNumber, Integer accountId) {
-        return repo.findAll().stream()
-                .filter(card -> card.getSensitiveData() != null &&
-                        cardNumber.equals(card.getSensitiveData().getCardNumber()) &&
-                        (accountId == null || accountId.equals(card.getAccountId())))
+        if (cardNumber == null || cardNumber.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<CardModel> card = repo.findByCardNumberFingerprintAndAccountId(
+                fingerprintUtil.fingerprint(cardNumber), accountId);
+        if (card.isPresent() || lookupBackfillService.isFingerprintBackfillComplete()) {
+            return card;
+        }
+        // Rows created before fingerprints existed may not be backfilled yet
+        return repo.findUnfingerprintedByCardNumber(cardNumber.trim()).stream()
+                .filter(c -> accountId == null || accountId.equals(c.getAccountId()))
                 .findFirst();
     }
 
@@ -416,6 +651,7 @@ public static class AccountInfoWithCurrency extends AccountInfo {
     public CardVerificationResponseDTO processCardVerification(int userId, String cardNumber) {
         try {
             if (cardNumber == null || cardNumber.trim().isEmpty()) {
+                cardMetrics.recordVerification(VerificationPath.EXTERNAL, VerificationOutcome.INVALID_REQUEST);
                 return new CardVerificationResponseDTO(false, "Card number is required", userId, null);
             }
             
@@ -439,6 +675,7 @@ public static class AccountInfoWithCurrency extends AccountInfo {
             }
         } catch (Exception e) {
             logger.error("Error verifying card for user {}: {}", userId, e.getMessage());
+            cardMetrics.recordVerification(VerificationPath.EXTERNAL, VerificationOutcome.ERROR);
             return new CardVerificationResponseDTO(false, "Verification failed due to system error", userId, null);
         }
     }
@@ -448,6 +685,7 @@ public static class AccountInfoWithCurrency extends AccountInfo {
             Optional<CardModel> cardOpt = findCardByNumber(cardNumber);
             
             if (!cardOpt.isPresent()) {
+                cardMetrics.recordVerification(VerificationPath.EXTERNAL, VerificationOutcome.NOT_FOUND);
                 return false;
             }
             
@@ -455,79 +693,192 @@ public static class AccountInfoWithCurrency extends AccountInfo {
             
             // Check ownership
             if (card.getUserid() != userId) {
+                cardMetrics.recordVerification(VerificationPath.EXTERNAL, VerificationOutcome.NOT_OWNER);
                 return false;
             }
             
             // Check status
-            return isCardActive(card);
+            boolean active = isCardActive(card);
+            cardMetrics.recordVerification(VerificationPath.EXTERNAL,
+                active ? VerificationOutcome.VERIFIED : VerificationOutcome.INACTIVE);
+            return active;
             
         } catch (Exception e) {
             logger.error("Error in card verification: {}", e.getMessage());
+            cardMetrics.recordVerification(VerificationPath.EXTERNAL, VerificationOutcome.ERROR);
             return false;
         }
     }
     
 
-   public boolean processInternalCardVerification(InternalCardVerificationRequestDTO request) {
-    try {
-        if (request == null) return false;
-        Optional<CardModel> cardOpt = findCardByNumberAndAccountId(request.getCardNumber(), request.getAccountId());
-        if (!cardOpt.isPresent()) return false;
-        CardModel card = cardOpt.get();
-        System.out.println("[InternalVerify] Verifying cardId: " + card.getId() + ", accountId: " + card.getAccountId() + ", userId: " + card.getUserid());
-        // Validation logic
+    public boolean processInternalCardVerification(InternalCardVerificationRequestDTO request) {
+        try {
+            if (request == null) {
+                cardMetrics.recordVerification(VerificationPath.INTERNAL, VerificationOutcome.INVALID_REQUEST);
+                return false;
+            }
+            Optional<CardModel> cardOpt = findCardByNumberAndAccountId(request.getCardNumber(), request.getAccountId());
+            if (!cardOpt.isPresent()) {
+                cardMetrics.recordVerification(VerificationPath.INTERNAL, VerificationOutcome.NOT_FOUND);
+                return false;
+            }
+            CardModel card = cardOpt.get();
+            logger.debug("[InternalVerify] Verifying cardId: {}, accountId: {}, userId: {}", card.getId(), card.getAccountId(), card.getUserid());
+            List<CardTransaction> accepted = new ArrayList<>(1);
+            InternalCardVerificationResponseDTO result = evaluateInternalVerification(request, card, accepted, VerificationPath.INTERNAL);
+            for (CardTransaction transaction : accepted) {
+                try {
+                    cardTransactionRepository.save(transaction);
+                } catch (RuntimeException e) {
+                    dailySpendService.release(transaction.getCardId(), transaction.getAmount());
+                    throw e;
+                }
+                logger.debug("[InternalVerify] Transaction saved for cardId: {}, amount: {}", card.getId(), request.getAmount());
+            }
+            return result.isValid();
+        } catch (Exception e) {
+            logger.error("Error in internal card verification: {}", e.getMessage());
+            cardMetrics.recordVerification(VerificationPath.INTERNAL, VerificationOutcome.ERROR);
+            return false;
+        }
+    }
+
+    /**
+     * Verifies a batch of internal requests. Cards are loaded with one query, accepted
+     * transactions are written with one JDBC batch, and every item gets its own result.
+     */
+    public List<InternalCardVerificationResponseDTO> processInternalCardVerificationBatch(List<InternalCardVerificationRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (requests.size() > maxVerificationBatchSize) {
+            throw new ValidationException("Batch size exceeds maximum of " + maxVerificationBatchSize);
+        }
+
+        List<String> fingerprints = new ArrayList<>(requests.size());
+        for (InternalCardVerificationRequestDTO request : requests) {
+            boolean hasNumber = request != null && request.getCardNumber() != null && !request.getCardNumber().trim().isEmpty();
+            fingerprints.add(hasNumber ? fingerprintUtil.fingerprint(request.getCardNumber()) : null);
+        }
+        Set<String> distinctFingerprints = new HashSet<>(fingerprints);
+        distinctFingerprints.remove(null);
+        Map<String, CardModel> cardsByFingerprint = new HashMap<>();
+        if (!distinctFingerprints.isEmpty()) {
+            for (CardModel card : repo.findAllByCardNumberFingerprintIn(distinctFingerprints)) {
+                cardsByFingerprint.put(card.getSensitiveData().getCardNumberFingerprint(), card);
+            }
+        }
+
+        List<InternalCardVerificationResponseDTO> results = new ArrayList<>(requests.size());
+        List<CardTransaction> accepted = new ArrayList<>();
+        List<InternalCardVerificationResponseDTO> recorded = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            InternalCardVerificationRequestDTO request = requests.get(i);
+            if (fingerprints.get(i) == null) {
+                cardMetrics.recordVerification(VerificationPath.BATCH, VerificationOutcome.INVALID_REQUEST);
+                results.add(new InternalCardVerificationResponseDTO(false, "Card number is required"));
+                continue;
+            }
+            CardModel card = cardsByFingerprint.get(fingerprints.get(i));
+            if (card == null && !lookupBackfillService.isFingerprintBackfillComplete()) {
+                card = findCardByNumberAndAccountId(request.getCardNumber(), null).orElse(null);
+            }
+            if (card == null || (request.getAccountId() != null && !request.getAccountId().equals(card.getAccountId()))) {
+                cardMetrics.recordVerification(VerificationPath.BATCH, VerificationOutcome.NOT_FOUND);
+                results.add(new InternalCardVerificationResponseDTO(false, "Card not found"));
+                continue;
+            }
+            try {
+                int acceptedBefore = accepted.size();
+                InternalCardVerificationResponseDTO result = evaluateInternalVerification(request, card, accepted, VerificationPath.BATCH);
+                if (accepted.size() > acceptedBefore) {
+                    recorded.add(result);
+                }
+                results.add(result);
+            } catch (Exception e) {
+                logger.error("Error in batch card verification for cardId {}: {}", card.getId(), e.getMessage());
+                cardMetrics.recordVerification(VerificationPath.BATCH, VerificationOutcome.ERROR);
+                results.add(new InternalCardVerificationResponseDTO(false, "Verification failed due to system error"));
+            }
+        }
+
+        try {
+            cardJdbcRepository.batchInsertTransactions(accepted);
+        } catch (RuntimeException e) {
+            logger.error("Failed to record {} batch transactions: {}", accepted.size(), e.getMessage());
+            for (CardTransaction transaction : accepted) {
+                dailySpendService.release(transaction.getCardId(), transaction.getAmount());
+            }
+            for (InternalCardVerificationResponseDTO result : recorded) {
+                result.setValid(false);
+                result.setMessage("Transaction could not be recorded");
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs the credential, plan, limit and status checks for one request against its card.
+     * A transaction that passed the limit checks is appended to {@code accepted} for the caller to persist.
+     * The outcome is counted against the given verification path.
+     */
+    private InternalCardVerificationResponseDTO evaluateInternalVerification(InternalCardVerificationRequestDTO request,
+                                                                            CardModel card,
+                                                                            List<CardTransaction> accepted,
+                                                                            VerificationPath path) {
+        InternalCardVerificationResponseDTO result = new InternalCardVerificationResponseDTO(false, null,
+                card.getId(), card.getAccountId(), card.getCardstatus(), card.getType(),
+                card.getSensitiveData() != null ? maskCardNumber(card.getSensitiveData().getCardNumber()) : null);
+
         boolean hasPin = request.getCardPin() != null && !request.getCardPin().trim().isEmpty();
         boolean hasCvv = request.getCardCvv() != null && !request.getCardCvv().trim().isEmpty();
         if (hasPin == hasCvv) {
             // Both present or both missing
             logger.error("Either cardPin or cardCvv must be provided, but not both.");
-            System.out.println("[InternalVerify] Both pin and cvv present or missing. Failing.");
-            return false;
+            result.setMessage("Either cardPin or cardCvv must be provided, but not both");
+            cardMetrics.recordVerification(path, VerificationOutcome.INVALID_REQUEST);
+            return result;
         }
         if (hasPin) {
-            if (!request.getCardPin().equals(card.getSensitiveData().getCardPin())) {
-                System.out.println("[InternalVerify] PIN mismatch. Failing.");
-                return false;
-            }
-        } else if (hasCvv) {
-            if (card.getSensitiveData() == null || !request.getCardCvv().equals(card.getSensitiveData().getCardCvv())) {
-                System.out.println("[InternalVerify] CVV mismatch. Failing.");
-                return false;
+            if (card.getSensitiveData() == null || !request.getCardPin().equals(card.getSensitiveData().getCardPin())) {
+                logger.debug("[InternalVerify] PIN mismatch for cardId: {}", card.getId());
+                result.setMessage("Invalid PIN");
+                cardMetrics.recordVerification(path, VerificationOutcome.PIN_MISMATCH);
+                return result;
             }
+        } else if (card.getSensitiveData() == null || !request.getCardCvv().equals(card.getSensitiveData().getCardCvv())) {
+            logger.debug("[InternalVerify] CVV mismatch for cardId: {}", card.getId());
+            result.setMessage("Invalid CVV");
+            cardMetrics.recordVerification(path, VerificationOutcome.CVV_MISMATCH);
+            return result;
         }
-        CardPlan plan = card.getPlan();
-        if (plan == null) {
-            System.out.println("[InternalVerify] No plan assigned to card. Failing.");
-            return false;
+        if (planOf(card) == null) {
+            logger.debug("[InternalVerify] No plan assigned to cardId: {}", card.getId());
+            result.setMessage("No plan assigned to card");
+            cardMetrics.recordVerification(path, VerificationOutcome.NO_PLAN);
+            return result;
         }
         if (request.getAmount() != null) {
-            System.out.println("[InternalVerify] Checking transaction limits for cardId: " + card.getId() + ", amount: " + request.getAmount());
+            logger.debug("[InternalVerify] Checking transaction limits for cardId: {}, amount: {}", card.getId(), request.getAmount());
             try {
-                enforceTransactionLimits(card.getId(), request.getAmount());
-                System.out.println("[InternalVerify] Transaction limits passed for cardId: " + card.getId());
-                // Save transaction after passing all checks
-                CardTransaction transaction = new CardTransaction();
-                transaction.setCardId(card.getId());
-                transaction.setAccountId(card.getAccountId());
-                transaction.setAmount(request.getAmount());
-                transaction.setTimestamp(LocalDateTime.now());
-                cardTransactionRepository.save(transaction);
-                System.out.println("[InternalVerify] Transaction saved for cardId: " + card.getId() + ", amount: " + request.getAmount());
+                enforceTransactionLimits(card, request.getAmount());
             } catch (ValidationException e) {
                 logger.error("Transaction limit violation: {}", e.getMessage());
-                System.out.println("[InternalVerify] Transaction limit violation: " + e.getMessage());
-                return false;
+                result.setMessage(e.getMessage());
+                cardMetrics.recordVerification(path, VerificationOutcome.LIMIT_EXCEEDED);
+                return result;
             }
+            logger.debug("[InternalVerify] Transaction limits passed for cardId: {}", card.getId());
+            // Record transaction after passing all checks
+            accepted.add(new CardTransaction(card.getId(), card.getAccountId(), request.getAmount(), LocalDateTime.now()));
         }
         boolean active = isCardActive(card);
-        System.out.println("[InternalVerify] Card active status: " + active);
-        return active;
-    } catch (Exception e) {
-        logger.error("Error in internal card verification: {}", e.getMessage());
-        System.out.println("[InternalVerify] Exception: " + e.getMessage());
-        return false;
+        logger.debug("[InternalVerify] Card {} active status: {}", card.getId(), active);
+        result.setValid(active);
+        result.setMessage(active ? "Card verified successfully" : "Card is not active");
+        cardMetrics.recordVerification(path, active ? VerificationOutcome.VERIFIED : VerificationOutcome.INACTIVE);
+        return result;
     }
-}
      
     private boolean isValidInternalVerificationRequest(InternalCardVerificationRequestDTO request) {
         return request != null &&
@@ -556,7 +907,7 @@ public static class AccountInfoWithCurrency extends AccountInfo {
                                                boolean isAdmin, Integer tokenUserId) {
         try {
             if (isAdmin) {
-                return processAdminCardListing(status, type, userId, accountId, network);
+                return processAdminCardListing(status, type, userId, accountId, network).getCards();
             } else {
                 return processUserCardListing(status, type, tokenUserId, accountId, network);
             }
@@ -566,21 +917,57 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         }
     }
 
-    private List<CardListDTO> processAdminCardListing(String status, String type, Integer userId, 
-                                                     Integer accountId, String network) {
-        boolean hasFilters = status != null || type != null || userId != null || accountId != null || network != null;
-        
-        if (hasFilters) {
-            CardFilterDTO filters = new CardFilterDTO();
-            filters.setStatus(status);
-            filters.setType(type);
-            filters.setUserId(userId);
-            filters.setAccountId(accountId);
-            filters.setNetwork(network);
-            return getFilteredCardsForAdmin(filters);
-        } else {
-            return getAllCardsForAdmin();
+    /**
+     * The admin listing without limit/after: the first {@code card.listing.max-page-size} matching cards,
+     * so one request cannot build every card in memory. The cursor continues it with after; full exports use
+     * {@link #streamCardsForAdmin}.
+     */
+    public CardPageDTO processAdminCardListing(String status, String type, Integer userId,
+                                               Integer accountId, String network) {
+        return processCardListingPage(status, type, userId, accountId, network, true, null, null, maxPageSize);
+    }
+
+    /**
+     * Process one keyset page of the card listing. Cards are ordered by id and the page starts
+     * after the given cursor; users only ever see their own cards.
+     */
+    public CardPageDTO processCardListingPage(String status, String type, Integer userId,
+                                              Integer accountId, String network,
+                                              boolean isAdmin, Integer tokenUserId,
+                                              Integer after, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        int afterId = after != null ? after : 0;
+        if (isAdmin) {
+            CardFilterDTO filters = new CardFilterDTO(status, type, userId, accountId, network);
+            List<CardListDTO> rows = cardJdbcRepository.findCardListRows(filters, afterId, pageSize + 1, this::mapCardListRow);
+            boolean hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
+            }
+            return new CardPageDTO(rows, hasMore ? rows.get(rows.size() - 1).getCardId() : null);
+        }
+
+        // Owners see their full card numbers, so this path still loads the sensitive rows
+        List<CardModel> cards = repo.findWithFilters(status, type, tokenUserId, accountId, network,
+                afterId, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = cards.size() > pageSize;
+        if (hasMore) {
+            cards = cards.subList(0, pageSize);
         }
+        List<CardListDTO> dtos = convertToCardListDTOForUser(cards, tokenUserId);
+        Integer nextCursor = hasMore ? cards.get(cards.size() - 1).getId() : null;
+        return new CardPageDTO(dtos, nextCursor);
+    }
+
+    /**
+     * Streams every matching card to the consumer as it comes off the database cursor,
+     * so memory use does not depend on the number of cards.
+     */
+    @Transactional(readOnly = true)
+    public void streamCardsForAdmin(CardFilterDTO filters, Consumer<CardListDTO> consumer) {
+        cardJdbcRepository.streamCardListRows(filters, streamFetchSize,
+                rs -> consumer.accept(mapCardListRow(rs, rs.getRow())));
     }
 
     private List<CardListDTO> processUserCardListing(String status, String type, Integer tokenUserId, 
@@ -595,22 +982,6 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         return getFilteredCardsForUser(filters, tokenUserId);
     }
 
-    private List<CardListDTO> getAllCardsForAdmin() {
-        List<CardModel> cards = repo.findAll();
-        return convertToCardListDTOForAdmin(cards);
-    }
-
-    private List<CardListDTO> getFilteredCardsForAdmin(CardFilterDTO filters) {
-        List<CardModel> cards = repo.findWithFilters(
-            filters.getStatus(),
-            filters.getType(),
-            filters.getUserId(),
-            filters.getAccountId(),
-            filters.getNetwork()
-        );
-        return convertToCardListDTOForAdmin(cards);
-    }
-
     private List<CardListDTO> getFilteredCardsForUser(CardFilterDTO filters, Integer tokenUserId) {
         List<CardModel> cards = repo.findWithFilters(
             filters.getStatus(),
@@ -622,13 +993,19 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         return convertToCardListDTOForUser(cards, tokenUserId);
     }
 
-    private List<CardListDTO> convertToCardListDTOForAdmin(List<CardModel> cards) {
-        List<CardListDTO> dtoList = new ArrayList<>();
-        for (CardModel card : cards) {
-            CardListDTO dto = createCardListDTO(card, false, null);
-            dtoList.add(dto);
-        }
-        return dtoList;
+    /**
+     * Builds an admin listing entry from a card_model listing row; only the stored last four digits are read.
+     */
+    private CardListDTO mapCardListRow(ResultSet rs, int rowNum) throws SQLException {
+        CardListDTO dto = new CardListDTO();
+        dto.setCardId(rs.getInt("id"));
+        dto.setCardNumber(maskCardNumber(rs.getString("card_last4")));
+        dto.setCardexpiry(rs.getString("card_expiry"));
+        dto.setAccountid(rs.getInt("accountid"));
+        dto.setType(rs.getString("type"));
+        dto.setCardstatus(rs.getString("cardstatus"));
+        dto.setUserId(rs.getInt("userid"));
+        return dto;
     }
 
     private List<CardListDTO> convertToCardListDTOForUser(List<CardModel> cards, Integer tokenUserId) {
@@ -641,7 +1018,7 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         return dtoList;
     }
 
-    private CardListDTO createCardListDTO(CardModel card, boolean showFullNumber, Integer tokenUserId) {
+    CardListDTO createCardListDTO(CardModel card, boolean showFullNumber, Integer tokenUserId) {
         CardListDTO dto = new CardListDTO();
         dto.setCardId(card.getId());
         
@@ -680,24 +1057,18 @@ public static class AccountInfoWithCurrency extends AccountInfo {
     }
 
     // Utility methods
-    private String maskCardNumber(String cardNumber) {
+    private String lastFour(String cardNumber) {
         if (cardNumber == null || cardNumber.length() < 4) {
-            return "****";
+            return null;
         }
-        return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
+        return cardNumber.substring(cardNumber.length() - 4);
     }
 
-    private String generateCardNumber() {
-        StringBuilder cardNumber = new StringBuilder();
-        // Start with a valid prefix (4 for Visa)
-        cardNumber.append("4");
-        
-        // Generate remaining 15 digits
-        for (int i = 0; i < 15; i++) {
-            cardNumber.append(secureRandom.nextInt(10));
+    String maskCardNumber(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 4) {
+            return "****";
         }
-        
-        return cardNumber.toString();
+        return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
     }
 
     private String generateCVV() {
@@ -718,16 +1089,20 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         }
     }
 
-    private boolean isDuplicateCard(CreateCardRequestDTO request) {
-        String type = request.getType() != null ? request.getType().toUpperCase() : null;
-        String network = request.getNetwork() != null ? request.getNetwork().toUpperCase() : null;
-        List<CardModel> duplicates = repo.findByUseridAndAccountIdAndTypeAndNetwork(
+    public boolean isDuplicateCard(CreateCardRequestDTO request) {
+        return repo.existsByUseridAndAccountIdAndTypeAndNetwork(
             request.getUserId(),
             request.getAccountId(),
-            type,
-            network
+            normalizeCode(request.getType()),
+            normalizeCode(request.getNetwork())
         );
-        return !duplicates.isEmpty();
+    }
+
+    /**
+     * Card type and network are stored trimmed and upper case, so the duplicate checks can compare them exactly.
+     */
+    private static String normalizeCode(String value) {
+        return value != null ? value.trim().toUpperCase() : null;
     }
 
     public Map<String, Object> getUserCardSensitiveData(int cardId, int userId) {
@@ -787,68 +1162,51 @@ public static class AccountInfoWithCurrency extends AccountInfo {
         updateCardStatus(card.getId(), "ACTIVE");
     }
 
-    private void validatePlanAssignmentLimits(CreateCardRequestDTO request) {
-        Integer planId = request.getPlanId();
-        Integer userId = request.getUserId();
-        if (planId == null) return; 
-        if (planId == 2) {
-            long userCount = repo.findByPlan_Id(2).stream().map(CardModel::getUserid).distinct().count();
-            if (userCount >= 5) {
-                throw new ValidationException("Plan 2 (Gold) can only be assigned to 5 users");
-            }
-            if (!repo.findByPlan_IdAndUserid(2, userId).isEmpty()) {
-                throw new ValidationException("Plan 2 (Gold) can only be assigned once per user");
-            }
-        } else if (planId == 3) {
-            long userCount = repo.findByPlan_Id(3).stream().map(CardModel::getUserid).distinct().count();
-            if (userCount >= 7) {
-                throw new ValidationException("Plan 3 (Platinum) can only be assigned to 7 users");
-            }
-            if (!repo.findByPlan_IdAndUserid(3, userId).isEmpty()) {
-                throw new ValidationException("Plan 3 (Platinum) can only be assigned once per user");
-            }
-        }
-    }
-
-    public List<CardPlan> getAllPlans() {
-        return cardPlanRepository.findAll();
+    /**
+     * Fails early when a capped plan has no free seat; the seat itself is taken when the card is saved.
+     */
+    public void checkPlanCapacity(CardPlan plan) {
+        planOccupancyService.checkHasFreeSeat(plan);
     }
 
     /**
-     * Checks if the daily transaction limit is exceeded for a card.
-     * @param cardId the card id
-     * @param amount the new transaction amount
-     * @param dailyLimit the daily limit for the card/plan
-     * @return true if the transaction would exceed the daily limit, false otherwise
+     * Fails early when the user already holds a capped plan.
      */
-    private boolean isDailyLimitExceeded(Integer cardId, double amount, double dailyLimit) {
-        System.out.println("[DailyLimitCheck] Checking daily limit for cardId: " + cardId + ", amount: " + amount + ", dailyLimit: " + dailyLimit);
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
-        Double sumToday = cardTransactionRepository.sumAmountByCardIdAndDay(cardId, startOfDay, endOfDay);
-        System.out.println("[DailyLimitCheck] Sum of today's transactions for cardId " + cardId + " is: " + sumToday);
-        if (sumToday == null) sumToday = 0.0;
-        boolean exceeded = (sumToday + amount) > dailyLimit;
-        System.out.println("[DailyLimitCheck] After adding current amount: " + (sumToday + amount) + ", exceeded: " + exceeded);
-        return exceeded;
+    public void checkPlanNotHeld(CardPlan plan, Integer userId) {
+        planOccupancyService.checkNotHeld(plan, userId);
+    }
+
+    public List<CardPlan> getAllPlans() {
+        return cardPlanCatalog.getAll();
     }
 
     /**
      * Enforce both one-time and daily transaction limits for a card.
+     * The amount is reserved against today's spend when both limits pass.
      * Throws ValidationException if any limit is exceeded.
      */
     public void enforceTransactionLimits(Integer cardId, double amount) {
-        CardModel card = getCardById(cardId);
-        CardPlan plan = card.getPlan();
+        enforceTransactionLimits(getCardById(cardId), amount);
+    }
+
+    private void enforceTransactionLimits(CardModel card, double amount) {
+        CardPlan plan = planOf(card);
         if (plan == null) {
             throw new ValidationException("No plan assigned to card");
         }
         if (amount > plan.getLimitAmount()) {
             throw new ValidationException("Transaction exceeds one-time limit: " + plan.getLimitAmount());
         }
-        if (isDailyLimitExceeded(cardId, amount, plan.getDailyLimit())) {
+        if (!dailySpendService.tryReserve(card.getId(), amount, plan.getDailyLimit())) {
             throw new ValidationException("Transaction exceeds daily limit: " + plan.getDailyLimit());
         }
     }
+
+    /**
+     * The card's plan from the plan catalog. Only the id is read from the card's lazy plan reference,
+     * which does not load it.
+     */
+    private CardPlan planOf(CardModel card) {
+        return card.getPlan() == null ? null : cardPlanCatalog.find(card.getPlan().getId()).orElse(null);
+    }
 }
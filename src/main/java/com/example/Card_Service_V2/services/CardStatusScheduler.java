@@ -1,32 +1,115 @@
 package com.example.Card_Service_V2.services;
 
-import com.example.Card_Service_V2.models.CardModel;
-import com.example.Card_Service_V2.repositories.CardRepo;
+import com.example.Card_Service_V2.repositories.CardJdbcRepository;
+import com.example.Card_Service_V2.services.events.CardsActivatedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Activates physical cards once they have been pending long enough.
+ * Every replica ticks, but a shard is only processed by the node holding its lease.
+ */
+@Component
 public class CardStatusScheduler {
 
+    private static final Logger logger = LoggerFactory.getLogger(CardStatusScheduler.class);
+    private static final String LEASE_NAME = "card-activation";
+
+    @Autowired
+    private CardJdbcRepository cardJdbcRepository;
+
     @Autowired
-    private CardRepo cardRepo;
+    private SchedulerLeaseService leaseService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card.activation.pending-hours:24}")
+    private long pendingHours;
+
+    @Value("${card.activation.batch-size:1000}")
+    private int batchSize;
+
+    // Shards split the id space (id % shards); each node holds at most maxShardsPerNode of them
+    @Value("${card.activation.shards:1}")
+    private int shardCount;
+
+    @Value("${card.activation.max-shards-per-node:${card.activation.shards:1}}")
+    private int maxShardsPerNode;
+
+    private final Set<Integer> ownedShards = new HashSet<>();
 
     @Scheduled(fixedRate = 60000) // runs every 1 minute
     public void activatePendingCardsAfter24Hours() {
-        List<CardModel> pendingCards = cardRepo.findByCardstatus("PENDING");
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(pendingHours);
 
-        LocalDateTime now = LocalDateTime.now();
+        int activated = 0;
+        boolean ranAny = false;
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (!ownedShards.contains(shard) && ownedShards.size() >= maxShardsPerNode) {
+                continue;
+            }
+            if (!leaseService.tryAcquire(leaseName(shard))) {
+                ownedShards.remove(shard);
+                continue;
+            }
+            ownedShards.add(shard);
+            ranAny = true;
+            activated += activateShard(cutoff, shard);
+        }
+        if (!ranAny) {
+            return;
+        }
 
-        for (CardModel card : pendingCards) {
-            if (card.getCreatedAt() != null &&
-                    Duration.between(card.getCreatedAt(), now).toHours() >= 24) {
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("cards.activation.duration")
+            .description("Duration of one pending card activation run")
+            .register(meterRegistry)
+            .record(elapsed, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("cards.activation.rows")
+            .description("Cards activated per run")
+            .register(meterRegistry)
+            .record(activated);
 
-                card.setCardstatus("ACTIVE");
-                cardRepo.save(card);
-            }
+        if (activated > 0) {
+            logger.info("Activated {} pending cards in {} ms (shards {})",
+                activated, TimeUnit.NANOSECONDS.toMillis(elapsed), ownedShards);
         }
     }
+
+    private int activateShard(LocalDateTime cutoff, int shard) {
+        // Each chunk is its own short statement, so a large backlog never holds locks on every pending row
+        int activated = 0;
+        List<Integer> chunk;
+        do {
+            chunk = cardJdbcRepository.activatePendingCreatedBefore(cutoff, batchSize, shardCount, shard);
+            if (!chunk.isEmpty()) {
+                activated += chunk.size();
+                eventPublisher.publishEvent(new CardsActivatedEvent(chunk));
+            }
+        } while (chunk.size() == batchSize);
+        return activated;
+    }
+
+    private String leaseName(int shard) {
+        return shardCount == 1 ? LEASE_NAME : LEASE_NAME + "-" + shard + "-of-" + shardCount;
+    }
 }
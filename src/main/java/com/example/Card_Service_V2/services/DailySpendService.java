@@ -0,0 +1,74 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.repositories.CardDailySpendRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Per-card daily spend accumulator backed by card_daily_spend.
+ * Rows are keyed by date, so a new day simply starts a new row.
+ */
+@Service
+public class DailySpendService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailySpendService.class);
+
+    @Autowired
+    private CardDailySpendRepository spendRepository;
+
+    /**
+     * Atomically adds the amount to today's total if the result stays within the limit.
+     * @return true if the amount was reserved, false if it would exceed the daily limit
+     */
+    @Transactional
+    public boolean tryReserve(Integer cardId, double amount, double dailyLimit) {
+        LocalDate today = LocalDate.now();
+        if (spendRepository.addIfWithinLimit(cardId, today, amount, dailyLimit) == 1) {
+            return true;
+        }
+        // Either the first spend of the day or the limit is reached; make sure the row exists and retry once
+        spendRepository.insertIfAbsent(cardId, today);
+        return spendRepository.addIfWithinLimit(cardId, today, amount, dailyLimit) == 1;
+    }
+
+    /**
+     * Gives back an amount reserved today, used when the authorisation could not be recorded.
+     */
+    @Transactional
+    public void release(Integer cardId, double amount) {
+        spendRepository.subtract(cardId, LocalDate.now(), amount);
+    }
+
+    /**
+     * Brings today's totals up to the card_transaction ledger after a restart or a lost counter row.
+     * Totals above the ledger are kept: they hold reservations whose transactions are still being written.
+     * @return the number of cards whose total was raised or created
+     */
+    @Transactional
+    public int rebuildToday() {
+        LocalDate today = LocalDate.now();
+        return spendRepository.rebuildFromTransactions(today, today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Not transactional itself: the rebuild commits in its own transaction, so a database failure is
+     * reported here and the stored totals stay as they were.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            int cards = rebuildToday();
+            logger.info("Daily spend counters raised to the ledger for {} cards", cards);
+        } catch (DataAccessException e) {
+            logger.error("Daily spend warm-up failed, keeping the stored counters", e);
+        }
+    }
+}
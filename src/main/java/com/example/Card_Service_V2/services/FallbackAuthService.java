@@ -1,155 +1,173 @@
 package com.example.Card_Service_V2.services;
 
 import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import com.example.Card_Service_V2.utils.JwtClaimsDecoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
- * Fallback authentication service that decodes auth service tokens locally
- * when the remote auth service is unavailable
+ * Fallback authentication service that validates auth service tokens locally
+ * when the remote auth service is unavailable. Tokens are only accepted if their
+ * RSA signature verifies against the configured public key or JWKS file.
  */
 @Service
 public class FallbackAuthService {
-    
-    // REMOVED: Local JwtUtil dependency - now purely auth service token decoding
-    
-    /**
-     * Validates auth service token locally as fallback
-     */
-    public TokenValidationResponse validateTokenLocally(String token) {
+
+    private static final Logger logger = LoggerFactory.getLogger(FallbackAuthService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<String, String> SIGNATURE_ALGORITHMS = Map.of(
+        "RS256", "SHA256withRSA",
+        "RS384", "SHA384withRSA",
+        "RS512", "SHA512withRSA"
+    );
+
+    @Value("${auth.local-validation.public-key-file:}")
+    private String publicKeyFile;
+
+    @Value("${auth.local-validation.jwks-file:}")
+    private String jwksFile;
+
+    // Keyed by kid; a PEM key has no kid and is stored under the empty string
+    private final Map<String, PublicKey> verificationKeys = new HashMap<>();
+
+    @PostConstruct
+    void loadKeys() {
         try {
-            System.out.println("🔄 FallbackAuthService: Attempting auth service token decode (no local JWT)");
-            
-            // Only try to decode auth service tokens
-            TokenValidationResponse authServiceResponse = decodeAuthServiceToken(token);
-            if (authServiceResponse.isValid()) {
-                return authServiceResponse;
+            if (!publicKeyFile.isBlank()) {
+                verificationKeys.put("", readPemPublicKey(Files.readString(Path.of(publicKeyFile))));
+            }
+            if (!jwksFile.isBlank()) {
+                verificationKeys.putAll(readJwks(Files.readString(Path.of(jwksFile))));
             }
-            
-            // No more local JWT fallback - auth service tokens only
-            return TokenValidationResponse.builder()
-                .valid(false)
-                .message("Token validation failed - not a valid auth service token")
-                .hasPermission(false)
-                .build();
-                
         } catch (Exception e) {
-            return TokenValidationResponse.builder()
-                .valid(false)
-                .message("Token validation failed: " + e.getMessage())
-                .hasPermission(false)
-                .build();
+            logger.error("Could not load local token verification keys: {}", e.getMessage());
         }
+        logger.info("Local token validation {} ({} keys)", isConfigured() ? "enabled" : "disabled", verificationKeys.size());
+    }
+
+    /**
+     * True when at least one verification key is available, i.e. local validation can be trusted.
+     */
+    public boolean isConfigured() {
+        return !verificationKeys.isEmpty();
     }
-    
+
     /**
-     * Decode auth service token manually
+     * Validates auth service token locally as fallback
      */
-    private TokenValidationResponse decodeAuthServiceToken(String token) {
+    public TokenValidationResponse validateTokenLocally(String token) {
         try {
-            System.out.println("🔍 FallbackAuthService: Attempting to decode auth service token");
-            String[] tokenParts = token.split("\\.");
-            if (tokenParts.length != 3) {
-                System.out.println("❌ FallbackAuthService: Invalid JWT format - not 3 parts");
-                return TokenValidationResponse.builder()
-                    .valid(false)
-                    .message("Invalid JWT format")
-                    .build();
+            if (!isConfigured()) {
+                return invalid("Local token validation is not configured");
             }
-            
-            // Decode payload
-            java.util.Base64.Decoder decoder = java.util.Base64.getUrlDecoder();
-            String payload = new String(decoder.decode(tokenParts[1]));
-            System.out.println("📋 FallbackAuthService: Decoded payload: " + payload);
-            
-            // Parse JSON manually or use ObjectMapper
-            // For simplicity, using string parsing (in production, use Jackson ObjectMapper)
-            if (payload.contains("\"role\":\"ADMIN\"") || payload.contains("\"role\":\"USER\"")) {
-                String role = extractFieldFromPayload(payload, "role");
-                String idStr = extractFieldFromPayload(payload, "id");
-                String sub = extractFieldFromPayload(payload, "sub");
-                
-                System.out.println("🎯 FallbackAuthService: Extracted - role: " + role + ", id: " + idStr + ", sub: " + sub);
-                
-                // Check expiration
-                String expStr = extractFieldFromPayload(payload, "exp");
-                if (expStr != null) {
-                    long exp = Long.parseLong(expStr);
-                    long currentTime = System.currentTimeMillis() / 1000;
-                    System.out.println("⏰ FallbackAuthService: Token exp: " + exp + ", current: " + currentTime);
-                    if (exp < currentTime) {
-                        System.out.println("❌ FallbackAuthService: Token expired");
-                        return TokenValidationResponse.builder()
-                            .valid(false)
-                            .message("Token expired")
-                            .build();
-                    }
-                }
-                
-                Integer userId = null;
-                if (idStr != null) {
-                    userId = Integer.parseInt(idStr);
-                }
-                
-                System.out.println("✅ FallbackAuthService: Auth service token validated locally");
-                return TokenValidationResponse.builder()
-                    .valid(true)
-                    .role(role)
-                    .userId(userId)
-                    .username(sub)
-                    .message("Auth service token validated locally (signature not verified)")
-                    .hasPermission(true)
-                    .build();
+            if (!verifySignature(token)) {
+                return invalid("Invalid token signature");
             }
-            
-            System.out.println("❌ FallbackAuthService: Unrecognized token format - no role found");
-            return TokenValidationResponse.builder()
-                .valid(false)
-                .message("Unrecognized token format")
-                .build();
-                
+            return decodeAuthServiceToken(token);
         } catch (Exception e) {
-            System.out.println("❌ FallbackAuthService: Error decoding auth service token: " + e.getMessage());
-            return TokenValidationResponse.builder()
-                .valid(false)
-                .message("Error decoding auth service token: " + e.getMessage())
-                .build();
+            return invalid("Token validation failed: " + e.getMessage());
+        }
+    }
+
+    private boolean verifySignature(String token) throws Exception {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) {
+            return false;
+        }
+        JsonNode header = MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(0, firstDot)));
+        String algorithm = SIGNATURE_ALGORITHMS.get(header.path("alg").asText());
+        if (algorithm == null) {
+            return false;
+        }
+        PublicKey key = header.hasNonNull("kid") && verificationKeys.containsKey(header.get("kid").asText())
+            ? verificationKeys.get(header.get("kid").asText())
+            : verificationKeys.get("");
+        if (key == null) {
+            return false;
+        }
+        Signature signature = Signature.getInstance(algorithm);
+        signature.initVerify(key);
+        signature.update(token.substring(0, lastDot).getBytes(StandardCharsets.US_ASCII));
+        return signature.verify(Base64.getUrlDecoder().decode(token.substring(lastDot + 1)));
+    }
+
+    private static PublicKey readPemPublicKey(String pem) throws Exception {
+        String base64 = pem
+            .replace("-----BEGIN PUBLIC KEY-----", "")
+            .replace("-----END PUBLIC KEY-----", "")
+            .replaceAll("\\s", "");
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
+    }
+
+    private static Map<String, PublicKey> readJwks(String json) throws Exception {
+        Map<String, PublicKey> keys = new HashMap<>();
+        KeyFactory factory = KeyFactory.getInstance("RSA");
+        for (JsonNode jwk : MAPPER.readTree(json).path("keys")) {
+            if (!"RSA".equals(jwk.path("kty").asText())) {
+                continue;
+            }
+            BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("n").asText()));
+            BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("e").asText()));
+            keys.put(jwk.path("kid").asText(""), factory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
         }
+        return keys;
+    }
+
+    private static TokenValidationResponse invalid(String message) {
+        return TokenValidationResponse.builder()
+            .valid(false)
+            .message(message)
+            .hasPermission(false)
+            .build();
     }
-    
+
     /**
-     * Extract field value from JWT payload JSON string
+     * Reads role, id, sub and exp from the token payload; only unexpired ADMIN and USER tokens that carry an exp are accepted.
      */
-    private String extractFieldFromPayload(String payload, String fieldName) {
-        try {
-            String pattern = "\"" + fieldName + "\":";
-            int startIndex = payload.indexOf(pattern);
-            if (startIndex == -1) return null;
-            
-            startIndex += pattern.length();
-            
-            // Skip whitespace and quotes
-            while (startIndex < payload.length() && 
-                   (payload.charAt(startIndex) == ' ' || payload.charAt(startIndex) == '"')) {
-                startIndex++;
-            }
-            
-            int endIndex = startIndex;
-            while (endIndex < payload.length() && 
-                   payload.charAt(endIndex) != ',' && 
-                   payload.charAt(endIndex) != '}' && 
-                   payload.charAt(endIndex) != '"') {
-                endIndex++;
-            }
-            
-            String result = payload.substring(startIndex, endIndex);
-            System.out.println("🔍 FallbackAuthService: Extracted " + fieldName + " = " + result);
-            return result;
-        } catch (Exception e) {
-            System.out.println("❌ FallbackAuthService: Error extracting " + fieldName + ": " + e.getMessage());
-            return null;
+    TokenValidationResponse decodeAuthServiceToken(String token) {
+        JwtClaimsDecoder.Claims claims = JwtClaimsDecoder.decode(token);
+        if (claims == null) {
+            return invalid("Invalid JWT format");
+        }
+        if (!"ADMIN".equals(claims.getRole()) && !"USER".equals(claims.getRole())) {
+            return invalid("Unrecognized token format");
+        }
+        // Without exp a signed token would be accepted for as long as the auth service stays down
+        if (claims.getExpiresAt() == null) {
+            return invalid("Token has no expiry");
         }
+        if (claims.isExpired(System.currentTimeMillis() / 1000)) {
+            return invalid("Token expired");
+        }
+        return TokenValidationResponse.builder()
+            .valid(true)
+            .role(claims.getRole())
+            .userId(claims.getUserId())
+            .username(claims.getSubject())
+            .message("Auth service token validated locally")
+            .hasPermission(true)
+            .build();
     }
-    
+
     /**
      * Check basic permissions locally
      */
@@ -0,0 +1,213 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.repositories.PlanHolderRepository;
+import com.example.Card_Service_V2.repositories.PlanOccupancyRepository;
+import com.example.Card_Service_V2.services.CardService.ValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Distinct holders per plan, kept in plan_holder (one row per plan and user) and plan_occupancy (a count per plan).
+ * Taking a seat is a conditional insert plus a conditional increment, both O(1) and atomic, and runs in the
+ * transaction that puts the card on the plan, so a failed save gives the seat back.
+ * Plans with {@link CardPlan#getMaxHolders()} set admit that many users, each with a single card on the plan.
+ */
+@Service
+public class PlanOccupancyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanOccupancyService.class);
+
+    @Autowired
+    private PlanOccupancyRepository occupancyRepository;
+
+    @Autowired
+    private PlanHolderRepository holderRepository;
+
+    /**
+     * Takes a seat on the plan for the user's new card. On a capped plan this fails if the user already holds it
+     * or if the plan is full; on other plans it only records the holder.
+     */
+    @Transactional
+    public void reserveSeatForNewCard(CardPlan plan, int userId) {
+        if (!takeSeat(plan, userId) && plan.getMaxHolders() != null) {
+            throw new ValidationException(onceOnlyMessage(plan));
+        }
+    }
+
+    /**
+     * Takes a seat for a user whose existing cards are moved onto the plan; a user who already holds it keeps their seat.
+     * Fails only if the plan is full.
+     */
+    @Transactional
+    public void reserveSeat(CardPlan plan, int userId) {
+        takeSeat(plan, userId);
+    }
+
+    /**
+     * Takes seats on the plan for new cards of several users at once. On a capped plan the holder count is locked
+     * while seats are handed out in the order given, and users who already hold the plan or come after the last
+     * free seat are refused.
+     * @return the refused users, with the reason
+     */
+    @Transactional
+    public Map<Integer, String> reserveSeatsForNewCards(CardPlan plan, Collection<Integer> userIds) {
+        Set<Integer> seated = new LinkedHashSet<>(userIds);
+        Map<Integer, String> refused = new LinkedHashMap<>();
+        if (plan.getMaxHolders() != null) {
+            occupancyRepository.insertIfAbsent(plan.getId());
+            int free = plan.getMaxHolders() - occupancyRepository.lockHolders(plan.getId());
+            for (Integer holder : holderRepository.findHolders(plan.getId(), seated)) {
+                seated.remove(holder);
+                refused.put(holder, onceOnlyMessage(plan));
+            }
+            Iterator<Integer> users = seated.iterator();
+            for (int taken = 0; users.hasNext(); taken++) {
+                Integer user = users.next();
+                if (taken >= free) {
+                    users.remove();
+                    refused.put(user, capacityMessage(plan));
+                }
+            }
+        }
+        if (!seated.isEmpty()) {
+            int added = holderRepository.insertAllIfAbsent(plan.getId(), seated.toArray(new Integer[0]));
+            if (added > 0 && !incrementHolders(plan, added)) {
+                throw new ValidationException(capacityMessage(plan));
+            }
+        }
+        return refused;
+    }
+
+    /**
+     * Takes seats on the plan for every user with a card on the accounts, whose cards are moved onto it;
+     * users who already hold the plan keep their seat. Fails, taking no seat, if they do not all fit.
+     * @return the number of users who took a seat
+     */
+    @Transactional
+    public int reserveSeatsForAccounts(CardPlan plan, Collection<Integer> accountIds) {
+        int added = holderRepository.insertForAccounts(plan.getId(), accountIds);
+        if (added > 0 && !incrementHolders(plan, added)) {
+            // Rolls back the holder rows inserted above
+            throw new ValidationException(capacityMessage(plan));
+        }
+        return added;
+    }
+
+    /**
+     * Gives back the seats the users with cards on the accounts no longer use, on every plan other than the given one.
+     */
+    @Transactional
+    public void releaseUnusedSeatsForAccounts(Integer keptPlanId, Collection<Integer> accountIds) {
+        occupancyRepository.releaseUnusedForAccounts(keptPlanId, accountIds);
+    }
+
+    /**
+     * Gives the user's seat back once they have no card left on the plan.
+     */
+    @Transactional
+    public void releaseSeatIfUnused(Integer planId, int userId) {
+        if (holderRepository.deleteIfNoCards(planId, userId) == 1) {
+            occupancyRepository.decrement(planId);
+        }
+    }
+
+    /**
+     * Early, non-reserving check that a capped plan still has a free seat.
+     */
+    public void checkHasFreeSeat(CardPlan plan) {
+        if (plan.getMaxHolders() == null) {
+            return;
+        }
+        int holders = occupancyRepository.findById(plan.getId()).map(o -> o.getHolders()).orElse(0);
+        if (holders >= plan.getMaxHolders()) {
+            throw new ValidationException(capacityMessage(plan));
+        }
+    }
+
+    /**
+     * Early, non-reserving check that the user does not already hold a capped plan.
+     */
+    public void checkNotHeld(CardPlan plan, int userId) {
+        if (plan.getMaxHolders() != null && holderRepository.existsByPlanIdAndUserId(plan.getId(), userId)) {
+            throw new ValidationException(onceOnlyMessage(plan));
+        }
+    }
+
+    /**
+     * Rebuilds holders and counts from card_model, for data written before the tables existed or outside the service.
+     * Safe while other instances take and give back seats: each of those changes a count under its row lock, so the
+     * counts are locked before they are recounted. A change that got the lock first has committed by then and is
+     * counted; one still waiting applies its increment or decrement on top of the recount, and its uncommitted holder
+     * row is not counted.
+     */
+    @Transactional
+    public int rebuild() {
+        int added = holderRepository.insertMissingFromCards();
+        int removed = holderRepository.deleteWithoutCards();
+        occupancyRepository.insertMissing();
+        occupancyRepository.lockAll();
+        occupancyRepository.recountFromHolders();
+        return added + removed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void warmUp() {
+        try {
+            int changed = rebuild();
+            logger.info("Plan occupancy rebuilt, {} holder rows corrected", changed);
+        } catch (Exception e) {
+            logger.error("Plan occupancy rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return false if the user already held the plan
+     */
+    private boolean takeSeat(CardPlan plan, int userId) {
+        if (holderRepository.insertIfAbsent(plan.getId(), userId) == 0) {
+            return false;
+        }
+        if (!incrementHolders(plan, 1)) {
+            // Rolls back the holder row inserted above
+            throw new ValidationException(capacityMessage(plan));
+        }
+        return true;
+    }
+
+    private boolean incrementHolders(CardPlan plan, int count) {
+        if (tryIncrement(plan, count)) {
+            return true;
+        }
+        // Either the plan's first holders or the plan is full; make sure the row exists and retry once
+        occupancyRepository.insertIfAbsent(plan.getId());
+        return tryIncrement(plan, count);
+    }
+
+    private boolean tryIncrement(CardPlan plan, int count) {
+        return plan.getMaxHolders() == null
+            ? occupancyRepository.incrementBy(plan.getId(), count) == 1
+            : occupancyRepository.incrementByIfFits(plan.getId(), count, plan.getMaxHolders()) == 1;
+    }
+
+    private static String capacityMessage(CardPlan plan) {
+        return "Plan " + plan.getId() + " (" + plan.getName() + ") can only be assigned to " + plan.getMaxHolders() + " users";
+    }
+
+    static String onceOnlyMessage(CardPlan plan) {
+        return "Plan " + plan.getId() + " (" + plan.getName() + ") can only be assigned once per user";
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.repositories.SchedulerLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Database-backed leases that let exactly one replica run a scheduled job at a time.
+ * The holder renews its lease on every run; if it stops renewing, another node takes over
+ * once the lease has expired.
+ */
+@Service
+public class SchedulerLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLeaseService.class);
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Value("${card.scheduler.lease-seconds:180}")
+    private long leaseSeconds;
+
+    private final String nodeId;
+
+    public SchedulerLeaseService(@Value("${card.scheduler.node-id:}") String configuredNodeId) {
+        this.nodeId = configuredNodeId.isBlank() ? defaultNodeId() : configuredNodeId;
+    }
+
+    /**
+     * Acquires or renews the named lease for this node.
+     * @return true if this node holds the lease and should run the job now
+     */
+    public boolean tryAcquire(String leaseName) {
+        try {
+            return leaseRepository.acquire(leaseName, nodeId, leaseSeconds) == 1;
+        } catch (Exception e) {
+            logger.error("Could not acquire scheduler lease {}: {}", leaseName, e.getMessage());
+            return false;
+        }
+    }
+
+    public void release(String leaseName) {
+        leaseRepository.release(leaseName, nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Hands every lease back on shutdown so another node can take over without waiting for expiry.
+     */
+    @PreDestroy
+    public void releaseAll() {
+        try {
+            int released = leaseRepository.releaseAll(nodeId);
+            if (released > 0) {
+                logger.info("Released {} scheduler leases held by {}", released, nodeId);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not release scheduler leases for {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
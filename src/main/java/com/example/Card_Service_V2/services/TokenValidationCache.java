@@ -0,0 +1,119 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import com.example.Card_Service_V2.utils.ExpiringCache;
+import com.example.Card_Service_V2.utils.JwtClaimsDecoder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caches auth service validation results per bearer token.
+ * Valid tokens are kept until the earlier of the JWT exp claim and the configured TTL;
+ * invalid tokens are kept for a short negative TTL. An invalidated token is not re-cached by a validation
+ * that was already in flight when it was invalidated.
+ *
+ * <p>Metrics: auth.token.cache.requests{result=hit|miss}, auth.token.cache.hit.ratio, auth.token.cache.coalesced,
+ * auth.token.cache.evictions, auth.token.cache.expirations and auth.token.cache.size.
+ */
+@Component
+public class TokenValidationCache implements MeterBinder {
+
+    private final ExpiringCache<String, TokenValidationResponse> cache;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+
+    public TokenValidationCache(@Value("${auth.token-cache.max-size:10000}") int maxSize,
+                                @Value("${auth.token-cache.ttl-seconds:60}") long ttlSeconds,
+                                @Value("${auth.token-cache.negative-ttl-seconds:5}") long negativeTtlSeconds) {
+        this.cache = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+        this.negativeTtlMillis = negativeTtlSeconds * 1000;
+    }
+
+    /**
+     * Returns the cached result for the token or asks the given validator once.
+     * Exceptions from the validator are not cached.
+     */
+    public TokenValidationResponse get(String token, Function<String, TokenValidationResponse> validator) {
+        return cache.get(token, key -> {
+            TokenValidationResponse response = validator.apply(key);
+            return ExpiringCache.Loaded.until(response, expiresAt(key, response));
+        });
+    }
+
+    /**
+     * Drops the cached result for the token, and stops a validation of it that is in flight from caching its result.
+     */
+    public boolean invalidate(String token) {
+        return cache.invalidate(token);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxSize", cache.getMaxSize());
+        stats.put("hits", cache.getHits());
+        stats.put("misses", cache.getMisses());
+        stats.put("hitRatio", hitRatio());
+        stats.put("coalesced", cache.getCoalesced());
+        stats.put("evictions", cache.getEvictions());
+        stats.put("expirations", cache.getExpirations());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.token.cache.requests", cache, ExpiringCache::getHits)
+            .description("Token validations answered from the cache or sent to the auth service")
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("auth.token.cache.requests", cache, ExpiringCache::getMisses)
+            .description("Token validations answered from the cache or sent to the auth service")
+            .tag("result", "miss")
+            .register(registry);
+        FunctionCounter.builder("auth.token.cache.coalesced", cache, ExpiringCache::getCoalesced)
+            .description("Misses that waited for a validation of the same token already in flight")
+            .register(registry);
+        FunctionCounter.builder("auth.token.cache.evictions", cache, ExpiringCache::getEvictions)
+            .description("Entries evicted because the cache was full")
+            .register(registry);
+        FunctionCounter.builder("auth.token.cache.expirations", cache, ExpiringCache::getExpirations)
+            .description("Entries dropped because their TTL or the token's exp had passed")
+            .register(registry);
+        Gauge.builder("auth.token.cache.size", cache, ExpiringCache::size)
+            .description("Cached token validation results")
+            .register(registry);
+        Gauge.builder("auth.token.cache.hit.ratio", this, TokenValidationCache::hitRatio)
+            .description("Share of token validations answered from the cache since startup")
+            .register(registry);
+    }
+
+    private double hitRatio() {
+        long hits = cache.getHits();
+        long total = hits + cache.getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    private long expiresAt(String token, TokenValidationResponse response) {
+        long now = System.currentTimeMillis();
+        if (!response.isValid()) {
+            return now + negativeTtlMillis;
+        }
+        long expiresAt = now + ttlMillis;
+        Long tokenExpiry = extractExpiryMillis(token);
+        return tokenExpiry != null ? Math.min(expiresAt, tokenExpiry) : expiresAt;
+    }
+
+    private Long extractExpiryMillis(String token) {
+        JwtClaimsDecoder.Claims claims = JwtClaimsDecoder.decode(token);
+        return claims != null && claims.getExpiresAt() != null ? claims.getExpiresAt() * 1000 : null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.Card_Service_V2.services.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCardIssuanceItemDTO {
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+    public static final String NOT_CREATED = "NOT_CREATED"; // valid, but the batch was rejected
+
+    private int index; // position in the request's cards list
+    private Integer userId;
+    private Integer accountId;
+    private String status;
+    private Integer cardId;
+    private String maskedCardNumber;
+    private String error;
+
+}
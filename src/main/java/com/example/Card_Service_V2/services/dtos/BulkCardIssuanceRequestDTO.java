@@ -0,0 +1,16 @@
+package com.example.Card_Service_V2.services.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCardIssuanceRequestDTO {
+    private List<CreateCardRequestDTO> cards; // each with userId and accountId set
+    private boolean allowPartial; // create the valid cards even if others fail; otherwise all or nothing
+
+}
@@ -0,0 +1,18 @@
+package com.example.Card_Service_V2.services.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCardIssuanceResultDTO {
+    private int requested;
+    private int created;
+    private int failed;
+    private List<BulkCardIssuanceItemDTO> results; // one per requested card, in request order
+
+}
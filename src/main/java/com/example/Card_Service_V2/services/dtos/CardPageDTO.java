@@ -0,0 +1,16 @@
+package com.example.Card_Service_V2.services.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardPageDTO {
+    private List<CardListDTO> cards;
+    private Integer nextCursor; // pass as 'after' to fetch the next page, null when there are no more cards
+
+}
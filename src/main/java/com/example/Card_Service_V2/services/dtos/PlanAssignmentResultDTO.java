@@ -0,0 +1,19 @@
+package com.example.Card_Service_V2.services.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanAssignmentResultDTO {
+    private Integer planId;
+    private int accountsUpdated;
+    private int cardsUpdated;
+    private int holdersAdded; // users who were not holders of the plan before
+    private List<Integer> accountsWithoutCards; // requested accounts that had no card, left untouched
+
+}
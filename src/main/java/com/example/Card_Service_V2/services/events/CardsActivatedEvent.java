@@ -0,0 +1,19 @@
+package com.example.Card_Service_V2.services.events;
+
+import java.util.List;
+
+/**
+ * Published after a batch of pending cards has been switched to ACTIVE.
+ */
+public class CardsActivatedEvent {
+
+    private final List<Integer> cardIds;
+
+    public CardsActivatedEvent(List<Integer> cardIds) {
+        this.cardIds = List.copyOf(cardIds);
+    }
+
+    public List<Integer> getCardIds() {
+        return cardIds;
+    }
+}
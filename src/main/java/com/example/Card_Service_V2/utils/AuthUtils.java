@@ -8,6 +8,11 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class AuthUtils {
+
+    // Request attribute holding the TokenValidationResponse resolved for the current request
+    public static final String PRINCIPAL_ATTRIBUTE = "authPrincipal";
+    // Request attribute counting outbound calls to the auth service for the current request
+    public static final String VALIDATION_CALLS_ATTRIBUTE = "authValidationCalls";
     
     private static AuthServiceClient authServiceClient;
     
@@ -17,28 +22,19 @@ public class AuthUtils {
     }
 
     public static boolean isAdmin(HttpServletRequest request) {
-        String token = extractToken(request);
-        if (token == null) return false;
-        
-        TokenValidationResponse response = authServiceClient.validateTokenOnly(token);
-        return response.isValid() && "ADMIN".equals(response.getRole());
+        TokenValidationResponse response = getPrincipal(request);
+        return response != null && response.isValid() && "ADMIN".equals(response.getRole());
     }
     
     public static boolean isUser(HttpServletRequest request) {
-        String token = extractToken(request);
-        if (token == null) return false;
-        
-        TokenValidationResponse response = authServiceClient.validateTokenOnly(token);
-        return response.isValid() && ("USER".equals(response.getRole()) || "ADMIN".equals(response.getRole()));
+        TokenValidationResponse response = getPrincipal(request);
+        return response != null && response.isValid() && ("USER".equals(response.getRole()) || "ADMIN".equals(response.getRole()));
     }
     
     public static boolean canAccessUser(HttpServletRequest request, Integer requestedUserId) {
-        String token = extractToken(request);
-        if (token == null) return false;
-        
-        TokenValidationResponse response = authServiceClient.validateTokenOnly(token);
+        TokenValidationResponse response = getPrincipal(request);
         
-        if (!response.isValid()) {
+        if (response == null || !response.isValid()) {
             return false;
         }
         
@@ -53,11 +49,37 @@ public class AuthUtils {
     }
     
     public static Integer getUserIdAsInt(HttpServletRequest request) {
+        TokenValidationResponse response = getPrincipal(request);
+        return response != null && response.isValid() ? response.getUserId() : null;
+    }
+
+    /**
+     * Returns the principal resolved for this request. The interceptor normally stores it;
+     * otherwise the token is validated once and the result kept on the request.
+     */
+    public static TokenValidationResponse getPrincipal(HttpServletRequest request) {
+        Object resolved = request.getAttribute(PRINCIPAL_ATTRIBUTE);
+        if (resolved instanceof TokenValidationResponse) {
+            return (TokenValidationResponse) resolved;
+        }
         String token = extractToken(request);
         if (token == null) return null;
-        
+
         TokenValidationResponse response = authServiceClient.validateTokenOnly(token);
-        return response.isValid() ? response.getUserId() : null;
+        setPrincipal(request, response);
+        return response;
+    }
+
+    public static void setPrincipal(HttpServletRequest request, TokenValidationResponse principal) {
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+    }
+
+    /**
+     * Number of outbound token validation calls made while handling this request.
+     */
+    public static int getValidationCallCount(HttpServletRequest request) {
+        Object count = request.getAttribute(VALIDATION_CALLS_ATTRIBUTE);
+        return count instanceof Integer ? (Integer) count : 0;
     }
     
     private static String extractToken(HttpServletRequest request) {
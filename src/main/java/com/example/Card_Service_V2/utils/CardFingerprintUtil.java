@@ -0,0 +1,52 @@
+package com.example.Card_Service_V2.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Computes the keyed fingerprint (HMAC-SHA256, hex encoded) stored next to each card number.
+ * The fingerprint is uniquely indexed so card lookups never have to scan PANs.
+ */
+@Component
+public class CardFingerprintUtil {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadLocal<Mac> macs;
+
+    public CardFingerprintUtil(@Value("${card.fingerprint.secret}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException(
+                "card.fingerprint.secret is not set; provide it through the CARD_FINGERPRINT_SECRET environment variable");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialise card fingerprint MAC", e);
+            }
+        });
+    }
+
+    public String fingerprint(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        byte[] digest = macs.get().doFinal(cardNumber.trim().getBytes(StandardCharsets.US_ASCII));
+        char[] out = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            out[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+            out[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(out);
+    }
+}
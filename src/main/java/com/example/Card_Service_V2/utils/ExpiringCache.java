@@ -0,0 +1,195 @@
+package com.example.Card_Service_V2.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, least-recently-used cache where every entry carries its own expiry.
+ * Concurrent misses for the same key are collapsed into a single loader call.
+ * A load that is still running when its key is invalidated returns its value to its callers but does not cache it.
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries;
+    private final ConcurrentHashMap<K, Load<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public ExpiringCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, or runs the loader once for all concurrent callers.
+     * Exceptions thrown by the loader are propagated to every waiting caller and nothing is cached.
+     */
+    public V get(K key, Function<K, Loaded<V>> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        Load<V> load = new Load<>();
+        Load<V> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing.future).value;
+        }
+        try {
+            Loaded<V> loaded = loader.apply(key);
+            if (loaded.value != null && loaded.expiresAtMillis > System.currentTimeMillis()) {
+                synchronized (entries) {
+                    // Checked under the same lock invalidate() marks it with, so an invalidation either sees this
+                    // entry and removes it or stops it from being stored
+                    if (!load.invalidated) {
+                        entries.put(key, new Entry<>(loaded.value, loaded.expiresAtMillis));
+                    }
+                }
+            }
+            load.future.complete(loaded);
+            return loaded.value;
+        } catch (RuntimeException e) {
+            load.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    public V getIfPresent(K key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtMillis <= now) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Stores a value loaded outside {@link #get}, replacing any cached one; an expiry in the past removes the entry.
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        synchronized (entries) {
+            if (value != null && expiresAtMillis > System.currentTimeMillis()) {
+                entries.put(key, new Entry<>(value, expiresAtMillis));
+            } else {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes the key's entry, and keeps a load of the key that is already running from caching its result.
+     * @return true if an entry was removed or a running load was stopped from caching
+     */
+    public boolean invalidate(K key) {
+        synchronized (entries) {
+            Load<V> load = inFlight.get(key);
+            if (load != null) {
+                load.invalidated = true;
+            }
+            return entries.remove(key) != null || load != null;
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            inFlight.values().forEach(load -> load.invalidated = true);
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    public long getEvictions() { return evictions.get(); }
+    public long getExpirations() { return expirations.get(); }
+
+    private static <V> Loaded<V> await(CompletableFuture<Loaded<V>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Load<V> {
+        final CompletableFuture<Loaded<V>> future = new CompletableFuture<>();
+        // Guarded by the entries lock
+        boolean invalidated;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAtMillis;
+
+        Entry(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * A loader result together with the wall-clock time it stops being valid.
+     * An expiry in the past means the value is returned but not cached.
+     */
+    public static final class Loaded<V> {
+        final V value;
+        final long expiresAtMillis;
+
+        private Loaded(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public static <V> Loaded<V> until(V value, long expiresAtMillis) {
+            return new Loaded<>(value, expiresAtMillis);
+        }
+
+        public static <V> Loaded<V> uncached(V value) {
+            return new Loaded<>(value, 0L);
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.example.Card_Service_V2.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the role, id, sub and exp claims from a JWT payload without building a JSON tree. The payload is
+ * base64url-decoded into a per-thread buffer and a small tokenizer walks it, materializing only the claims
+ * we read and skipping everything else. The whole payload must be a single well-formed JSON object:
+ * trailing data and a second copy of any of the four claims are rejected, so a claim cannot be shadowed
+ * later in the token. Only the payload is checked here; callers that need integrity must verify the signature.
+ */
+public final class JwtClaimsDecoder {
+
+    /** Tokens longer than this are rejected before any decoding. */
+    public static final int MAX_TOKEN_LENGTH = 8192;
+
+    /** Containers nested deeper than this are rejected rather than walked. */
+    private static final int MAX_DEPTH = 64;
+
+    private static final byte[] BASE64URL = new byte[128];
+    private static final ThreadLocal<PayloadReader> READER = ThreadLocal.withInitial(PayloadReader::new);
+
+    private static final byte[] ROLE = "role".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUB = "sub".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID = "id".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EXP = "exp".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private JwtClaimsDecoder() {
+    }
+
+    /**
+     * Decodes the payload claims of a compact JWT.
+     * @return the claims, or null if the token is malformed
+     */
+    public static Claims decode(String token) {
+        if (token == null || token.length() > MAX_TOKEN_LENGTH) {
+            return null;
+        }
+        int firstDot = token.indexOf('.');
+        if (firstDot <= 0) {
+            return null;
+        }
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+        PayloadReader reader = READER.get();
+        try {
+            return reader.read(token, firstDot + 1, secondDot);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Per-thread decode buffer plus a cursor over it. Every reader method leaves {@code pos} just past what it
+     * consumed, or sets it to -1 once the payload is known to be malformed.
+     */
+    private static final class PayloadReader {
+        private static final int ROLE_CLAIM = 1;
+        private static final int SUB_CLAIM = 2;
+        private static final int ID_CLAIM = 4;
+        private static final int EXP_CLAIM = 8;
+
+        private byte[] buf = new byte[1024];
+        private int pos;
+        private int end;
+        /** Whether the last string skipped contained escapes. */
+        private boolean escaped;
+
+        Claims read(String token, int start, int stop) {
+            if (!decodeBase64(token, start, stop)) {
+                return null;
+            }
+            pos = 0;
+            return readClaims();
+        }
+
+        /**
+         * Decodes base64url, with or without padding, into the buffer.
+         * @return false if a character is outside the alphabet or the length is impossible
+         */
+        private boolean decodeBase64(String token, int start, int stop) {
+            int padding = 0;
+            while (stop > start && padding < 2 && token.charAt(stop - 1) == '=') {
+                stop--;
+                padding++;
+            }
+            int chars = stop - start;
+            if (chars % 4 == 1 || (padding > 0 && (chars + padding) % 4 != 0)) {
+                return false;
+            }
+            int needed = chars / 4 * 3 + 2;
+            if (buf.length < needed) {
+                buf = new byte[Integer.highestOneBit(needed) << 1];
+            }
+            byte[] out = buf;
+            int written = 0;
+            int i = start;
+            int fullGroupsEnd = start + (chars & ~3);
+            while (i < fullGroupsEnd) {
+                int a = sextet(token.charAt(i));
+                int b = sextet(token.charAt(i + 1));
+                int c = sextet(token.charAt(i + 2));
+                int d = sextet(token.charAt(i + 3));
+                if ((a | b | c | d) < 0) {
+                    return false;
+                }
+                int group = (a << 18) | (b << 12) | (c << 6) | d;
+                out[written] = (byte) (group >> 16);
+                out[written + 1] = (byte) (group >> 8);
+                out[written + 2] = (byte) group;
+                written += 3;
+                i += 4;
+            }
+            int remaining = stop - i;
+            if (remaining > 0) {
+                int a = sextet(token.charAt(i));
+                int b = sextet(token.charAt(i + 1));
+                int c = remaining == 3 ? sextet(token.charAt(i + 2)) : 0;
+                if ((a | b | c) < 0) {
+                    return false;
+                }
+                int group = (a << 18) | (b << 12) | (c << 6);
+                out[written++] = (byte) (group >> 16);
+                if (remaining == 3) {
+                    out[written++] = (byte) (group >> 8);
+                }
+            }
+            end = written;
+            return true;
+        }
+
+        /** The 6-bit value of a base64url character, or -1 if it is not one. */
+        private static int sextet(char c) {
+            return c < 128 ? BASE64URL[c] : -1;
+        }
+
+        /**
+         * Reads the top-level object through to the end of the payload.
+         * @return the claims, or null if the payload is malformed, repeats a claim or has anything after the object
+         */
+        private Claims readClaims() {
+            String role = null;
+            String subject = null;
+            Integer userId = null;
+            Long expiresAt = null;
+            int seen = 0;
+
+            skipWhitespace();
+            if (!consume('{')) {
+                return null;
+            }
+            skipWhitespace();
+            if (!consume('}')) {
+                do {
+                    skipWhitespace();
+                    if (!consume('"')) {
+                        return null;
+                    }
+                    int keyStart = pos;
+                    if (!skipStringBody()) {
+                        return null;
+                    }
+                    int claim = claimOf(keyStart, pos - 1);
+                    skipWhitespace();
+                    if (!consume(':')) {
+                        return null;
+                    }
+                    skipWhitespace();
+                    if ((seen & claim) != 0) {
+                        return null;
+                    }
+                    seen |= claim;
+
+                    if (claim == ROLE_CLAIM) {
+                        role = readStringOrSkip();
+                    } else if (claim == SUB_CLAIM) {
+                        subject = readStringOrSkip();
+                    } else if (claim == ID_CLAIM) {
+                        userId = readUserId();
+                    } else if (claim == EXP_CLAIM) {
+                        expiresAt = readLongOrSkip();
+                    } else if (!skipValue(0)) {
+                        return null;
+                    }
+                    if (pos < 0) {
+                        return null;
+                    }
+                    skipWhitespace();
+                } while (consume(','));
+                if (!consume('}')) {
+                    return null;
+                }
+            }
+            skipWhitespace();
+            return pos == end ? new Claims(role, userId, subject, expiresAt) : null;
+        }
+
+        /**
+         * Which of the four claims the key between start and the closing quote names, or 0 for any other key.
+         */
+        private int claimOf(int start, int closingQuote) {
+            if (escaped) {
+                // Issuers do not escape these names, but another parser would still read "role" as role
+                String key = unescape(start, closingQuote);
+                return key.equals("role") ? ROLE_CLAIM : key.equals("sub") ? SUB_CLAIM
+                    : key.equals("id") ? ID_CLAIM : key.equals("exp") ? EXP_CLAIM : 0;
+            }
+            int length = closingQuote - start;
+            return keyEquals(start, length, ROLE) ? ROLE_CLAIM : keyEquals(start, length, SUB) ? SUB_CLAIM
+                : keyEquals(start, length, ID) ? ID_CLAIM : keyEquals(start, length, EXP) ? EXP_CLAIM : 0;
+        }
+
+        private boolean keyEquals(int start, int length, byte[] name) {
+            if (length != name.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buf[start + i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String readStringOrSkip() {
+            if (!available() || buf[pos] != '"') {
+                return skipValue(0) ? null : fail();
+            }
+            int start = ++pos;
+            if (!skipStringBody()) {
+                return fail();
+            }
+            return escaped ? unescape(start, pos - 1) : new String(buf, start, pos - 1 - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Auth servers write the id either as a number or as a numeric string.
+         */
+        private Integer readUserId() {
+            if (available() && buf[pos] == '"') {
+                String text = readStringOrSkip();
+                try {
+                    return text != null ? Integer.valueOf(text) : null;
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            Long value = readLongOrSkip();
+            return value != null && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? value.intValue() : null;
+        }
+
+        /**
+         * An integral number, dropping any fractional part. Other value types, exponents and numbers beyond
+         * 18 digits read as absent.
+         */
+        private Long readLongOrSkip() {
+            if (!available() || (buf[pos] != '-' && (buf[pos] < '0' || buf[pos] > '9'))) {
+                return skipValue(0) ? null : fail();
+            }
+            int start = pos;
+            if (!skipNumber()) {
+                return fail();
+            }
+            int i = start;
+            boolean negative = buf[i] == '-';
+            if (negative) {
+                i++;
+            }
+            long value = 0;
+            int digits = 0;
+            for (; i < pos && buf[i] >= '0' && buf[i] <= '9'; i++) {
+                if (++digits > 18) {
+                    return null;
+                }
+                value = value * 10 + (buf[i] - '0');
+            }
+            for (int j = i; j < pos; j++) {
+                if (buf[j] == 'e' || buf[j] == 'E') {
+                    return null;
+                }
+            }
+            return negative ? -value : value;
+        }
+
+        private boolean skipValue(int depth) {
+            if (!available()) {
+                return false;
+            }
+            byte b = buf[pos];
+            if (b == '"') {
+                pos++;
+                return skipStringBody();
+            }
+            if (b == '{') {
+                return skipObject(depth + 1);
+            }
+            if (b == '[') {
+                return skipArray(depth + 1);
+            }
+            if (b == '-' || (b >= '0' && b <= '9')) {
+                return skipNumber();
+            }
+            return skipLiteral("true") || skipLiteral("false") || skipLiteral("null");
+        }
+
+        private boolean skipObject(int depth) {
+            if (depth > MAX_DEPTH) {
+                return false;
+            }
+            pos++;
+            skipWhitespace();
+            if (consume('}')) {
+                return true;
+            }
+            do {
+                skipWhitespace();
+                if (!consume('"') || !skipStringBody()) {
+                    return false;
+                }
+                skipWhitespace();
+                if (!consume(':')) {
+                    return false;
+                }
+                skipWhitespace();
+                if (!skipValue(depth)) {
+                    return false;
+                }
+                skipWhitespace();
+            } while (consume(','));
+            return consume('}');
+        }
+
+        private boolean skipArray(int depth) {
+            if (depth > MAX_DEPTH) {
+                return false;
+            }
+            pos++;
+            skipWhitespace();
+            if (consume(']')) {
+                return true;
+            }
+            do {
+                skipWhitespace();
+                if (!skipValue(depth)) {
+                    return false;
+                }
+                skipWhitespace();
+            } while (consume(','));
+            return consume(']');
+        }
+
+        /**
+         * Skips to just past the closing quote; the opening quote has already been consumed. Rejects raw control
+         * characters and escapes JSON does not define, and records in {@code escaped} whether there were any escapes.
+         */
+        private boolean skipStringBody() {
+            escaped = false;
+            byte[] b = buf;
+            int p = pos;
+            while (p < end) {
+                byte c = b[p++];
+                if (c == '"') {
+                    pos = p;
+                    return true;
+                }
+                if (c >= 0 && c < 0x20) {
+                    return false;
+                }
+                if (c == '\\') {
+                    if (p >= end) {
+                        return false;
+                    }
+                    escaped = true;
+                    byte e = b[p++];
+                    if (e == 'u') {
+                        if (p + 4 > end) {
+                            return false;
+                        }
+                        for (int i = 0; i < 4; i++) {
+                            if (Character.digit(b[p++], 16) < 0) {
+                                return false;
+                            }
+                        }
+                    } else if (e != '"' && e != '\\' && e != '/' && e != 'b' && e != 'f' && e != 'n' && e != 'r' && e != 't') {
+                        return false;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /** Skips a number as JSON defines it: no leading zeros, plus sign, bare dot or bare exponent. */
+        private boolean skipNumber() {
+            consume('-');
+            if (consume('0')) {
+                // A leading zero stands alone
+            } else if (!skipDigits()) {
+                return false;
+            }
+            if (consume('.') && !skipDigits()) {
+                return false;
+            }
+            if (consume('e') || consume('E')) {
+                if (!consume('+')) {
+                    consume('-');
+                }
+                return skipDigits();
+            }
+            return true;
+        }
+
+        /** @return false if there was no digit */
+        private boolean skipDigits() {
+            int start = pos;
+            while (available() && buf[pos] >= '0' && buf[pos] <= '9') {
+                pos++;
+            }
+            return pos > start;
+        }
+
+        private boolean skipLiteral(String literal) {
+            if (end - pos < literal.length()) {
+                return false;
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (buf[pos + i] != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += literal.length();
+            return true;
+        }
+
+        private void skipWhitespace() {
+            while (available() && (buf[pos] == ' ' || buf[pos] == '\n' || buf[pos] == '\r' || buf[pos] == '\t')) {
+                pos++;
+            }
+        }
+
+        private boolean available() {
+            return pos >= 0 && pos < end;
+        }
+
+        private boolean consume(char expected) {
+            if (available() && buf[pos] == expected) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        /** Marks the payload as malformed; readClaims checks pos after every value. */
+        private <T> T fail() {
+            pos = -1;
+            return null;
+        }
+
+        /**
+         * Decodes the string between start and the closing quote, which skipStringBody has already validated.
+         */
+        private String unescape(int start, int closingQuote) {
+            StringBuilder out = new StringBuilder(closingQuote - start);
+            int run = start;
+            int i = start;
+            while (i < closingQuote) {
+                if (buf[i] != '\\') {
+                    i++;
+                    continue;
+                }
+                out.append(new String(buf, run, i - run, StandardCharsets.UTF_8));
+                byte e = buf[i + 1];
+                i += 2;
+                switch (e) {
+                    case 'n': out.append('\n'); break;
+                    case 't': out.append('\t'); break;
+                    case 'r': out.append('\r'); break;
+                    case 'b': out.append('\b'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'u':
+                        out.append((char) Integer.parseInt(new String(buf, i, 4, StandardCharsets.US_ASCII), 16));
+                        i += 4;
+                        break;
+                    default: out.append((char) e);
+                }
+                run = i;
+            }
+            return out.append(new String(buf, run, closingQuote - run, StandardCharsets.UTF_8)).toString();
+        }
+    }
+
+    /**
+     * The claims this service cares about. Any of them may be null if absent from the token.
+     */
+    public static final class Claims {
+        private final String role;
+        private final Integer userId;
+        private final String subject;
+        private final Long expiresAt;
+
+        public Claims(String role, Integer userId, String subject, Long expiresAt) {
+            this.role = role;
+            this.userId = userId;
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getRole() { return role; }
+        public Integer getUserId() { return userId; }
+        public String getSubject() { return subject; }
+
+        /** Expiry as epoch seconds. */
+        public Long getExpiresAt() { return expiresAt; }
+
+        public boolean isExpired(long nowEpochSeconds) {
+            return expiresAt != null && expiresAt < nowEpochSeconds;
+        }
+    }
+}
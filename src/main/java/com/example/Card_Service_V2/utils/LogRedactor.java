@@ -0,0 +1,226 @@
+package com.example.Card_Service_V2.utils;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Masks card data and credentials in log text before it is written.
+ * Card numbers (13-19 digits, optionally grouped with spaces or dashes) keep only their last four digits;
+ * PIN, CVV, password and token values ({@code key=value}, {@code key: value}, {@code "key":"value"}),
+ * bearer credentials and JWTs are replaced entirely.
+ * Single pass without regular expressions; text with nothing to mask is returned as is, without copying.
+ */
+public final class LogRedactor {
+
+    public static final String REDACTED = "[REDACTED]";
+
+    private static final int PAN_MIN_DIGITS = 13;
+    private static final int PAN_MAX_DIGITS = 19;
+    private static final int PAN_VISIBLE_DIGITS = 4;
+    private static final String BEARER = "bearer";
+    private static final String JWT_PREFIX = "eyJ";
+
+    private static final Set<String> SECRET_KEYS = Set.of(
+        "pin", "cardpin", "card_pin", "cvv", "cardcvv", "card_cvv", "cvc", "password", "secret",
+        "token", "access_token", "refresh_token", "id_token", "authorization");
+    private static final int MAX_KEY_LENGTH = 13;
+
+    private LogRedactor() {
+    }
+
+    public static String redact(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        StringBuilder out = null;
+        int copied = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            int valueStart = -1;
+            int valueEnd = -1;
+            String replacement = REDACTED;
+
+            if (c == '=' || c == ':') {
+                if (isSecretKeyBefore(text, i)) {
+                    valueStart = skipValuePrefix(text, i + 1);
+                    valueEnd = valueEnd(text, valueStart);
+                }
+            } else if (isDigit(c) && atWordStart(text, i)) {
+                int end = cardNumberEnd(text, i);
+                if (end > 0) {
+                    out = ensureBuilder(out, text);
+                    out.append(text, copied, i);
+                    appendMaskedCardNumber(out, text, i, end);
+                    copied = i = end;
+                    continue;
+                }
+                i = skipDigitRun(text, i);
+                continue;
+            } else if ((c == 'b' || c == 'B') && atWordStart(text, i) && startsWithBearer(text, i)) {
+                valueStart = i;
+                valueEnd = valueEnd(text, skipWhitespace(text, i + BEARER.length()));
+                replacement = "Bearer " + REDACTED;
+            } else if (c == 'e' && atWordStart(text, i) && text.startsWith(JWT_PREFIX, i)) {
+                int end = jwtEnd(text, i);
+                if (end > 0) {
+                    valueStart = i;
+                    valueEnd = end;
+                }
+            }
+
+            if (valueEnd > valueStart) {
+                out = ensureBuilder(out, text);
+                out.append(text, copied, valueStart).append(replacement);
+                copied = i = valueEnd;
+            } else {
+                i++;
+            }
+        }
+        if (out == null) {
+            return text;
+        }
+        return out.append(text, copied, length).toString();
+    }
+
+    private static StringBuilder ensureBuilder(StringBuilder out, String text) {
+        return out != null ? out : new StringBuilder(text.length() + 16);
+    }
+
+    /** Whether the word before a '=' or ':' (skipping a closing quote and spaces) is a secret key. */
+    private static boolean isSecretKeyBefore(String text, int separator) {
+        int end = separator;
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end > 0 && (text.charAt(end - 1) == '"' || text.charAt(end - 1) == '\'')) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && end - start <= MAX_KEY_LENGTH && isWordChar(text.charAt(start - 1))) {
+            start--;
+        }
+        int keyLength = end - start;
+        if (keyLength < 3 || keyLength > MAX_KEY_LENGTH) {
+            return false;
+        }
+        return SECRET_KEYS.contains(text.substring(start, end).toLowerCase(Locale.ROOT));
+    }
+
+    /** Skips spaces, an opening quote and a "Bearer " scheme, returning where the secret value starts. */
+    private static int skipValuePrefix(String text, int from) {
+        int i = skipWhitespace(text, from);
+        if (i < text.length() && (text.charAt(i) == '"' || text.charAt(i) == '\'')) {
+            i++;
+        }
+        if (startsWithBearer(text, i)) {
+            i = skipWhitespace(text, i + BEARER.length());
+        }
+        return i;
+    }
+
+    private static int valueEnd(String text, int from) {
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == ',' || c == ';' || c == '&' || c == '"' || c == '\'' || c == '}' || c == ']') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean startsWithBearer(String text, int at) {
+        int after = at + BEARER.length();
+        return after < text.length() && text.regionMatches(true, at, BEARER, 0, BEARER.length())
+            && Character.isWhitespace(text.charAt(after));
+    }
+
+    /** End of a header.payload.signature token starting at {@code from}, or -1 if it is not one. */
+    private static int jwtEnd(String text, int from) {
+        int dots = 0;
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                dots++;
+            } else if (!isWordChar(c) && c != '-') {
+                break;
+            }
+            i++;
+        }
+        return dots == 2 ? i : -1;
+    }
+
+    /**
+     * End of a 13-19 digit card number starting at {@code from}, allowing single spaces or dashes
+     * between digits, or -1 if the digit run is not a card number.
+     */
+    private static int cardNumberEnd(String text, int from) {
+        int digits = 0;
+        int end = from;
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                digits++;
+                end = ++i;
+            } else if ((c == ' ' || c == '-') && i + 1 < text.length() && isDigit(text.charAt(i + 1))) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        boolean bounded = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+        return bounded && digits >= PAN_MIN_DIGITS && digits <= PAN_MAX_DIGITS ? end : -1;
+    }
+
+    private static void appendMaskedCardNumber(StringBuilder out, String text, int from, int end) {
+        int toMask = 0;
+        for (int i = from; i < end; i++) {
+            if (isDigit(text.charAt(i))) {
+                toMask++;
+            }
+        }
+        toMask -= PAN_VISIBLE_DIGITS;
+        for (int i = from; i < end; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c) && toMask > 0) {
+                out.append('*');
+                toMask--;
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    private static int skipDigitRun(String text, int from) {
+        int i = from;
+        while (i < text.length() && isDigit(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean atWordStart(String text, int at) {
+        return at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1)) && text.charAt(at - 1) != '_';
+    }
+
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || isDigit(c) || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,30 @@
+-- Runs after Hibernate has created/updated the tables (spring.jpa.defer-datasource-initialization)
+
+-- Pending cards awaiting activation; the partial index stays small because cards leave it once active
+CREATE INDEX IF NOT EXISTS idx_card_model_pending_created_at ON card_model (created_at) WHERE cardstatus = 'PENDING';
+
+-- Holder caps for the Gold and Platinum plans created before card_plan.max_holders existed
+UPDATE card_plan SET max_holders = 5 WHERE id = 2 AND name = 'Gold' AND max_holders IS NULL;
+UPDATE card_plan SET max_holders = 7 WHERE id = 3 AND name = 'Platinum' AND max_holders IS NULL;
+
+-- Lets plan_holder find whether a user still has a card on a plan without scanning the plan's cards
+CREATE INDEX IF NOT EXISTS idx_card_model_plan_user ON card_model (plan_id, userid);
+
+-- Version stamp of the card plan catalog; every change to card_plan increments it so all instances reload their copy
+CREATE TABLE IF NOT EXISTS card_plan_version (id INT PRIMARY KEY, version BIGINT NOT NULL);
+INSERT INTO card_plan_version (id, version) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+-- Plan assignment updates and seats all cards of an account in one statement
+CREATE INDEX IF NOT EXISTS idx_card_model_account_user ON card_model (accountid, userid);
+
+-- Card ids are allocated in blocks of 50 (allocationSize on CardModel and CardSensitiveData)
+ALTER SEQUENCE card_model_new_seq INCREMENT BY 50;
+-- card_sensitive_data ids used to come from an identity column; never hand out one of those again
+SELECT setval('card_sensitive_data_seq', GREATEST((SELECT last_value FROM card_sensitive_data_seq), (SELECT COALESCE(MAX(id), 0) FROM card_sensitive_data), 1));
+
+-- Scheduler leases expire at an instant; a plain timestamp compared with LOCALTIMESTAMP depended on each session's time zone
+ALTER TABLE scheduler_lease ALTER COLUMN lease_until TYPE TIMESTAMP WITH TIME ZONE;
+
+-- Card type and network used to be stored as sent ("Physical", " visa "); the duplicate checks compare the normalised form
+UPDATE card_model SET type = UPPER(TRIM(type)), network = UPPER(TRIM(network))
+WHERE type <> UPPER(TRIM(type)) OR network <> UPPER(TRIM(network));
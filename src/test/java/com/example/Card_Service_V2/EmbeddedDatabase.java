@@ -0,0 +1,80 @@
+package com.example.Card_Service_V2;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One embedded PostgreSQL per test JVM. Every caller gets a database of its own on it, so test classes
+ * (and the application contexts Spring caches for them) never see each other's rows.
+ *
+ * <pre>
+ * &#64;DynamicPropertySource
+ * static void database(DynamicPropertyRegistry registry) {
+ *     EmbeddedDatabase.register(registry);
+ * }
+ * </pre>
+ */
+public final class EmbeddedDatabase {
+
+	public static final String USERNAME = "postgres";
+	public static final String PASSWORD = "postgres";
+
+	private static final AtomicInteger databases = new AtomicInteger();
+	private static EmbeddedPostgres postgres;
+
+	private EmbeddedDatabase() {
+	}
+
+	/**
+	 * Creates a new database and points the application context's datasource at it.
+	 */
+	public static void register(DynamicPropertyRegistry registry) {
+		String url = create();
+		registry.add("spring.datasource.url", () -> url);
+		registry.add("spring.datasource.username", () -> USERNAME);
+		registry.add("spring.datasource.password", () -> PASSWORD);
+	}
+
+	/**
+	 * Creates a new, empty database.
+	 * @return its JDBC url
+	 */
+	public static String create() {
+		EmbeddedPostgres server = server();
+		String name = "test_" + databases.incrementAndGet();
+		try (Connection connection = server.getPostgresDatabase().getConnection();
+			 Statement statement = connection.createStatement()) {
+			statement.execute("CREATE DATABASE " + name);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not create test database " + name, e);
+		}
+		return server.getJdbcUrl(USERNAME, name);
+	}
+
+	private static synchronized EmbeddedPostgres server() {
+		if (postgres == null) {
+			try {
+				postgres = EmbeddedPostgres.builder().start();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+			}
+			EmbeddedPostgres started = postgres;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					started.close();
+				} catch (IOException ignored) {
+					// The JVM is exiting anyway
+				}
+			}, "embedded-postgres-shutdown"));
+		}
+		return postgres;
+	}
+
+}
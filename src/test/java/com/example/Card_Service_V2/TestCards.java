@@ -0,0 +1,37 @@
+package com.example.Card_Service_V2;
+
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Inserts cards straight into the database, with ids from the same sequences the application uses.
+ */
+public final class TestCards {
+
+	public static final String PIN = "1234";
+	public static final String CVV = "123";
+
+	private TestCards() {
+	}
+
+	/**
+	 * An active Silver card with PIN {@link #PIN} and CVV {@link #CVV}, created 30 days ago.
+	 * @return the card id
+	 */
+	public static int insert(JdbcTemplate jdbc, CardFingerprintUtil fingerprintUtil, String cardNumber, int userId, int accountId) {
+		Integer planId = jdbc.queryForObject("SELECT id FROM card_plan WHERE name = 'Silver'", Integer.class);
+		Integer sensitiveId = jdbc.queryForObject("SELECT nextval('card_sensitive_data_seq')::int", Integer.class);
+		Integer cardId = jdbc.queryForObject("SELECT nextval('card_model_new_seq')::int", Integer.class);
+		jdbc.update("INSERT INTO card_sensitive_data (id, card_number, card_number_fingerprint, card_cvv, card_pin, card_expiry) " +
+			"VALUES (?, ?, ?, ?, ?, ?)", sensitiveId, cardNumber, fingerprintUtil.fingerprint(cardNumber), CVV, PIN, "12/29");
+		jdbc.update("INSERT INTO card_model (id, userid, accountid, network, type, created_at, cardstatus, currency, " +
+			"card_last4, card_expiry, sensitive_data_id, plan_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+			cardId, userId, accountId, "VISA", "VIRTUAL", Timestamp.valueOf(LocalDateTime.now().minusDays(30)),
+			"ACTIVE", "PKR", cardNumber.substring(cardNumber.length() - 4), "12/29", sensitiveId, planId);
+		return cardId;
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.example.Card_Service_V2.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the downstream clients against a local stub server.
+ */
+class RestTemplateConfigTests {
+
+	private static final int CONNECT_TIMEOUT_MS = 500;
+	private static final int READ_TIMEOUT_MS = 300;
+
+	private HttpServer stub;
+	private ExecutorService stubThreads;
+	private String baseUrl;
+	// Client-side ports of the connections the stub has served, one per TCP connection
+	private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+	private final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+	@BeforeEach
+	void startStub() throws IOException {
+		stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		stub.createContext("/fast", exchange -> {
+			clientPorts.add(exchange.getRemoteAddress().getPort());
+			respond(exchange, "{\"ok\":true}");
+		});
+		stub.createContext("/slow", exchange -> {
+			clientPorts.add(exchange.getRemoteAddress().getPort());
+			try {
+				releaseSlow.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, "{\"ok\":true}");
+		});
+		stubThreads = Executors.newCachedThreadPool();
+		stub.setExecutor(stubThreads);
+		stub.start();
+		baseUrl = "http://127.0.0.1:" + stub.getAddress().getPort();
+	}
+
+	@AfterEach
+	void stopStub() {
+		releaseSlow.countDown();
+		stub.stop(0);
+		stubThreads.shutdownNow();
+	}
+
+	@Test
+	void sequentialCallsReuseOnePooledConnection() {
+		RestTemplate client = client(10, READ_TIMEOUT_MS);
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(client.getForObject(baseUrl + "/fast", String.class)).contains("ok");
+		}
+
+		assertThat(clientPorts).hasSize(1);
+	}
+
+	@Test
+	void slowResponseFailsAfterTheReadTimeout() {
+		RestTemplate client = client(10, READ_TIMEOUT_MS);
+
+		long start = System.nanoTime();
+		assertThatThrownBy(() -> client.getForObject(baseUrl + "/slow", String.class))
+			.isInstanceOf(ResourceAccessException.class);
+
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertThat(elapsedMs).isGreaterThanOrEqualTo(READ_TIMEOUT_MS - 50).isLessThan(5000);
+	}
+
+	@Test
+	void callFailsWhenEveryPooledConnectionIsBusy() throws Exception {
+		// A read timeout long enough that the slow call keeps its connection for the whole test
+		RestTemplate busy = client(1, 10_000);
+		// Holds the only connection until the stub is released
+		CompletableFuture<String> holding = CompletableFuture.supplyAsync(() -> busy.getForObject(baseUrl + "/slow", String.class));
+		while (clientPorts.isEmpty()) {
+			Thread.sleep(10);
+		}
+
+		long start = System.nanoTime();
+		assertThatThrownBy(() -> busy.getForObject(baseUrl + "/fast", String.class))
+			.isInstanceOf(ResourceAccessException.class);
+
+		// Waiting for a pooled connection is bounded by the connect timeout, not left open-ended
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertThat(elapsedMs).isLessThan(5000);
+		assertThat(clientPorts).hasSize(1);
+		releaseSlow.countDown();
+		assertThat(holding.get(10, TimeUnit.SECONDS)).contains("ok");
+	}
+
+	private static RestTemplate client(int maxConnections, int readTimeoutMs) {
+		return new RestTemplateConfig().authRestTemplate(new SimpleMeterRegistry(), maxConnections, 30,
+			CONNECT_TIMEOUT_MS, readTimeoutMs);
+	}
+
+	private static void respond(HttpExchange exchange, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.example.Card_Service_V2.controllers;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.TestCards;
+import com.example.Card_Service_V2.utils.AuthUtils;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every authenticated endpoint validates its bearer token exactly once per request, whether the interceptor,
+ * AuthUtils or the card creation pipeline does it. The real auth client calls a stub auth service, with the token
+ * cache turned off so that every validation reaches it.
+ */
+@SpringBootTest(properties = {
+	"auth.token-cache.ttl-seconds=0",
+	"auth.token-cache.negative-ttl-seconds=0"
+})
+@AutoConfigureMockMvc
+class CardControllerAuthTests {
+
+	private static final int USER_ID = 801;
+	private static final int ACCOUNT_ID = 901;
+	private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]*)\"");
+
+	private static final AtomicInteger accountLookups = new AtomicInteger();
+	private static final AtomicInteger tokenValidations = new AtomicInteger();
+	private static HttpServer stub;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+		registry.add("accounts.service.url", () -> "http://127.0.0.1:" + stub().getAddress().getPort());
+		registry.add("auth.service.base.url", () -> "http://127.0.0.1:" + stub().getAddress().getPort() + "/api/v1/auth");
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private CardFingerprintUtil fingerprintUtil;
+
+	private int cardId;
+
+	@BeforeEach
+	void setUp() {
+		jdbc.update("DELETE FROM card_model");
+		jdbc.update("DELETE FROM card_sensitive_data");
+		cardId = TestCards.insert(jdbc, fingerprintUtil, "4000000000000902", USER_ID, ACCOUNT_ID);
+		accountLookups.set(0);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		if (stub != null) {
+			stub.stop(0);
+		}
+	}
+
+	@Test
+	void cardReadsValidateOnce() throws Exception {
+		assertOneValidation(get("/api/v1/cards"), "user", status().isOk());
+		assertOneValidation(get("/api/v1/cards").param("limit", "10"), "admin", status().isOk());
+		assertOneValidation(get("/api/v1/cards/{userId}/verify/{cardNumber}", USER_ID, "4000000000000902"), "user", status().isOk());
+		assertOneValidation(get("/api/v1/cards/{cardId}", cardId), "user", status().isOk());
+		assertOneValidation(get("/api/v1/cards/number/{cardId}", cardId), "user", status().isOk());
+		assertOneValidation(get("/api/v1/cards/cvv/{cardId}", cardId), "user", status().isOk());
+	}
+
+	@Test
+	void cardChangesValidateOnce() throws Exception {
+		assertOneValidation(put("/api/v1/cards/{cardId}/block", cardId), "admin", status().isOk());
+		assertOneValidation(put("/api/v1/cards/{cardId}/unblock", cardId), "admin", status().isOk());
+		assertOneValidation(put("/api/v1/cards/{cardId}/block", cardId), "user", status().isForbidden());
+	}
+
+	@Test
+	void endpointsOutsideTheInterceptorValidateOnce() throws Exception {
+		assertOneValidation(post("/api/v1/card-plans").contentType(MediaType.APPLICATION_JSON).content("{}"),
+			"user", status().isForbidden());
+		assertOneValidation(post("/api/v1/card-plans/assign").contentType(MediaType.APPLICATION_JSON).content("{}"),
+			"admin", status().isBadRequest());
+		assertOneValidation(get("/api/v1/cards/admin/token-cache"), "admin", status().isOk());
+	}
+
+	@Test
+	void cardCreationValidatesOnceBeforeLookingUpTheAccount() throws Exception {
+		// The seeded card is virtual, so a physical one is not a duplicate
+		String body = "{\"type\":\"Physical\",\"network\":\"Visa\",\"cardPin\":\"4826\",\"title\":\"Travel Card\"}";
+
+		assertOneValidation(post("/api/v1/cards").contentType(MediaType.APPLICATION_JSON).content(body),
+			"user", status().isOk());
+		assertThat(accountLookups).hasValue(1);
+	}
+
+	@Test
+	void rejectedCardCreationNeverReachesTheAccountsService() throws Exception {
+		String valid = "{\"type\":\"Virtual\",\"network\":\"Visa\",\"cardPin\":\"4826\",\"title\":\"Travel Card\"}";
+		String invalid = "{\"type\":\"Virtual\",\"network\":\"Visa\",\"cardPin\":\"48\",\"title\":\"Travel Card\"}";
+
+		assertOneValidation(post("/api/v1/cards").contentType(MediaType.APPLICATION_JSON).content(valid),
+			"revoked", status().isUnauthorized());
+		assertOneValidation(post("/api/v1/cards").contentType(MediaType.APPLICATION_JSON).content(invalid),
+			"user", status().isBadRequest());
+		assertThat(accountLookups).hasValue(0);
+	}
+
+	private void assertOneValidation(MockHttpServletRequestBuilder request, String token, ResultMatcher expectedStatus)
+			throws Exception {
+		tokenValidations.set(0);
+		MvcResult result = mockMvc.perform(request.header("Authorization", "Bearer " + token))
+			.andExpect(expectedStatus)
+			.andReturn();
+		assertThat(tokenValidations).as("calls to the auth service").hasValue(1);
+		assertThat(AuthUtils.getValidationCallCount(result.getRequest())).isEqualTo(1);
+	}
+
+	private static String principal(String token) {
+		switch (token) {
+			case "admin":
+				return "{\"valid\":true,\"message\":\"Token is valid\",\"role\":\"ADMIN\",\"userId\":1,"
+					+ "\"username\":\"admin\",\"hasPermission\":true}";
+			case "user":
+				return "{\"valid\":true,\"message\":\"Token is valid\",\"role\":\"USER\",\"userId\":" + USER_ID + ","
+					+ "\"username\":\"user\",\"hasPermission\":true}";
+			default:
+				return "{\"valid\":false,\"message\":\"Token revoked\",\"hasPermission\":false}";
+		}
+	}
+
+	/**
+	 * The auth service's /validate-simple and the accounts service's /by-token on one local server.
+	 */
+	private static synchronized HttpServer stub() {
+		if (stub == null) {
+			try {
+				stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			stub.createContext("/api/v1/auth/validate-simple", exchange -> {
+				tokenValidations.incrementAndGet();
+				Matcher token = TOKEN.matcher(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+				respond(exchange, principal(token.find() ? token.group(1) : ""));
+			});
+			stub.createContext("/api/v1/accounts/by-token", exchange -> {
+				accountLookups.incrementAndGet();
+				respond(exchange, "{\"accountId\":" + ACCOUNT_ID + ",\"userId\":" + USER_ID
+					+ ",\"status\":\"ACTIVE\",\"currency\":\"PKR\"}");
+			});
+			stub.start();
+		}
+		return stub;
+	}
+
+	private static void respond(HttpExchange exchange, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+}
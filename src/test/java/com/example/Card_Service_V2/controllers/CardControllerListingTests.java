@@ -0,0 +1,110 @@
+package com.example.Card_Service_V2.controllers;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.TestCards;
+import com.example.Card_Service_V2.services.AuthServiceClient;
+import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The unpaged admin listing stops at the maximum page size instead of building every card.
+ */
+@SpringBootTest(properties = "card.listing.max-page-size=5")
+@AutoConfigureMockMvc
+class CardControllerListingTests {
+
+	private static final int USER_ID = 601;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@MockitoBean
+	private AuthServiceClient authServiceClient;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private CardFingerprintUtil fingerprintUtil;
+
+	private final int[] cardIds = new int[7];
+
+	@BeforeEach
+	void setUp() {
+		when(authServiceClient.validateTokenOnly(anyString()))
+			.thenReturn(new TokenValidationResponse(true, "Token is valid", "ADMIN", 1, "admin", true));
+		jdbc.update("DELETE FROM card_model");
+		jdbc.update("DELETE FROM card_sensitive_data");
+		for (int i = 0; i < cardIds.length; i++) {
+			// The last two cards belong to another user
+			cardIds[i] = TestCards.insert(jdbc, fingerprintUtil, String.format("4%015d", 600_000_000_000_000L + i),
+				i < 5 ? USER_ID : USER_ID + 1, USER_ID);
+		}
+	}
+
+	@Test
+	void unpagedAdminListingStopsAtTheMaximumPageSize() throws Exception {
+		MockHttpServletResponse response = list(get("/api/v1/cards"));
+		JsonNode cards = objectMapper.readTree(response.getContentAsString());
+
+		assertThat(cards.isArray()).isTrue();
+		assertThat(cards).hasSize(5);
+		assertThat(cards.get(4).get("cardId").asInt()).isEqualTo(cardIds[4]);
+		assertThat(response.getHeader(CardController.NEXT_CURSOR_HEADER)).isEqualTo(String.valueOf(cardIds[4]));
+	}
+
+	@Test
+	void nextCursorContinuesTheListing() throws Exception {
+		String cursor = list(get("/api/v1/cards")).getHeader(CardController.NEXT_CURSOR_HEADER);
+
+		JsonNode page = objectMapper.readTree(list(get("/api/v1/cards").param("after", cursor)).getContentAsString());
+
+		assertThat(page.get("cards")).hasSize(2);
+		assertThat(page.get("cards").get(0).get("cardId").asInt()).isEqualTo(cardIds[5]);
+		assertThat(page.get("nextCursor").isNull()).isTrue();
+	}
+
+	@Test
+	void listingThatFitsHasNoCursor() throws Exception {
+		MockHttpServletResponse response = list(get("/api/v1/cards").param("userId", String.valueOf(USER_ID + 1)));
+
+		assertThat(objectMapper.readTree(response.getContentAsString())).hasSize(2);
+		assertThat(response.getHeader(CardController.NEXT_CURSOR_HEADER)).isNull();
+	}
+
+	private MockHttpServletResponse list(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(request.header("Authorization", "Bearer admin"))
+			.andExpect(status().isOk())
+			.andReturn()
+			.getResponse();
+	}
+
+}
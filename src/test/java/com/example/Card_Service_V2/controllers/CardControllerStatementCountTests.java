@@ -0,0 +1,199 @@
+package com.example.Card_Service_V2.controllers;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.TestCards;
+import com.example.Card_Service_V2.services.AuthServiceClient;
+import com.example.Card_Service_V2.services.CardPlanCatalog;
+import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements Hibernate prepares per endpoint, so a lazy association touched per row
+ * (an N+1) fails the build instead of showing up in production latency.
+ */
+@SpringBootTest(properties = {
+	"spring.jpa.properties.hibernate.generate_statistics=true",
+	// Nothing but the request under test may run statements while it is counted
+	"card.plans.catalog.refresh-ms=3600000",
+	"card.metrics.status-refresh-ms=3600000",
+	"card.pan.pool-size=0"
+})
+@AutoConfigureMockMvc
+class CardControllerStatementCountTests {
+
+	private static final int USER_ID = 701;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@MockitoBean
+	private AuthServiceClient authServiceClient;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private CardFingerprintUtil fingerprintUtil;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ScheduledTaskHolder scheduledTasks;
+
+	@Autowired
+	private CardPlanCatalog planCatalog;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		scheduledTasks.getScheduledTasks().forEach(task -> task.cancel(false));
+		// The catalog loads on first use; that is not part of any request
+		planCatalog.getAll();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		when(authServiceClient.validateTokenOnly(anyString())).thenAnswer(invocation -> principal(invocation.getArgument(0)));
+		jdbc.update("DELETE FROM card_model");
+		jdbc.update("DELETE FROM card_sensitive_data");
+	}
+
+	@Test
+	void userListingIsOneStatementWhateverTheNumberOfCards() throws Exception {
+		seed(3);
+		long few = statements(get("/api/v1/cards").header("Authorization", "Bearer user"));
+		seed(30);
+		long many = statements(get("/api/v1/cards").header("Authorization", "Bearer user"));
+
+		assertThat(few).isEqualTo(1);
+		assertThat(many).isEqualTo(few);
+	}
+
+	@Test
+	void userListingPageIsOneStatement() throws Exception {
+		seed(30);
+
+		assertThat(statements(get("/api/v1/cards").param("limit", "10").header("Authorization", "Bearer user")))
+			.isEqualTo(1);
+	}
+
+	@Test
+	void adminListingsLoadNoEntities() throws Exception {
+		seed(30);
+
+		// Served from projection rows over JDBC, so Hibernate prepares nothing
+		assertThat(statements(get("/api/v1/cards").header("Authorization", "Bearer admin"))).isZero();
+		assertThat(statements(get("/api/v1/cards").param("limit", "10").header("Authorization", "Bearer admin"))).isZero();
+	}
+
+	@Test
+	void cardNumberReadIsOneStatement() throws Exception {
+		int cardId = seed(1)[0];
+
+		assertThat(statements(get("/api/v1/cards/number/{cardId}", cardId).header("Authorization", "Bearer user")))
+			.isEqualTo(1);
+	}
+
+	@Test
+	void blockReadsAndUpdatesTheCardOnce() throws Exception {
+		int cardId = seed(1)[0];
+
+		assertThat(statements(put("/api/v1/cards/{cardId}/block", cardId).header("Authorization", "Bearer admin")))
+			.isEqualTo(2);
+	}
+
+	@Test
+	void internalVerificationIsOneStatement() throws Exception {
+		seed(1);
+
+		assertThat(statements(post("/api/v1/cards/internal/verify").contentType(MediaType.APPLICATION_JSON)
+			.content(verification(cardNumber(0)))))
+			.isEqualTo(1);
+	}
+
+	@Test
+	void batchVerificationIsOneStatementWhateverTheBatchSize() throws Exception {
+		seed(20);
+		StringJoiner few = new StringJoiner(",", "[", "]");
+		StringJoiner many = new StringJoiner(",", "[", "]");
+		for (int i = 0; i < 20; i++) {
+			if (i < 2) {
+				few.add(verification(cardNumber(i)));
+			}
+			many.add(verification(cardNumber(i)));
+		}
+
+		long fewStatements = statements(post("/api/v1/cards/internal/verify/batch")
+			.contentType(MediaType.APPLICATION_JSON).content(few.toString()));
+		long manyStatements = statements(post("/api/v1/cards/internal/verify/batch")
+			.contentType(MediaType.APPLICATION_JSON).content(many.toString()));
+
+		assertThat(fewStatements).isEqualTo(1);
+		assertThat(manyStatements).isEqualTo(fewStatements);
+	}
+
+	private long statements(RequestBuilder request) throws Exception {
+		statistics.clear();
+		mockMvc.perform(request).andExpect(status().isOk());
+		assertThat(statistics.getEntityFetchCount()).as("lazy entity fetches").isZero();
+		assertThat(statistics.getCollectionFetchCount()).as("lazy collection fetches").isZero();
+		return statistics.getPrepareStatementCount();
+	}
+
+	/**
+	 * Adds cards for {@link #USER_ID}, numbered on from the cards already there.
+	 */
+	private int[] seed(int count) {
+		int existing = jdbc.queryForObject("SELECT COUNT(*) FROM card_model", Integer.class);
+		int[] ids = new int[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = TestCards.insert(jdbc, fingerprintUtil, cardNumber(existing + i), USER_ID, USER_ID);
+		}
+		return ids;
+	}
+
+	private static String cardNumber(int index) {
+		return String.format("4%015d", 200_000_000_000_000L + index);
+	}
+
+	private static String verification(String cardNumber) {
+		return "{\"cardNumber\":\"" + cardNumber + "\",\"cardPin\":\"" + TestCards.PIN + "\",\"accountId\":" + USER_ID + "}";
+	}
+
+	private static TokenValidationResponse principal(String token) {
+		return "admin".equals(token)
+			? new TokenValidationResponse(true, "Token is valid", "ADMIN", 1, "admin", true)
+			: new TokenValidationResponse(true, "Token is valid", "USER", USER_ID, "user", true);
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.example.Card_Service_V2.controllers;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.TestCards;
+import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.services.AuthServiceClient;
+import com.example.Card_Service_V2.services.CardPlanService;
+import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/v1/card-plans/assign/batch: 200 with the assignment result, 400 for a malformed or impossible request,
+ * 409 when the plan cannot seat every holder.
+ */
+@SpringBootTest(properties = "card.plans.assign.batch.max-size=3")
+@AutoConfigureMockMvc
+class CardPlanControllerTests {
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@MockitoBean
+	private AuthServiceClient authServiceClient;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CardPlanService cardPlanService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private CardFingerprintUtil fingerprintUtil;
+
+	@BeforeEach
+	void setUp() {
+		when(authServiceClient.validateTokenOnly(anyString())).thenAnswer(invocation -> "admin".equals(invocation.getArgument(0))
+			? new TokenValidationResponse(true, "Token is valid", "ADMIN", 1, "admin", true)
+			: new TokenValidationResponse(true, "Token is valid", "USER", 11, "user", true));
+		jdbc.update("DELETE FROM card_model");
+		jdbc.update("DELETE FROM card_sensitive_data");
+		jdbc.update("DELETE FROM plan_holder");
+		jdbc.update("UPDATE plan_occupancy SET holders = 0");
+		TestCards.insert(jdbc, fingerprintUtil, "4000000000000011", 11, 11);
+		TestCards.insert(jdbc, fingerprintUtil, "4000000000000012", 12, 12);
+	}
+
+	@Test
+	void assignsThePlanAndReportsAccountsWithoutCards() throws Exception {
+		CardPlan plan = cardPlanService.createPlan(plan("Batch endpoint", null));
+
+		assign("{\"accountIds\":[11,12,13],\"planId\":" + plan.getId() + "}", "admin")
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.planId").value(plan.getId()))
+			.andExpect(jsonPath("$.accountsUpdated").value(2))
+			.andExpect(jsonPath("$.cardsUpdated").value(2))
+			.andExpect(jsonPath("$.holdersAdded").value(2))
+			.andExpect(jsonPath("$.accountsWithoutCards[0]").value(13));
+	}
+
+	@Test
+	void fullPlanIsAConflict() throws Exception {
+		CardPlan plan = cardPlanService.createPlan(plan("Single seat", 1));
+
+		assign("{\"accountIds\":[11,12],\"planId\":" + plan.getId() + "}", "admin")
+			.andExpect(status().isConflict())
+			.andExpect(jsonPath("$.error").value("Plan " + plan.getId() + " (Single seat) can only be assigned to 1 users"));
+	}
+
+	@Test
+	void malformedOrImpossibleRequestsAreBadRequests() throws Exception {
+		CardPlan plan = cardPlanService.createPlan(plan("Bad requests", null));
+
+		assign("{\"accountIds\":[11]}", "admin")
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.error").value("accountIds (list) and planId are required"));
+		assign("{\"accountIds\":11,\"planId\":" + plan.getId() + "}", "admin")
+			.andExpect(status().isBadRequest());
+		assign("{\"accountIds\":[11,\"12\"],\"planId\":" + plan.getId() + "}", "admin")
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.error").value("accountIds must be integers"));
+		assign("{\"accountIds\":[],\"planId\":" + plan.getId() + "}", "admin")
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.error").value("accountIds must not be empty"));
+		assign("{\"accountIds\":[11,12,13,14],\"planId\":" + plan.getId() + "}", "admin")
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.error").value("Batch size exceeds maximum of 3"));
+		assign("{\"accountIds\":[11],\"planId\":" + Integer.MAX_VALUE + "}", "admin")
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.error").value("Plan not found"));
+	}
+
+	@Test
+	void onlyAdminsAssignPlans() throws Exception {
+		CardPlan plan = cardPlanService.createPlan(plan("Admins only", null));
+
+		assign("{\"accountIds\":[11],\"planId\":" + plan.getId() + "}", "user")
+			.andExpect(status().isForbidden());
+	}
+
+	private ResultActions assign(String body, String token) throws Exception {
+		return mockMvc.perform(post("/api/v1/card-plans/assign/batch")
+			.header("Authorization", "Bearer " + token)
+			.contentType(MediaType.APPLICATION_JSON)
+			.content(body));
+	}
+
+	private static CardPlan plan(String name, Integer maxHolders) {
+		CardPlan plan = new CardPlan(name, 100000, false, name + " test plan", 10000);
+		plan.setMaxHolders(maxHolders);
+		return plan;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.services.CardService.AccountInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountInfoCacheTests {
+
+	private final AccountInfoCache cache = new AccountInfoCache(100, 30);
+	private final AtomicInteger lookups = new AtomicInteger();
+
+	@Test
+	void usersShareNothingAndEachUsersLookupIsCached() {
+		AccountInfo alice = cache.get(1, "PKR", lookup(new AccountInfo(10, 1, "ACTIVE")));
+		AccountInfo bob = cache.get(2, "PKR", lookup(new AccountInfo(20, 2, "ACTIVE")));
+		AccountInfo aliceAgain = cache.get(1, "PKR", lookup(new AccountInfo(99, 1, "ACTIVE")));
+
+		assertThat(alice.id).isEqualTo(10);
+		assertThat(bob.id).isEqualTo(20);
+		assertThat(aliceAgain).isSameAs(alice);
+		assertThat(lookups).hasValue(2);
+	}
+
+	@Test
+	void currencyIsPartOfTheKey() {
+		cache.get(1, "PKR", lookup(new AccountInfo(10, 1, "ACTIVE")));
+		cache.get(1, "USD", lookup(new AccountInfo(11, 1, "ACTIVE")));
+		cache.get(1, null, lookup(new AccountInfo(12, 1, "ACTIVE")));
+		cache.get(1, "", lookup(new AccountInfo(13, 1, "ACTIVE")));
+
+		assertThat(lookups).hasValue(3);
+	}
+
+	@Test
+	void zeroTtlTurnsTheCacheOff() {
+		AccountInfoCache disabled = new AccountInfoCache(100, 0);
+
+		disabled.get(1, "PKR", lookup(new AccountInfo(10, 1, "ACTIVE")));
+		disabled.get(1, "PKR", lookup(new AccountInfo(10, 1, "ACTIVE")));
+
+		assertThat(lookups).hasValue(2);
+	}
+
+	private Supplier<AccountInfo> lookup(AccountInfo answer) {
+		return () -> {
+			lookups.incrementAndGet();
+			return answer;
+		};
+	}
+
+}
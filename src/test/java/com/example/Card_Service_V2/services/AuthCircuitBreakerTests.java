@@ -0,0 +1,127 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.services.AuthCircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthCircuitBreakerTests {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(1500);
+	private static final long OPEN_MS = 200;
+
+	@Test
+	void opensOnceTheFailureRateReachesTheThreshold() {
+		// 50% failures over at least 4 of the last 10 calls
+		AuthCircuitBreaker breaker = new AuthCircuitBreaker(10, 4, 50, 1000, 80, 60_000, 2);
+
+		breaker.onFailure(FAST);
+		breaker.onFailure(FAST);
+		breaker.onSuccess(FAST);
+		assertThat(breaker.getState()).as("fewer calls than the minimum").isEqualTo(State.CLOSED);
+		breaker.onSuccess(FAST);
+		assertThat(breaker.getState()).as("2 of 4 failed").isEqualTo(State.OPEN);
+		assertThat(breaker.tryAcquirePermission()).isFalse();
+	}
+
+	@Test
+	void staysClosedBelowTheFailureRate() {
+		AuthCircuitBreaker breaker = new AuthCircuitBreaker(10, 4, 50, 1000, 80, 60_000, 2);
+
+		for (int i = 0; i < 20; i++) {
+			breaker.onSuccess(FAST);
+			breaker.onSuccess(FAST);
+			breaker.onFailure(FAST);
+		}
+
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+		assertThat(breaker.tryAcquirePermission()).isTrue();
+	}
+
+	@Test
+	void opensOnceTheSlowCallRateReachesTheThreshold() {
+		// 80% of calls slower than 1 s, even though they all succeed
+		AuthCircuitBreaker breaker = new AuthCircuitBreaker(10, 4, 50, 1000, 80, 60_000, 2);
+
+		breaker.onSuccess(FAST);
+		breaker.onSuccess(SLOW);
+		breaker.onSuccess(SLOW);
+		breaker.onSuccess(SLOW);
+		assertThat(breaker.getState()).as("3 of 4 slow").isEqualTo(State.CLOSED);
+		breaker.onSuccess(SLOW);
+		assertThat(breaker.getState()).as("4 of 5 slow").isEqualTo(State.OPEN);
+		assertThat(breaker.tryAcquirePermission()).isFalse();
+	}
+
+	@Test
+	void letsALimitedNumberOfProbesThroughOnceTheOpenPeriodEnds() throws InterruptedException {
+		AuthCircuitBreaker breaker = opened();
+		assertThat(breaker.tryAcquirePermission()).isFalse();
+
+		Thread.sleep(OPEN_MS + 100);
+
+		assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+		assertThat(breaker.tryAcquirePermission()).isTrue();
+		assertThat(breaker.tryAcquirePermission()).isTrue();
+		assertThat(breaker.tryAcquirePermission()).as("only two probes").isFalse();
+	}
+
+	@Test
+	void successfulProbesCloseTheCircuitWithAnEmptyWindow() throws InterruptedException {
+		AuthCircuitBreaker breaker = opened();
+		Thread.sleep(OPEN_MS + 100);
+		breaker.tryAcquirePermission();
+		breaker.tryAcquirePermission();
+
+		breaker.onSuccess(FAST);
+		assertThat(breaker.getState()).as("one probe still running").isEqualTo(State.HALF_OPEN);
+		breaker.onSuccess(FAST);
+
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+		assertThat(breaker.tryAcquirePermission()).isTrue();
+		// The failures that opened it are forgotten; one more is below the minimum number of calls
+		breaker.onFailure(FAST);
+		assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void failedProbesOpenTheCircuitAgain() throws InterruptedException {
+		AuthCircuitBreaker breaker = opened();
+		Thread.sleep(OPEN_MS + 100);
+		breaker.tryAcquirePermission();
+		breaker.tryAcquirePermission();
+
+		breaker.onSuccess(FAST);
+		breaker.onFailure(FAST);
+
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+		assertThat(breaker.tryAcquirePermission()).isFalse();
+	}
+
+	@Test
+	void callsFinishingWhileOpenChangeNothing() {
+		AuthCircuitBreaker breaker = opened();
+
+		for (int i = 0; i < 10; i++) {
+			breaker.onSuccess(FAST);
+		}
+
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+		assertThat(breaker.tryAcquirePermission()).isFalse();
+	}
+
+	/**
+	 * A breaker over the last 4 calls (at least 2), opened by two failures, with two half-open probes.
+	 */
+	private static AuthCircuitBreaker opened() {
+		AuthCircuitBreaker breaker = new AuthCircuitBreaker(4, 2, 50, 1000, 80, OPEN_MS, 2);
+		breaker.onFailure(FAST);
+		breaker.onFailure(FAST);
+		assertThat(breaker.getState()).isEqualTo(State.OPEN);
+		return breaker;
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CardLookupBackfillServiceTests {
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Autowired
+	private CardLookupBackfillService backfillService;
+
+	@Autowired
+	private CardFingerprintUtil fingerprintUtil;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void duplicateCardNumbersAreReportedWithoutHoldingBackCompletion() {
+		int original = insertLegacyRow("4000000000000100");
+		int duplicate = insertLegacyRow("4000000000000100");
+		int other = insertLegacyRow("4000000000000118");
+
+		assertThat(backfillService.backfillFingerprints()).isEqualTo(2);
+
+		assertThat(backfillService.isFingerprintBackfillComplete()).isTrue();
+		assertThat(backfillService.getDuplicateCardNumberIds()).containsExactly(duplicate);
+		assertThat(fingerprintOf(original)).isEqualTo(fingerprintUtil.fingerprint("4000000000000100"));
+		assertThat(fingerprintOf(duplicate)).isNull();
+		assertThat(fingerprintOf(other)).isEqualTo(fingerprintUtil.fingerprint("4000000000000118"));
+	}
+
+	/**
+	 * A card row written before fingerprints existed.
+	 */
+	private int insertLegacyRow(String cardNumber) {
+		Integer id = jdbc.queryForObject("SELECT nextval('card_sensitive_data_seq')::int", Integer.class);
+		jdbc.update("INSERT INTO card_sensitive_data (id, card_number, card_cvv, card_pin, card_expiry) VALUES (?, ?, ?, ?, ?)",
+			id, cardNumber, "123", "1234", "12/29");
+		return id;
+	}
+
+	private String fingerprintOf(int id) {
+		return jdbc.queryForObject("SELECT card_number_fingerprint FROM card_sensitive_data WHERE id = ?", String.class, id);
+	}
+
+}
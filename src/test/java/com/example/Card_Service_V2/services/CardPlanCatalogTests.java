@@ -0,0 +1,131 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.models.CardPlan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Changes made through this instance show up once they commit; changes made by another replica, written here
+ * straight to the tables, show up through the version poll or on a miss.
+ */
+@SpringBootTest(properties = "card.plans.catalog.refresh-ms=3600000")
+class CardPlanCatalogTests {
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Autowired
+	private CardPlanCatalog catalog;
+
+	@Autowired
+	private CardPlanService cardPlanService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transactions;
+
+	@BeforeEach
+	void setUp() {
+		transactions = new TransactionTemplate(transactionManager);
+		catalog.getAll();
+	}
+
+	@Test
+	void createdPlanIsLoadedOnceItCommits() {
+		Integer planId = transactions.execute(status -> {
+			CardPlan plan = cardPlanService.createPlan(plan("Committed"));
+			assertThat(names()).as("before commit").doesNotContain("Committed");
+			return plan.getId();
+		});
+
+		assertThat(names()).contains("Committed");
+		assertThat(catalog.find(planId)).get().extracting(CardPlan::getName).isEqualTo("Committed");
+	}
+
+	@Test
+	void rolledBackPlanIsNeverLoaded() {
+		long version = version();
+
+		transactions.executeWithoutResult(status -> {
+			cardPlanService.createPlan(plan("Rolled back"));
+			status.setRollbackOnly();
+		});
+
+		assertThat(names()).doesNotContain("Rolled back");
+		assertThat(version()).isEqualTo(version);
+	}
+
+	@Test
+	void deletedPlanIsDropped() {
+		CardPlan plan = cardPlanService.createPlan(plan("Deleted"));
+		long version = version();
+
+		cardPlanService.deletePlan(plan.getId());
+
+		assertThat(version()).isEqualTo(version + 1);
+		assertThat(names()).doesNotContain("Deleted");
+		assertThat(catalog.find(plan.getId())).isEmpty();
+	}
+
+	@Test
+	void versionBumpedByAnotherReplicaIsPickedUpByThePoll() {
+		CardPlan plan = cardPlanService.createPlan(plan("Renamed"));
+		jdbc.update("UPDATE card_plan SET name = 'Renamed elsewhere' WHERE id = ?", plan.getId());
+
+		catalog.refreshIfChanged();
+		assertThat(catalog.find(plan.getId())).get().extracting(CardPlan::getName)
+			.as("same version, not reloaded").isEqualTo("Renamed");
+
+		jdbc.update("UPDATE card_plan_version SET version = version + 1 WHERE id = 1");
+		catalog.refreshIfChanged();
+
+		assertThat(catalog.find(plan.getId())).get().extracting(CardPlan::getName).isEqualTo("Renamed elsewhere");
+	}
+
+	@Test
+	void planMissingFromTheSnapshotIsLoadedOnFind() {
+		Integer planId = jdbc.queryForObject("INSERT INTO card_plan (name, limit_amount, description, daily_limit) " +
+			"VALUES ('Created elsewhere', 1000, 'Not yet polled', 100) RETURNING id", Integer.class);
+		assertThat(names()).doesNotContain("Created elsewhere");
+
+		assertThat(catalog.find(planId)).get().extracting(CardPlan::getName).isEqualTo("Created elsewhere");
+		assertThat(names()).contains("Created elsewhere");
+	}
+
+	@Test
+	void unknownPlanIsEmpty() {
+		assertThat(catalog.find(Integer.MAX_VALUE)).isEmpty();
+		assertThat(catalog.find(null)).isEmpty();
+	}
+
+	private static CardPlan plan(String name) {
+		return new CardPlan(name, 100000, false, name + " test plan", 10000);
+	}
+
+	private List<String> names() {
+		return catalog.getAll().stream().map(CardPlan::getName).toList();
+	}
+
+	private long version() {
+		return jdbc.queryForObject("SELECT version FROM card_plan_version WHERE id = 1", Long.class);
+	}
+
+}
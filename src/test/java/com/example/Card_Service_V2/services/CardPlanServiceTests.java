@@ -0,0 +1,175 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.TestCards;
+import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.services.dtos.PlanAssignmentResultDTO;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+	"spring.jpa.properties.hibernate.generate_statistics=true",
+	"card.plans.catalog.refresh-ms=3600000",
+	"card.metrics.status-refresh-ms=3600000",
+	"card.pan.pool-size=0"
+})
+class CardPlanServiceTests {
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Autowired
+	private CardPlanService cardPlanService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private CardFingerprintUtil fingerprintUtil;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ScheduledTaskHolder scheduledTasks;
+
+	private int cards;
+
+	@BeforeEach
+	void setUp() {
+		// Nothing but the assignment under test may run statements while it is counted
+		scheduledTasks.getScheduledTasks().forEach(task -> task.cancel(false));
+		jdbc.update("DELETE FROM card_model");
+		jdbc.update("DELETE FROM card_sensitive_data");
+		jdbc.update("DELETE FROM plan_holder");
+		jdbc.update("UPDATE plan_occupancy SET holders = 0");
+	}
+
+	@Test
+	void assignsEveryCardOfTheBatchWithTheSameStatementsWhateverItsSize() {
+		List<Integer> few = seedAccounts(100, 2);
+		List<Integer> many = seedAccounts(200, 20);
+		CardPlan first = cardPlanService.createPlan(plan("Batch few", null));
+		CardPlan second = cardPlanService.createPlan(plan("Batch many", null));
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		PlanAssignmentResultDTO fewResult = cardPlanService.assignPlanToAccounts(few, first.getId());
+		long fewStatements = statistics.getPrepareStatementCount();
+		statistics.clear();
+		PlanAssignmentResultDTO manyResult = cardPlanService.assignPlanToAccounts(many, second.getId());
+		long manyStatements = statistics.getPrepareStatementCount();
+
+		assertThat(fewResult.getCardsUpdated()).isEqualTo(4);
+		assertThat(manyResult.getCardsUpdated()).isEqualTo(40);
+		assertThat(manyResult.getAccountsUpdated()).isEqualTo(20);
+		assertThat(manyResult.getHoldersAdded()).isEqualTo(20);
+		assertThat(cardsOnPlan(second)).isEqualTo(40);
+		assertThat(manyStatements).isEqualTo(fewStatements);
+	}
+
+	@Test
+	void cappedPlanRefusesTheWholeBatch() {
+		List<Integer> accounts = seedAccounts(300, 3);
+		CardPlan capped = cardPlanService.createPlan(plan("Capped at two", 2));
+
+		assertThatThrownBy(() -> cardPlanService.assignPlanToAccounts(accounts, capped.getId()))
+			.isInstanceOf(CardService.ValidationException.class)
+			.hasMessageContaining("can only be assigned to 2 users");
+
+		assertThat(cardsOnPlan(capped)).isZero();
+		assertThat(holderRows(capped)).as("holder rows rolled back").isZero();
+		assertThat(holders(capped)).isZero();
+	}
+
+	@Test
+	void holdersGiveUpTheSeatOnThePlanTheyLeft() {
+		// User 401 has cards on accounts 401 and 402, user 403 only on account 403
+		TestCards.insert(jdbc, fingerprintUtil, cardNumber(), 401, 401);
+		TestCards.insert(jdbc, fingerprintUtil, cardNumber(), 401, 402);
+		TestCards.insert(jdbc, fingerprintUtil, cardNumber(), 403, 403);
+		CardPlan left = cardPlanService.createPlan(plan("Left", 5));
+		CardPlan joined = cardPlanService.createPlan(plan("Joined", 5));
+		cardPlanService.assignPlanToAccounts(List.of(401, 402, 403), left.getId());
+		assertThat(holders(left)).isEqualTo(2);
+
+		PlanAssignmentResultDTO result = cardPlanService.assignPlanToAccounts(List.of(401, 403), joined.getId());
+
+		assertThat(result.getHoldersAdded()).isEqualTo(2);
+		assertThat(holders(joined)).isEqualTo(2);
+		// User 401 still has the card on account 402 on the old plan
+		assertThat(holders(left)).isEqualTo(1);
+		assertThat(jdbc.queryForList("SELECT user_id FROM plan_holder WHERE plan_id = ?", Integer.class, left.getId()))
+			.containsExactly(401);
+	}
+
+	@Test
+	void accountsWithoutCardsAreReportedAndSkipped() {
+		List<Integer> accounts = seedAccounts(500, 1);
+		CardPlan plan = cardPlanService.createPlan(plan("Partly empty", null));
+
+		PlanAssignmentResultDTO result = cardPlanService.assignPlanToAccounts(List.of(accounts.get(0), 598, 599), plan.getId());
+		PlanAssignmentResultDTO empty = cardPlanService.assignPlanToAccounts(List.of(598), plan.getId());
+
+		assertThat(result.getAccountsUpdated()).isEqualTo(1);
+		assertThat(result.getCardsUpdated()).isEqualTo(2);
+		assertThat(result.getAccountsWithoutCards()).containsExactly(598, 599);
+		assertThat(empty.getCardsUpdated()).isZero();
+		assertThat(empty.getAccountsWithoutCards()).containsExactly(598);
+	}
+
+	/**
+	 * Accounts from {@code firstAccountId} on, each with two cards of its own user.
+	 */
+	private List<Integer> seedAccounts(int firstAccountId, int count) {
+		List<Integer> accountIds = new ArrayList<>();
+		for (int accountId = firstAccountId; accountId < firstAccountId + count; accountId++) {
+			TestCards.insert(jdbc, fingerprintUtil, cardNumber(), accountId, accountId);
+			TestCards.insert(jdbc, fingerprintUtil, cardNumber(), accountId, accountId);
+			accountIds.add(accountId);
+		}
+		return accountIds;
+	}
+
+	private String cardNumber() {
+		return String.format("4%015d", 300_000_000_000_000L + cards++);
+	}
+
+	private static CardPlan plan(String name, Integer maxHolders) {
+		CardPlan plan = new CardPlan(name, 100000, false, name + " test plan", 10000);
+		plan.setMaxHolders(maxHolders);
+		return plan;
+	}
+
+	private int cardsOnPlan(CardPlan plan) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM card_model WHERE plan_id = ?", Integer.class, plan.getId());
+	}
+
+	private int holderRows(CardPlan plan) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM plan_holder WHERE plan_id = ?", Integer.class, plan.getId());
+	}
+
+	private int holders(CardPlan plan) {
+		return jdbc.queryForObject("SELECT COALESCE(MAX(holders), 0) FROM plan_occupancy WHERE plan_id = ?",
+			Integer.class, plan.getId());
+	}
+
+}
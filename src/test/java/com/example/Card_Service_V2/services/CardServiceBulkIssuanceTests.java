@@ -0,0 +1,287 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.TestCards;
+import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.services.CardService.AccountInfo;
+import com.example.Card_Service_V2.services.CardService.AccountInfoWithCurrency;
+import com.example.Card_Service_V2.services.dtos.BulkCardIssuanceItemDTO;
+import com.example.Card_Service_V2.services.dtos.BulkCardIssuanceResultDTO;
+import com.example.Card_Service_V2.services.dtos.CreateCardRequestDTO;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bulk issuance on the embedded database. Accounts are handed in directly, except for the test of the accounts
+ * service call itself.
+ */
+@SpringBootTest(properties = "card.pan.pool-size=0")
+class CardServiceBulkIssuanceTests {
+
+	private static final String DUPLICATE = "Duplicate card: A card with this user, account, type, and network already exists.";
+
+	// Requests the accounts stub received, as "Authorization header|body"
+	private static final List<String> accountRequests = new CopyOnWriteArrayList<>();
+	private static HttpServer accountsStub;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+		registry.add("accounts.service.url", () -> "http://127.0.0.1:" + accountsStub().getAddress().getPort());
+	}
+
+	@Autowired
+	private CardService cardService;
+
+	@Autowired
+	private CardPlanService cardPlanService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private CardFingerprintUtil fingerprintUtil;
+
+	private final Map<Integer, AccountInfo> accounts = new HashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		jdbc.update("DELETE FROM card_model");
+		jdbc.update("DELETE FROM card_sensitive_data");
+		jdbc.update("DELETE FROM plan_holder");
+		jdbc.update("UPDATE plan_occupancy SET holders = 0");
+		// Account n belongs to user n
+		for (int accountId = 1; accountId <= 5; accountId++) {
+			accounts.put(accountId, new AccountInfoWithCurrency(accountId, accountId, "ACTIVE", "PKR"));
+		}
+		accountRequests.clear();
+	}
+
+	@AfterAll
+	static void stopAccountsStub() {
+		if (accountsStub != null) {
+			accountsStub.stop(0);
+		}
+	}
+
+	@Test
+	void createsEveryCardOfAValidBatchWithNormalisedTypeAndNetwork() {
+		BulkCardIssuanceResultDTO result = issue(false, card(1, "physical", " visa "), card(2, "Virtual", "MasterCard"));
+
+		assertThat(result.getCreated()).isEqualTo(2);
+		assertThat(result.getResults()).extracting(BulkCardIssuanceItemDTO::getStatus)
+			.containsOnly(BulkCardIssuanceItemDTO.CREATED);
+		assertThat(jdbc.queryForList("SELECT type || '/' || network FROM card_model ORDER BY userid", String.class))
+			.containsExactly("PHYSICAL/VISA", "VIRTUAL/MASTERCARD");
+	}
+
+	@Test
+	void oneInvalidCardRejectsTheBatch() {
+		CreateCardRequestDTO badPin = card(2, "VIRTUAL", "VISA");
+		badPin.setCardPin("12");
+
+		BulkCardIssuanceResultDTO result = issue(false, card(1, "VIRTUAL", "VISA"), badPin, card(3, "VIRTUAL", "VISA"));
+
+		assertThat(result.getCreated()).isZero();
+		assertThat(result.getFailed()).isEqualTo(1);
+		assertThat(result.getResults()).extracting(BulkCardIssuanceItemDTO::getStatus).containsExactly(
+			BulkCardIssuanceItemDTO.NOT_CREATED, BulkCardIssuanceItemDTO.FAILED, BulkCardIssuanceItemDTO.NOT_CREATED);
+		assertThat(result.getResults().get(1).getError()).isEqualTo("Invalid PIN. It must be exactly 4 digits.");
+		assertThat(cards()).isZero();
+	}
+
+	@Test
+	void allowPartialCreatesTheValidCards() {
+		CreateCardRequestDTO badPin = card(2, "VIRTUAL", "VISA");
+		badPin.setCardPin("12");
+
+		BulkCardIssuanceResultDTO result = issue(true, card(1, "VIRTUAL", "VISA"), badPin, card(3, "VIRTUAL", "VISA"));
+
+		assertThat(result.getCreated()).isEqualTo(2);
+		assertThat(result.getFailed()).isEqualTo(1);
+		assertThat(result.getResults()).extracting(BulkCardIssuanceItemDTO::getStatus).containsExactly(
+			BulkCardIssuanceItemDTO.CREATED, BulkCardIssuanceItemDTO.FAILED, BulkCardIssuanceItemDTO.CREATED);
+		assertThat(cards()).isEqualTo(2);
+	}
+
+	@Test
+	void duplicatesWithinTheBatchAreRefusedWhateverTheirCase() {
+		BulkCardIssuanceResultDTO result = issue(true, card(1, "Virtual", "visa"), card(1, " VIRTUAL", "VISA "));
+
+		assertThat(result.getCreated()).isEqualTo(1);
+		assertThat(result.getResults().get(1).getError()).isEqualTo(DUPLICATE);
+	}
+
+	@Test
+	void duplicatesOfExistingCardsAreRefused() {
+		// A virtual Visa card, as stored
+		TestCards.insert(jdbc, fingerprintUtil, "4000000000000101", 1, 1);
+
+		BulkCardIssuanceResultDTO result = issue(true, card(1, "virtual", "Visa"), card(1, "PHYSICAL", "VISA"));
+
+		assertThat(result.getResults().get(0).getError()).isEqualTo(DUPLICATE);
+		assertThat(result.getResults().get(1).getStatus()).isEqualTo(BulkCardIssuanceItemDTO.CREATED);
+		assertThat(cardService.isDuplicateCard(card(1, " Virtual ", "visa"))).isTrue();
+	}
+
+	@Test
+	void cappedPlanRefusesUsersPastTheLastSeat() {
+		CardPlan plan = cardPlanService.createPlan(cappedPlan("Bulk two seats", 2));
+
+		BulkCardIssuanceResultDTO result = issue(true, onPlan(card(1, "VIRTUAL", "VISA"), plan),
+			onPlan(card(2, "VIRTUAL", "VISA"), plan), onPlan(card(3, "VIRTUAL", "VISA"), plan),
+			onPlan(card(1, "PHYSICAL", "VISA"), plan));
+
+		assertThat(result.getCreated()).isEqualTo(2);
+		assertThat(result.getResults().get(2).getError()).contains("can only be assigned to 2 users");
+		assertThat(result.getResults().get(3).getError()).contains("can only be assigned once per user");
+		assertThat(holderRows(plan)).isEqualTo(2);
+		assertThat(holders(plan)).isEqualTo(2);
+	}
+
+	@Test
+	void rejectedBatchGivesTheSeatsBack() {
+		CardPlan plan = cardPlanService.createPlan(cappedPlan("Bulk rolled back", 2));
+
+		BulkCardIssuanceResultDTO result = issue(false, onPlan(card(1, "VIRTUAL", "VISA"), plan),
+			onPlan(card(2, "VIRTUAL", "VISA"), plan), onPlan(card(3, "VIRTUAL", "VISA"), plan));
+
+		assertThat(result.getCreated()).isZero();
+		assertThat(result.getFailed()).isEqualTo(1);
+		assertThat(cards()).isZero();
+		assertThat(holderRows(plan)).isZero();
+		assertThat(holders(plan)).isZero();
+	}
+
+	@Test
+	void cardsMustMatchTheirAccount() {
+		CreateCardRequestDTO unknownAccount = card(1, "VIRTUAL", "VISA");
+		unknownAccount.setAccountId(99);
+		CreateCardRequestDTO otherUsersAccount = card(1, "VIRTUAL", "VISA");
+		otherUsersAccount.setAccountId(2);
+		CreateCardRequestDTO otherCurrency = card(3, "VIRTUAL", "VISA");
+		otherCurrency.setCurrency("USD");
+		CreateCardRequestDTO noCurrency = card(4, "VIRTUAL", "VISA");
+		noCurrency.setCurrency(null);
+		accounts.put(4, new AccountInfoWithCurrency(4, 4, "ACTIVE", "AED"));
+
+		BulkCardIssuanceResultDTO result = issue(true, unknownAccount, otherUsersAccount, otherCurrency, noCurrency);
+
+		assertThat(result.getResults()).extracting(BulkCardIssuanceItemDTO::getError).containsExactly(
+			"Account not found",
+			"Account does not belong to the user",
+			"Currency mismatch: Card currency does not match account currency",
+			null);
+		assertThat(jdbc.queryForObject("SELECT currency FROM card_model WHERE accountid = 4", String.class)).isEqualTo("AED");
+	}
+
+	@Test
+	void accountsAreFetchedInOneCallWithTheCallersToken() {
+		List<CreateCardRequestDTO> requests = List.of(card(2, "VIRTUAL", "VISA"), card(1, "VIRTUAL", "VISA"),
+			card(2, "PHYSICAL", "VISA"), card(3, "VIRTUAL", "VISA"));
+
+		Map<Integer, AccountInfo> fetched = cardService.fetchAccountsForBulkIssuance(requests, "admin-token");
+
+		assertThat(accountRequests).containsExactly("Bearer admin-token|{\"accountIds\":[1,2,3]}");
+		// The stub knows accounts 1 and 2 only
+		assertThat(fetched).containsOnlyKeys(1, 2);
+		assertThat(fetched.get(2).userId).isEqualTo(2);
+		assertThat(((AccountInfoWithCurrency) fetched.get(2)).currency).isEqualTo("PKR");
+	}
+
+	@Test
+	void batchSizeIsCheckedBeforeAnyLookup() {
+		assertThatThrownBy(() -> cardService.fetchAccountsForBulkIssuance(List.of(), "admin-token"))
+			.isInstanceOf(CardService.ValidationException.class)
+			.hasMessage("cards must not be empty");
+		assertThat(accountRequests).isEmpty();
+	}
+
+	private BulkCardIssuanceResultDTO issue(boolean allowPartial, CreateCardRequestDTO... requests) {
+		return cardService.processBulkCardCreation(List.of(requests), accounts, allowPartial);
+	}
+
+	/**
+	 * A card on account {@code userId}, which belongs to that user.
+	 */
+	private static CreateCardRequestDTO card(int userId, String type, String network) {
+		CreateCardRequestDTO request = new CreateCardRequestDTO();
+		request.setUserId(userId);
+		request.setAccountId(userId);
+		request.setType(type);
+		request.setNetwork(network);
+		request.setCardPin("4826");
+		request.setTitle("Corporate Card");
+		request.setCurrency("PKR");
+		return request;
+	}
+
+	private static CreateCardRequestDTO onPlan(CreateCardRequestDTO request, CardPlan plan) {
+		request.setPlanId(plan.getId());
+		return request;
+	}
+
+	private static CardPlan cappedPlan(String name, int maxHolders) {
+		CardPlan plan = new CardPlan(name, 100000, false, name + " test plan", 10000);
+		plan.setMaxHolders(maxHolders);
+		return plan;
+	}
+
+	private int cards() {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM card_model", Integer.class);
+	}
+
+	private int holderRows(CardPlan plan) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM plan_holder WHERE plan_id = ?", Integer.class, plan.getId());
+	}
+
+	private int holders(CardPlan plan) {
+		return jdbc.queryForObject("SELECT COALESCE(MAX(holders), 0) FROM plan_occupancy WHERE plan_id = ?",
+			Integer.class, plan.getId());
+	}
+
+	private static synchronized HttpServer accountsStub() {
+		if (accountsStub == null) {
+			try {
+				accountsStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			accountsStub.createContext("/api/v1/accounts/batch", exchange -> {
+				accountRequests.add(exchange.getRequestHeaders().getFirst("Authorization") + "|"
+					+ new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+				byte[] body = ("[{\"accountId\":1,\"userId\":1,\"status\":\"ACTIVE\",\"currency\":\"PKR\"},"
+					+ "{\"accountId\":2,\"userId\":2,\"status\":\"ACTIVE\",\"currency\":\"PKR\"}]").getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			});
+			accountsStub.start();
+		}
+		return accountsStub;
+	}
+
+}
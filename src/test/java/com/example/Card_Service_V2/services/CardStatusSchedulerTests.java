@@ -0,0 +1,134 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.CardServiceApplication;
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts share one database, the way two replicas do, and tick the activation job
+ * side by side. Their database sessions run in time zones a day apart, as pgJDBC sessions of JVMs with
+ * different {@code user.timezone} would.
+ */
+class CardStatusSchedulerTests {
+
+	private static final int TICKS = 6;
+
+	private static ConfigurableApplicationContext west;
+	private static ConfigurableApplicationContext east;
+
+	@BeforeAll
+	static void startReplicas() throws InterruptedException {
+		String url = EmbeddedDatabase.create();
+		west = start(url, "west", "Pacific/Pago_Pago");
+		east = start(url, "east", "Pacific/Kiritimati");
+		// The test drives the ticks: stop the scheduled ones and let the run each node made on startup finish
+		for (ConfigurableApplicationContext context : List.of(west, east)) {
+			context.getBean(ScheduledTaskHolder.class).getScheduledTasks().forEach(task -> task.cancel(false));
+			ThreadPoolTaskScheduler scheduler = context.getBean(ThreadPoolTaskScheduler.class);
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+			while (scheduler.getActiveCount() > 0 && System.nanoTime() < deadline) {
+				Thread.sleep(50);
+			}
+		}
+	}
+
+	@AfterAll
+	static void stopReplicas() {
+		for (ConfigurableApplicationContext context : new ConfigurableApplicationContext[] {east, west}) {
+			if (context != null) {
+				context.close();
+			}
+		}
+	}
+
+	@Test
+	void exactlyOneReplicaRunsEachTick() throws Exception {
+		for (int tick = 0; tick < TICKS; tick++) {
+			if (tick % 2 == 0) {
+				// A rolling restart: the holder hands its lease back and the west node, whose session clock
+				// is a day behind, takes it first
+				leaseHolder().getBean(SchedulerLeaseService.class).releaseAll();
+				assertRuns(tick, () -> tick(west), () -> tick(east));
+			} else {
+				assertRuns(tick, () -> tick(east), () -> tick(west));
+			}
+		}
+	}
+
+	@Test
+	void concurrentTicksRunOnOneReplica() throws Exception {
+		for (int tick = 0; tick < TICKS; tick++) {
+			CountDownLatch start = new CountDownLatch(1);
+			double westBefore = runs(west);
+			double eastBefore = runs(east);
+			CompletableFuture<Void> westTick = CompletableFuture.runAsync(() -> awaitAndTick(start, west));
+			CompletableFuture<Void> eastTick = CompletableFuture.runAsync(() -> awaitAndTick(start, east));
+			start.countDown();
+			CompletableFuture.allOf(westTick, eastTick).get(30, TimeUnit.SECONDS);
+			assertThat((runs(west) - westBefore) + (runs(east) - eastBefore)).as("runs in tick %d", tick).isEqualTo(1);
+		}
+	}
+
+	private static void assertRuns(int tick, Runnable first, Runnable second) {
+		double before = runs(west) + runs(east);
+		first.run();
+		second.run();
+		assertThat(runs(west) + runs(east) - before).as("runs in tick %d", tick).isEqualTo(1);
+	}
+
+	private static ConfigurableApplicationContext leaseHolder() {
+		String owner = west.getBean(JdbcTemplate.class)
+			.queryForObject("SELECT owner FROM scheduler_lease WHERE lease_name = 'card-activation'", String.class);
+		return "west".equals(owner) ? west : east;
+	}
+
+	private static void awaitAndTick(CountDownLatch start, ConfigurableApplicationContext context) {
+		try {
+			start.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		tick(context);
+	}
+
+	private static void tick(ConfigurableApplicationContext context) {
+		context.getBean(CardStatusScheduler.class).activatePendingCardsAfter24Hours();
+	}
+
+	/**
+	 * Activation runs the node has made; the scheduler records one per run in which it held a lease.
+	 */
+	private static double runs(ConfigurableApplicationContext context) {
+		DistributionSummary rows = context.getBean(MeterRegistry.class).find("cards.activation.rows").summary();
+		return rows == null ? 0 : rows.count();
+	}
+
+	private static ConfigurableApplicationContext start(String url, String nodeId, String sessionTimeZone) {
+		return new SpringApplicationBuilder(CardServiceApplication.class)
+			.run("--server.port=0",
+				"--spring.datasource.url=" + url,
+				"--spring.datasource.username=" + EmbeddedDatabase.USERNAME,
+				"--spring.datasource.password=" + EmbeddedDatabase.PASSWORD,
+				"--spring.datasource.hikari.connection-init-sql=SET TIME ZONE '" + sessionTimeZone + "'",
+				"--card.scheduler.node-id=" + nodeId,
+				"--spring.main.banner-mode=off");
+	}
+
+}
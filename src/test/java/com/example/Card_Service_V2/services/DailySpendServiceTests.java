@@ -0,0 +1,117 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.TestCards;
+import com.example.Card_Service_V2.services.dtos.InternalCardVerificationRequestDTO;
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class DailySpendServiceTests {
+
+	private static final int AUTHORIZATIONS = 64;
+	// Does not divide the Silver daily limit, so the last authorization that fits leaves a remainder
+	private static final double AMOUNT = 700;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Autowired
+	private CardService cardService;
+
+	@Autowired
+	private DailySpendService dailySpendService;
+
+	@Autowired
+	private CardFingerprintUtil fingerprintUtil;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void parallelAuthorizationsNeverOvershootTheDailyLimit() throws Exception {
+		int cardId = seedCard("4000000000000001", 501);
+		double dailyLimit = dailyLimit();
+
+		ExecutorService executor = Executors.newFixedThreadPool(AUTHORIZATIONS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < AUTHORIZATIONS; i++) {
+				results.add(executor.submit(() -> {
+					InternalCardVerificationRequestDTO request = new InternalCardVerificationRequestDTO("4000000000000001", TestCards.PIN, 501);
+					request.setAmount(AMOUNT);
+					start.await();
+					return cardService.processInternalCardVerification(request);
+				}));
+			}
+			start.countDown();
+			int accepted = 0;
+			for (Future<Boolean> result : results) {
+				if (result.get(60, TimeUnit.SECONDS)) {
+					accepted++;
+				}
+			}
+
+			double recorded = jdbc.queryForObject(
+				"SELECT COALESCE(SUM(amount), 0) FROM card_transaction WHERE card_id = ?", Double.class, cardId);
+			assertThat(accepted * AMOUNT).isLessThanOrEqualTo(dailyLimit);
+			assertThat(recorded).isEqualTo(accepted * AMOUNT);
+			// Only the limit turns authorizations away, so every one that fit was taken
+			assertThat(accepted).isEqualTo((int) (dailyLimit / AMOUNT));
+			assertThat(spentToday(cardId)).isEqualTo(recorded);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void rebuildKeepsReservationsThatAreNotInTheLedgerYet() {
+		int reservedOnly = seedCard("4000000000000019", 502);
+		int behindLedger = seedCard("4000000000000027", 503);
+		jdbc.update("INSERT INTO card_daily_spend (card_id, spend_date, spent) VALUES (?, ?, ?), (?, ?, ?)",
+			reservedOnly, LocalDate.now(), 2000.0, behindLedger, LocalDate.now(), 100.0);
+		jdbc.update("INSERT INTO card_transaction (card_id, account_id, amount, timestamp) VALUES (?, ?, ?, ?), (?, ?, ?, ?)",
+			reservedOnly, 502, 500.0, Timestamp.valueOf(LocalDateTime.now()),
+			behindLedger, 503, 900.0, Timestamp.valueOf(LocalDateTime.now()));
+
+		dailySpendService.rebuildToday();
+
+		assertThat(spentToday(reservedOnly)).isEqualTo(2000.0);
+		assertThat(spentToday(behindLedger)).isEqualTo(900.0);
+	}
+
+	private double dailyLimit() {
+		return jdbc.queryForObject("SELECT daily_limit FROM card_plan WHERE name = 'Silver'", Double.class);
+	}
+
+	private double spentToday(int cardId) {
+		return jdbc.queryForObject("SELECT spent FROM card_daily_spend WHERE card_id = ? AND spend_date = ?",
+			Double.class, cardId, LocalDate.now());
+	}
+
+	private int seedCard(String cardNumber, int accountId) {
+		return TestCards.insert(jdbc, fingerprintUtil, cardNumber, accountId, accountId);
+	}
+
+}
@@ -0,0 +1,210 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.services.dtos.TokenValidationResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Local validation is what lets tokens through while the auth service is down, so every way of forging
+ * or replaying a token must be refused here.
+ */
+class FallbackAuthServiceTests {
+
+	private static final KeyPair KEY_A = generateKeyPair();
+	private static final KeyPair KEY_B = generateKeyPair();
+	private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+	@TempDir
+	Path keyDir;
+
+	@Test
+	void acceptsRs256TokenSignedWithThePemKey() throws Exception {
+		FallbackAuthService service = withPemKey(KEY_A);
+
+		TokenValidationResponse response = service.validateTokenLocally(
+			rs256(KEY_A.getPrivate(), null, claims("USER", inAnHour())));
+
+		assertThat(response.isValid()).isTrue();
+		assertThat(response.getRole()).isEqualTo("USER");
+		assertThat(response.getUserId()).isEqualTo(42);
+		assertThat(response.getUsername()).isEqualTo("alice");
+	}
+
+	@Test
+	void acceptsTokenSignedWithTheJwksKeyItsKidNames() throws Exception {
+		FallbackAuthService service = withJwks();
+
+		assertThat(service.validateTokenLocally(rs256(KEY_A.getPrivate(), "key-a", claims("ADMIN", inAnHour()))).isValid())
+			.isTrue();
+		assertThat(service.validateTokenLocally(rs256(KEY_B.getPrivate(), "key-b", claims("USER", inAnHour()))).isValid())
+			.isTrue();
+	}
+
+	@Test
+	void rejectsTokenWhoseKidNamesAnotherKey() throws Exception {
+		FallbackAuthService service = withJwks();
+
+		assertRejected(service, rs256(KEY_B.getPrivate(), "key-a", claims("USER", inAnHour())), "Invalid token signature");
+		assertRejected(service, rs256(KEY_A.getPrivate(), "key-c", claims("USER", inAnHour())), "Invalid token signature");
+		assertRejected(service, rs256(KEY_A.getPrivate(), null, claims("USER", inAnHour())), "Invalid token signature");
+	}
+
+	@Test
+	void rejectsTokenSignedWithAnotherKey() throws Exception {
+		FallbackAuthService service = withPemKey(KEY_A);
+
+		assertRejected(service, rs256(KEY_B.getPrivate(), null, claims("USER", inAnHour())), "Invalid token signature");
+	}
+
+	@Test
+	void rejectsUnsignedAndHmacTokens() throws Exception {
+		FallbackAuthService service = withPemKey(KEY_A);
+		String payload = encode(claims("ADMIN", inAnHour()));
+
+		String none = encode("{\"alg\":\"none\",\"typ\":\"JWT\"}") + "." + payload + ".";
+		assertRejected(service, none, "Invalid token signature");
+
+		// HS256 keyed with the public key, which anyone holding the PEM could sign with
+		String hs256Input = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}") + "." + payload;
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(pem(KEY_A).getBytes(StandardCharsets.US_ASCII), "HmacSHA256"));
+		String hs256 = hs256Input + "." + BASE64URL.encodeToString(mac.doFinal(hs256Input.getBytes(StandardCharsets.US_ASCII)));
+		assertRejected(service, hs256, "Invalid token signature");
+	}
+
+	@Test
+	void rejectsTamperedPayload() throws Exception {
+		FallbackAuthService service = withPemKey(KEY_A);
+		String[] parts = rs256(KEY_A.getPrivate(), null, claims("USER", inAnHour())).split("\\.");
+
+		String tampered = parts[0] + "." + encode(claims("ADMIN", inAnHour())) + "." + parts[2];
+
+		assertRejected(service, tampered, "Invalid token signature");
+	}
+
+	@Test
+	void rejectsExpiredToken() throws Exception {
+		FallbackAuthService service = withPemKey(KEY_A);
+		long anHourAgo = System.currentTimeMillis() / 1000 - 3600;
+
+		assertRejected(service, rs256(KEY_A.getPrivate(), null, claims("USER", anHourAgo)), "Token expired");
+	}
+
+	@Test
+	void rejectsSignedTokenWithoutExpiry() throws Exception {
+		FallbackAuthService service = withPemKey(KEY_A);
+		String claims = "{\"sub\":\"alice\",\"role\":\"USER\",\"id\":42}";
+
+		assertRejected(service, rs256(KEY_A.getPrivate(), null, claims), "Token has no expiry");
+	}
+
+	@Test
+	void rejectsEverythingWithoutConfiguredKeys() throws Exception {
+		FallbackAuthService service = new FallbackAuthService();
+		ReflectionTestUtils.setField(service, "publicKeyFile", "");
+		ReflectionTestUtils.setField(service, "jwksFile", "");
+		service.loadKeys();
+
+		assertThat(service.isConfigured()).isFalse();
+		assertRejected(service, rs256(KEY_A.getPrivate(), null, claims("USER", inAnHour())),
+			"Local token validation is not configured");
+	}
+
+	private static void assertRejected(FallbackAuthService service, String token, String message) {
+		TokenValidationResponse response = service.validateTokenLocally(token);
+		assertThat(response.isValid()).isFalse();
+		assertThat(response.isHasPermission()).isFalse();
+		assertThat(response.getMessage()).isEqualTo(message);
+	}
+
+	private FallbackAuthService withPemKey(KeyPair keyPair) throws IOException {
+		Path file = Files.writeString(keyDir.resolve("auth.pem"), pem(keyPair));
+		return service(file.toString(), "");
+	}
+
+	private FallbackAuthService withJwks() throws IOException {
+		Path file = Files.writeString(keyDir.resolve("jwks.json"),
+			"{\"keys\":[" + jwk("key-a", KEY_A) + "," + jwk("key-b", KEY_B) + "]}");
+		return service("", file.toString());
+	}
+
+	private static FallbackAuthService service(String publicKeyFile, String jwksFile) {
+		FallbackAuthService service = new FallbackAuthService();
+		ReflectionTestUtils.setField(service, "publicKeyFile", publicKeyFile);
+		ReflectionTestUtils.setField(service, "jwksFile", jwksFile);
+		service.loadKeys();
+		assertThat(service.isConfigured()).isTrue();
+		return service;
+	}
+
+	private static String rs256(PrivateKey key, String kid, String claims) throws GeneralSecurityException {
+		String header = kid == null
+			? "{\"alg\":\"RS256\",\"typ\":\"JWT\"}"
+			: "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}";
+		String signingInput = encode(header) + "." + encode(claims);
+		Signature signature = Signature.getInstance("SHA256withRSA");
+		signature.initSign(key);
+		signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+		return signingInput + "." + BASE64URL.encodeToString(signature.sign());
+	}
+
+	private static String claims(String role, long expiresAt) {
+		return "{\"sub\":\"alice\",\"role\":\"" + role + "\",\"id\":42,\"exp\":" + expiresAt + "}";
+	}
+
+	private static long inAnHour() {
+		return System.currentTimeMillis() / 1000 + 3600;
+	}
+
+	private static String pem(KeyPair keyPair) {
+		return "-----BEGIN PUBLIC KEY-----\n"
+			+ Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+			+ "\n-----END PUBLIC KEY-----\n";
+	}
+
+	private static String jwk(String kid, KeyPair keyPair) {
+		RSAPublicKey key = (RSAPublicKey) keyPair.getPublic();
+		return "{\"kty\":\"RSA\",\"kid\":\"" + kid + "\",\"alg\":\"RS256\",\"use\":\"sig\","
+			+ "\"n\":\"" + unsigned(key.getModulus()) + "\",\"e\":\"" + unsigned(key.getPublicExponent()) + "\"}";
+	}
+
+	private static String unsigned(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		int start = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+		return BASE64URL.encodeToString(Arrays.copyOfRange(bytes, start, bytes.length));
+	}
+
+	private static String encode(String json) {
+		return BASE64URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static KeyPair generateKeyPair() {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+			generator.initialize(2048);
+			return generator.generateKeyPair();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
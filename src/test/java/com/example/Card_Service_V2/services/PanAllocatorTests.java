@@ -0,0 +1,156 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.utils.CardFingerprintUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PanAllocatorTests {
+
+	private static final Map<String, List<String>> BINS = Map.of(
+		"VISA", List.of("411111", "422222"),
+		"MASTERCARD", List.of("555555"),
+		"OTHER", List.of("606060"));
+
+	private final CardFingerprintUtil fingerprintUtil = new CardFingerprintUtil("test-secret");
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private PanAllocator allocator;
+
+	@AfterEach
+	void tearDown() {
+		if (allocator != null) {
+			allocator.shutdown();
+		}
+	}
+
+	@Test
+	void luhnCheck() {
+		assertThat(PanAllocator.isLuhnValid("4111111111111111")).isTrue();
+		assertThat(PanAllocator.isLuhnValid("5555555555554444")).isTrue();
+		assertThat(PanAllocator.isLuhnValid("4111111111111112")).isFalse();
+		assertThat(PanAllocator.isLuhnValid("4111111111111121")).isFalse();
+	}
+
+	@Test
+	void numbersAreLuhnValidWithTheNetworksBin() {
+		allocator = allocator(fingerprints -> List.of(), 0);
+
+		for (int i = 0; i < 200; i++) {
+			PanAllocator.Pan visa = allocator.allocate("VISA");
+			PanAllocator.Pan mastercard = allocator.allocate("MASTERCARD");
+
+			assertThat(visa.getNumber()).hasSize(PanAllocator.PAN_LENGTH).containsOnlyDigits();
+			assertThat(PanAllocator.isLuhnValid(visa.getNumber())).as(visa.getNumber()).isTrue();
+			assertThat(visa.getNumber()).matches("(411111|422222)\\d{10}");
+			assertThat(PanAllocator.isLuhnValid(mastercard.getNumber())).as(mastercard.getNumber()).isTrue();
+			assertThat(mastercard.getNumber()).startsWith("555555");
+			assertThat(visa.getFingerprint()).isEqualTo(fingerprintUtil.fingerprint(visa.getNumber()));
+		}
+	}
+
+	@Test
+	void networkIsMatchedIgnoringCaseAndPadding() {
+		allocator = allocator(fingerprints -> List.of(), 0);
+
+		assertThat(allocator.allocate(" visa ").getNumber()).matches("(411111|422222)\\d{10}");
+		assertThat(allocator.allocate("MasterCard").getNumber()).startsWith("555555");
+	}
+
+	@Test
+	void unknownNetworksGetAnOtherNumber() {
+		allocator = allocator(fingerprints -> List.of(), 0);
+
+		assertThat(allocator.allocate("AMEX").getNumber()).startsWith("606060");
+		assertThat(allocator.allocate(null).getNumber()).startsWith("606060");
+		assertThat(allocator.allocate("").getNumber()).startsWith("606060");
+	}
+
+	@Test
+	void refillDropsNumbersAlreadyIssued() throws InterruptedException {
+		// Every other generated number is reported as issued
+		Set<String> issued = ConcurrentHashMap.newKeySet();
+		allocator = allocator(fingerprints -> {
+			List<String> taken = new ArrayList<>();
+			int i = 0;
+			for (String fingerprint : fingerprints) {
+				if (i++ % 2 == 0) {
+					taken.add(fingerprint);
+				}
+			}
+			issued.addAll(taken);
+			return taken;
+		}, 8);
+
+		allocator.warmUp();
+		awaitPoolSize("VISA", 4);
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(issued).doesNotContain(allocator.allocate("VISA").getFingerprint());
+		}
+		assertThat(allocations("pool")).isEqualTo(4);
+		assertThat(allocations("inline")).isZero();
+	}
+
+	@Test
+	void emptyPoolGeneratesOnTheCallingThread() throws InterruptedException {
+		allocator = allocator(fingerprints -> List.of(), 8);
+
+		// Not warmed up, so the first number cannot come from the pool; taking it starts a refill
+		PanAllocator.Pan pan = allocator.allocate("VISA");
+
+		assertThat(PanAllocator.isLuhnValid(pan.getNumber())).isTrue();
+		assertThat(allocations("inline")).isEqualTo(1);
+		assertThat(allocations("pool")).isZero();
+		awaitPoolSize("VISA", 8);
+		allocator.allocate("VISA");
+		assertThat(allocations("pool")).isEqualTo(1);
+	}
+
+	@Test
+	void poolSizeZeroAlwaysGeneratesInline() {
+		allocator = allocator(fingerprints -> {
+			throw new AssertionError("no refill expected");
+		}, 0);
+		allocator.warmUp();
+
+		for (int i = 0; i < 10; i++) {
+			allocator.allocate("VISA");
+		}
+
+		assertThat(allocations("inline")).isEqualTo(10);
+		assertThat(poolSize("VISA")).isZero();
+	}
+
+	private PanAllocator allocator(Function<Collection<String>, Collection<String>> existingFingerprints, int poolSize) {
+		PanAllocator allocator = new PanAllocator(fingerprintUtil, existingFingerprints, BINS, poolSize);
+		allocator.bindTo(registry);
+		return allocator;
+	}
+
+	private double allocations(String source) {
+		return registry.get("card.pan.allocations").tag("source", source).functionCounter().count();
+	}
+
+	private double poolSize(String network) {
+		return registry.get("card.pan.pool.size").tag("network", network).gauge().value();
+	}
+
+	private void awaitPoolSize(String network, int size) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (poolSize(network) < size) {
+			assertThat(System.currentTimeMillis()).as("pool refilled").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+}
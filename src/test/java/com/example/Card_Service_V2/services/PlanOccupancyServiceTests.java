@@ -0,0 +1,164 @@
+package com.example.Card_Service_V2.services;
+
+import com.example.Card_Service_V2.EmbeddedDatabase;
+import com.example.Card_Service_V2.models.CardPlan;
+import com.example.Card_Service_V2.services.dtos.CreateCardRequestDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PlanOccupancyServiceTests {
+
+	private static final int RESERVATIONS = 32;
+	private static final int MAX_HOLDERS = 5;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabase.register(registry);
+	}
+
+	@Autowired
+	private PlanOccupancyService planOccupancyService;
+
+	@Autowired
+	private CardPlanService cardPlanService;
+
+	@Autowired
+	private CardService cardService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void parallelReservationsNeverExceedTheCap() throws Exception {
+		CardPlan plan = cardPlanService.createPlan(cappedPlan("Parallel"));
+
+		ExecutorService executor = Executors.newFixedThreadPool(RESERVATIONS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < RESERVATIONS; i++) {
+				int userId = 1000 + i;
+				results.add(executor.submit(() -> {
+					start.await();
+					try {
+						planOccupancyService.reserveSeatForNewCard(plan, userId);
+						return true;
+					} catch (CardService.ValidationException e) {
+						return false;
+					}
+				}));
+			}
+			start.countDown();
+			int accepted = 0;
+			for (Future<Boolean> result : results) {
+				if (result.get(60, TimeUnit.SECONDS)) {
+					accepted++;
+				}
+			}
+
+			assertThat(accepted).isEqualTo(MAX_HOLDERS);
+			assertThat(holders(plan)).isEqualTo(MAX_HOLDERS);
+			assertThat(holderRows(plan)).isEqualTo(MAX_HOLDERS);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void rebuildDuringAnUncommittedReservationKeepsIt() throws Exception {
+		CardPlan plan = cardPlanService.createPlan(cappedPlan("Rebuild"));
+		planOccupancyService.rebuild();
+		TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+		CountDownLatch reserved = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> creation = executor.submit(() -> transactions.executeWithoutResult(status -> {
+				cardService.saveNewCard(newCard(2001), plan);
+				reserved.countDown();
+				await(commit);
+			}));
+			assertThat(reserved.await(30, TimeUnit.SECONDS)).isTrue();
+
+			// The rebuild counts holders while the new card's seat is taken but not yet committed
+			Future<Integer> rebuild = executor.submit(() -> planOccupancyService.rebuild());
+			awaitLockWait();
+			commit.countDown();
+			creation.get(30, TimeUnit.SECONDS);
+			rebuild.get(30, TimeUnit.SECONDS);
+
+			assertThat(holderRows(plan)).isEqualTo(1);
+			assertThat(holders(plan)).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static CardPlan cappedPlan(String name) {
+		CardPlan plan = new CardPlan(name, 100000, false, name + " test plan", 10000);
+		plan.setMaxHolders(MAX_HOLDERS);
+		return plan;
+	}
+
+	private static CreateCardRequestDTO newCard(int userId) {
+		CreateCardRequestDTO request = new CreateCardRequestDTO();
+		request.setUserId(userId);
+		request.setAccountId(userId);
+		request.setType("VIRTUAL");
+		request.setNetwork("VISA");
+		request.setCardPin("4826");
+		request.setTitle("Travel Card");
+		request.setCurrency("PKR");
+		return request;
+	}
+
+	private int holders(CardPlan plan) {
+		return jdbc.queryForObject("SELECT holders FROM plan_occupancy WHERE plan_id = ?", Integer.class, plan.getId());
+	}
+
+	private int holderRows(CardPlan plan) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM plan_holder WHERE plan_id = ?", Integer.class, plan.getId());
+	}
+
+	/**
+	 * Waits until a session of this database is blocked on a lock.
+	 */
+	private void awaitLockWait() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (jdbc.queryForObject("SELECT COUNT(*) FROM pg_stat_activity " +
+				"WHERE datname = current_database() AND wait_event_type = 'Lock'", Integer.class) == 0) {
+			assertThat(System.currentTimeMillis()).as("rebuild waiting for the reservation").isLessThan(deadline);
+			Thread.sleep(20);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
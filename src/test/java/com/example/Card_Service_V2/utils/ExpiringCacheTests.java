@@ -0,0 +1,82 @@
+package com.example.Card_Service_V2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringCacheTests {
+
+	private static final long MINUTE = 60_000;
+
+	@Test
+	void loadedValueIsCachedUntilInvalidated() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+
+		assertThat(cache.get("token", key -> ExpiringCache.Loaded.until("valid", System.currentTimeMillis() + MINUTE)))
+			.isEqualTo("valid");
+		assertThat(cache.getIfPresent("token")).isEqualTo("valid");
+		assertThat(cache.invalidate("token")).isTrue();
+		assertThat(cache.getIfPresent("token")).isNull();
+	}
+
+	@Test
+	void loadInFlightDuringInvalidationIsNotCached() throws Exception {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch invalidated = new CountDownLatch(1);
+
+		CompletableFuture<String> load = CompletableFuture.supplyAsync(() -> cache.get("token", key -> {
+			loading.countDown();
+			await(invalidated);
+			return ExpiringCache.Loaded.until("valid before revocation", System.currentTimeMillis() + MINUTE);
+		}));
+		await(loading);
+		assertThat(cache.invalidate("token")).isTrue();
+		invalidated.countDown();
+
+		// The callers of the load still get its answer; later lookups do not
+		assertThat(load.get(10, TimeUnit.SECONDS)).isEqualTo("valid before revocation");
+		assertThat(cache.getIfPresent("token")).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void loadStartedAfterInvalidationIsCached() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+		cache.invalidate("token");
+
+		cache.get("token", key -> ExpiringCache.Loaded.until("valid", System.currentTimeMillis() + MINUTE));
+
+		assertThat(cache.getIfPresent("token")).isEqualTo("valid");
+	}
+
+	@Test
+	void leastRecentlyUsedEntryIsEvictedWhenFull() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(2);
+		long expiresAt = System.currentTimeMillis() + MINUTE;
+		cache.put("a", "1", expiresAt);
+		cache.put("b", "2", expiresAt);
+		cache.getIfPresent("a");
+		cache.put("c", "3", expiresAt);
+
+		assertThat(cache.getIfPresent("b")).isNull();
+		assertThat(cache.getIfPresent("a")).isEqualTo("1");
+		assertThat(cache.getEvictions()).isEqualTo(1);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Timed out");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.example.Card_Service_V2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtClaimsDecoderTests {
+
+	private static final String HEADER = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}");
+	private static final String CLAIMS = "{\"sub\":\"alice\",\"role\":\"USER\",\"id\":42,\"exp\":1900000000}";
+
+	@Test
+	void readsTheFourClaims() {
+		JwtClaimsDecoder.Claims claims = JwtClaimsDecoder.decode(token(CLAIMS));
+
+		assertThat(claims).isNotNull();
+		assertThat(claims.getSubject()).isEqualTo("alice");
+		assertThat(claims.getRole()).isEqualTo("USER");
+		assertThat(claims.getUserId()).isEqualTo(42);
+		assertThat(claims.getExpiresAt()).isEqualTo(1900000000L);
+	}
+
+	@Test
+	void acceptsPaddedAndUnpaddedBase64url() {
+		// 61 bytes, so the unpadded encoding ends in a partial group
+		String payload = "{\"sub\":\"bob\",\"role\":\"ADMIN\",\"id\":\"7\",\"exp\":1900000000.5}";
+		String padded = Base64.getUrlEncoder().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+		assertThat(padded).endsWith("=");
+
+		JwtClaimsDecoder.Claims unpaddedClaims = JwtClaimsDecoder.decode(token(payload));
+		JwtClaimsDecoder.Claims paddedClaims = JwtClaimsDecoder.decode(HEADER + "." + padded + ".sig");
+
+		assertThat(unpaddedClaims.getUserId()).isEqualTo(7);
+		assertThat(unpaddedClaims.getExpiresAt()).isEqualTo(1900000000L);
+		assertThat(paddedClaims.getSubject()).isEqualTo("bob");
+	}
+
+	@Test
+	void decodesUrlSafeCharactersAndRejectsTheStandardAlphabet() {
+		// "???" and ">>>" encode to "_" and "-" in base64url, "/" and "+" in standard base64
+		String payload = "{\"sub\":\"???>>>\",\"role\":\"USER\",\"id\":1,\"exp\":1900000000}";
+		String urlSafe = Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+		String standard = Base64.getEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+		assertThat(urlSafe).contains("_").contains("-");
+
+		assertThat(JwtClaimsDecoder.decode(HEADER + "." + urlSafe + ".sig").getSubject()).isEqualTo("???>>>");
+		assertThat(JwtClaimsDecoder.decode(HEADER + "." + standard + ".sig")).isNull();
+	}
+
+	@Test
+	void unescapesStrings() {
+		JwtClaimsDecoder.Claims claims = JwtClaimsDecoder.decode(token(
+			"{\"sub\":\"a\\\"b\\\\c\\u00e9\\n\",\"role\":\"US\\u0045R\",\"id\":1,\"exp\":1900000000}"));
+
+		assertThat(claims.getSubject()).isEqualTo("a\"b\\cé\n");
+		assertThat(claims.getRole()).isEqualTo("USER");
+	}
+
+	@Test
+	void ignoresClaimsInsideNestedObjects() {
+		JwtClaimsDecoder.Claims claims = JwtClaimsDecoder.decode(token(
+			"{\"session\":{\"role\":\"ADMIN\",\"id\":1},\"aud\":[\"role\",{\"id\":2}],\"sub\":\"alice\",\"role\":\"USER\",\"id\":42,\"exp\":1900000000}"));
+
+		assertThat(claims.getRole()).isEqualTo("USER");
+		assertThat(claims.getUserId()).isEqualTo(42);
+	}
+
+	@Test
+	void missingOrMistypedClaimsReadAsAbsent() {
+		JwtClaimsDecoder.Claims claims = JwtClaimsDecoder.decode(token("{\"role\":[\"ADMIN\"],\"id\":\"x\",\"exp\":\"soon\"}"));
+
+		assertThat(claims).isNotNull();
+		assertThat(claims.getRole()).isNull();
+		assertThat(claims.getUserId()).isNull();
+		assertThat(claims.getSubject()).isNull();
+		assertThat(claims.getExpiresAt()).isNull();
+	}
+
+	@Test
+	void rejectsDuplicateClaims() {
+		assertThat(JwtClaimsDecoder.decode(token("{\"role\":\"USER\",\"id\":42,\"role\":\"ADMIN\"}"))).isNull();
+		// Even once every claim has been seen
+		assertThat(JwtClaimsDecoder.decode(token(CLAIMS.replace("}", ",\"role\":\"ADMIN\"}")))).isNull();
+	}
+
+	@Test
+	void rejectsDuplicateClaimsWrittenWithEscapes() {
+		assertThat(JwtClaimsDecoder.decode(token("{\"role\":\"USER\",\"r\\u006fle\":\"ADMIN\"}"))).isNull();
+		assertThat(JwtClaimsDecoder.decode(token("{\"r\\u006fle\":\"ADMIN\",\"id\":1}")).getRole()).isEqualTo("ADMIN");
+	}
+
+	@Test
+	void rejectsInvalidJsonInSkippedValues() {
+		for (String value : List.of("tru", "nul", "01", "1.", "-", "+1", ".5", "1e", "[1,]", "[1 2]", "{\"a\":1,}",
+				"{\"a\" 1}", "\"\\x\"", "\"a\tb\"")) {
+			assertThat(JwtClaimsDecoder.decode(token("{\"aud\":" + value + ",\"role\":\"USER\"}"))).as(value).isNull();
+		}
+		assertThat(JwtClaimsDecoder.decode(token("{\"aud\":[true,false,null,-0.5e+3,{}],\"role\":\"USER\"}"))).isNotNull();
+	}
+
+	@Test
+	void rejectsDeeplyNestedPayloads() {
+		assertThat(JwtClaimsDecoder.decode(token("{\"aud\":" + "[".repeat(1000) + "]".repeat(1000) + "}"))).isNull();
+		assertThat(JwtClaimsDecoder.decode(token("{\"aud\":" + "[".repeat(10) + "]".repeat(10) + "}"))).isNotNull();
+	}
+
+	@Test
+	void rejectsTruncatedPayloads() {
+		for (int length = 1; length < CLAIMS.length(); length++) {
+			assertThat(JwtClaimsDecoder.decode(token(CLAIMS.substring(0, length)))).as(CLAIMS.substring(0, length)).isNull();
+		}
+	}
+
+	@Test
+	void rejectsTrailingData() {
+		assertThat(JwtClaimsDecoder.decode(token(CLAIMS + "garbage"))).isNull();
+		assertThat(JwtClaimsDecoder.decode(token(CLAIMS + "{\"role\":\"ADMIN\"}"))).isNull();
+		assertThat(JwtClaimsDecoder.decode(token(CLAIMS + "}"))).isNull();
+		assertThat(JwtClaimsDecoder.decode(token(CLAIMS + " \n"))).isNotNull();
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		assertThat(JwtClaimsDecoder.decode(null)).isNull();
+		assertThat(JwtClaimsDecoder.decode(encode(CLAIMS))).isNull();
+		assertThat(JwtClaimsDecoder.decode(HEADER + "." + encode(CLAIMS))).isNull();
+		assertThat(JwtClaimsDecoder.decode(token(CLAIMS) + ".extra")).isNull();
+		assertThat(JwtClaimsDecoder.decode("." + encode(CLAIMS) + ".sig")).isNull();
+		assertThat(JwtClaimsDecoder.decode(HEADER + ".e30*.sig")).isNull();
+		assertThat(JwtClaimsDecoder.decode(token("[1,2]"))).isNull();
+		assertThat(JwtClaimsDecoder.decode(token("\"USER\""))).isNull();
+		assertThat(JwtClaimsDecoder.decode(token("x".repeat(JwtClaimsDecoder.MAX_TOKEN_LENGTH)))).isNull();
+	}
+
+	private static String token(String payload) {
+		return HEADER + "." + encode(payload) + ".sig";
+	}
+
+	private static String encode(String json) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.example.Card_Service_V2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogRedactorTests {
+
+	@Test
+	void masksUngroupedCardNumbersDownToTheLastFourDigits() {
+		assertThat(LogRedactor.redact("Card 4111111111111111 verified"))
+			.isEqualTo("Card ************1111 verified");
+		assertThat(LogRedactor.redact("4222222222222")).isEqualTo("*********2222");
+		assertThat(LogRedactor.redact("pan=6011000990139424123,"))
+			.isEqualTo("pan=***************4123,");
+	}
+
+	@Test
+	void masksGroupedCardNumbersAndKeepsTheSeparators() {
+		assertThat(LogRedactor.redact("PAN 4111 1111 1111 1111."))
+			.isEqualTo("PAN **** **** **** 1111.");
+		assertThat(LogRedactor.redact("[5105-1051-0510-5100]"))
+			.isEqualTo("[****-****-****-5100]");
+	}
+
+	@Test
+	void leavesDigitRunsThatAreNotCardNumbers() {
+		String text = "order 123456789012 of 12345678901234567890 on 2026-10-18 at 10:42, "
+			+ "amount 1500.00, ref 4111111111111111X, id A4111111111111111";
+
+		assertThat(LogRedactor.redact(text)).isSameAs(text);
+	}
+
+	@Test
+	void redactsSecretValuesInEveryKeyStyle() {
+		assertThat(LogRedactor.redact("update pin=1234 for card 7")).isEqualTo("update pin=[REDACTED] for card 7");
+		assertThat(LogRedactor.redact("cardPin: 4826")).isEqualTo("cardPin: [REDACTED]");
+		assertThat(LogRedactor.redact("{\"cvv\":\"123\",\"title\":\"Travel\"}"))
+			.isEqualTo("{\"cvv\":\"[REDACTED]\",\"title\":\"Travel\"}");
+		assertThat(LogRedactor.redact("{\"card_pin\": \"4826\", \"status\": \"ACTIVE\"}"))
+			.isEqualTo("{\"card_pin\": \"[REDACTED]\", \"status\": \"ACTIVE\"}");
+		assertThat(LogRedactor.redact("password=hunter2&user=bob")).isEqualTo("password=[REDACTED]&user=bob");
+	}
+
+	@Test
+	void leavesKeysThatOnlyContainASecretWord() {
+		String text = "spinner=3 pinned: true tokens=5";
+
+		assertThat(LogRedactor.redact(text)).isSameAs(text);
+	}
+
+	@Test
+	void redactsBearerCredentials() {
+		assertThat(LogRedactor.redact("Authorization: Bearer abc.def-ghi"))
+			.isEqualTo("Authorization: Bearer [REDACTED]");
+		assertThat(LogRedactor.redact("forwarding bearer s3cr3t upstream"))
+			.isEqualTo("forwarding Bearer [REDACTED] upstream");
+	}
+
+	@Test
+	void redactsBareJwts() {
+		assertThat(LogRedactor.redact("token eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJhIn0.c2ln-_x rejected"))
+			.isEqualTo("token [REDACTED] rejected");
+	}
+
+	@Test
+	void leavesTextWithNothingToRedactUncopied() {
+		String text = "Card 42 blocked by admin; 3 cards listed for user 7";
+
+		assertThat(LogRedactor.redact(text)).isSameAs(text);
+		assertThat(LogRedactor.redact("")).isEmpty();
+		assertThat(LogRedactor.redact(null)).isNull();
+	}
+
+}